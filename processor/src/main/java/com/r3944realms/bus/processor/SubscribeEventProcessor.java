@@ -0,0 +1,364 @@
+package com.r3944realms.bus.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * 在编译期扫描带有{@code @SubscribeEvent}注解的方法，为每个监听器类生成一个{@code ISubscriberIndex}绑定表。
+ * <p>
+ * 绑定表中的监听器直接调用订阅方法，使{@code EventBus.register}无需反射扫描方法与生成隐藏类。
+ * 以下情况不会生成绑定表，运行时退回反射路径：
+ * <ul>
+ *     <li>订阅方法为private</li>
+ *     <li>监听器类或其外部类为private，或是局部类/匿名类</li>
+ *     <li>事件参数类型在监听器类所在的包中不可访问</li>
+ *     <li>父类或接口中也有订阅方法(注册时会失败，只报告警告)</li>
+ * </ul>
+ * 使用方式：{@code annotationProcessor project(':processor')}
+ */
+public class SubscribeEventProcessor extends AbstractProcessor {
+    private static final String SUBSCRIBE_EVENT = "com.r3944realms.bus.api.SubscribeEvent";
+    private static final String EVENT = "com.r3944realms.bus.api.Event";
+    private static final String KEYED_EVENT = "com.r3944realms.bus.api.IKeyedEvent";
+    private static final String GENERIC_EVENT = "com.r3944realms.bus.api.GenericEvent";
+    private static final String INDEX_SUFFIX = "$$SubscriberIndex";
+
+    private Elements elements;
+    private Types types;
+    private Messager messager;
+    private Filer filer;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        elements = processingEnv.getElementUtils();
+        types = processingEnv.getTypeUtils();
+        messager = processingEnv.getMessager();
+        filer = processingEnv.getFiler();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Set.of(SUBSCRIBE_EVENT);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement subscribeEvent = elements.getTypeElement(SUBSCRIBE_EVENT);
+        if (subscribeEvent == null || annotations.isEmpty())
+            return false;
+
+        Map<TypeElement, List<ExecutableElement>> byClass = new LinkedHashMap<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(subscribeEvent)) {
+            if (element.getKind() != ElementKind.METHOD)
+                continue;
+            byClass.computeIfAbsent((TypeElement) element.getEnclosingElement(), k -> new ArrayList<>())
+                    .add((ExecutableElement) element);
+        }
+        byClass.forEach(this::processClass);
+        return true;
+    }
+
+    private void processClass(TypeElement listenerClass, List<ExecutableElement> methods) {
+        if (!checkSupertypes(listenerClass, listenerClass))
+            return;
+        TypeElement event = elements.getTypeElement(EVENT);
+        List<SubscriberMethod> subscribers = new ArrayList<>(methods.size());
+        boolean canGenerate = isAccessibleClass(listenerClass);
+        for (ExecutableElement method : methods) {
+            if (method.getParameters().size() != 1) {
+                messager.printMessage(Diagnostic.Kind.ERROR, """
+                        方法 %s 带有@SubscribeEvent注解,
+                        其需要 %d 个参数，
+                        但是事件处理器方法必须要求为单一参数。
+                        """.formatted(method, method.getParameters().size()), method);
+                return;
+            }
+            TypeMirror eventType = types.erasure(method.getParameters().get(0).asType());
+            Element eventElement = types.asElement(eventType);
+            boolean isInterface = eventElement != null && eventElement.getKind() == ElementKind.INTERFACE;
+            if (!isInterface && (event == null || !types.isAssignable(eventType, event.asType()))) {
+                messager.printMessage(Diagnostic.Kind.ERROR, """
+                        方法 %s 虽然带有@SubscribeEvent注解，
+                        但是其唯一参数类型 %s 既不是事件类的子类，也不是接口
+                        """.formatted(method, eventType), method);
+                return;
+            }
+            SubscriberMethod subscriber = new SubscriberMethod(method, eventType);
+            TypeElement keyedEvent = elements.getTypeElement(KEYED_EVENT);
+            if (subscriber.key != null && (keyedEvent == null || !types.isAssignable(eventType, keyedEvent.asType()))) {
+                messager.printMessage(Diagnostic.Kind.ERROR, """
+                        方法 %s 指定了键 %s，
+                        但是其参数类型 %s 没有实现IKeyedEvent
+                        """.formatted(method, subscriber.key, eventType), method);
+                return;
+            }
+            TypeMirror typeArgument = genericArgument(method.getParameters().get(0).asType());
+            if (typeArgument != null) {
+                if (subscriber.key != null) {
+                    messager.printMessage(Diagnostic.Kind.ERROR, """
+                            方法 %s 订阅了参数化的泛型事件，其类型参数即为键，
+                            不能再通过@SubscribeEvent指定键 %s
+                            """.formatted(method, subscriber.key), method);
+                    return;
+                }
+                subscriber.typeArgument = types.erasure(typeArgument);
+                if (!isAccessibleFrom(typeArgument, listenerClass))
+                    canGenerate = false;
+            }
+            if (method.getModifiers().contains(Modifier.PRIVATE) || !isAccessibleFrom(eventType, listenerClass))
+                canGenerate = false;
+            subscribers.add(subscriber);
+        }
+        if (!canGenerate) {
+            messager.printMessage(Diagnostic.Kind.NOTE,
+                    "%s 含有无法直接访问的订阅方法或事件类型，注册时将使用反射".formatted(listenerClass), listenerClass);
+            return;
+        }
+        try {
+            writeIndex(listenerClass, subscribers);
+        } catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "无法生成监听器绑定表：" + e, listenerClass);
+        }
+    }
+
+    /**
+     * 与{@code EventBus.checkSupertypes}相同的检查：父类与接口中不允许出现@SubscribeEvent方法。
+     * <p>
+     * 类本身可能从不被注册(例如只有父类被注册)，因此只报告警告并且不生成绑定表，注册时由总线抛出异常
+     */
+    private boolean checkSupertypes(TypeElement registerType, TypeElement type) {
+        if (type != registerType) {
+            for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+                if (hasSubscribeEvent(method)) {
+                    messager.printMessage(Diagnostic.Kind.WARNING, """
+                            监听器类%s的父类%s有一个带有@SubscribeEvent注解的方法：%s。
+                            注册%s时将抛出异常，只有监听器对象可以具有@SubscribeEvent方法。
+                            """.formatted(registerType, type, method, registerType), registerType);
+                    return false;
+                }
+            }
+        }
+        List<TypeMirror> supertypes = new ArrayList<>(type.getInterfaces());
+        supertypes.add(type.getSuperclass());
+        for (TypeMirror supertype : supertypes) {
+            if (supertype.getKind() == TypeKind.DECLARED
+                    && !checkSupertypes(registerType, (TypeElement) ((DeclaredType) supertype).asElement()))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * 沿父类链找到{@code GenericEvent}的类型参数，与运行时{@code GenericTypes.resolveTypeArgument}一致
+     * @return 类型参数，参数类型不是泛型事件、为原始类型或类型参数为通配符/类型变量时返回null
+     */
+    private TypeMirror genericArgument(TypeMirror type) {
+        TypeElement genericEvent = elements.getTypeElement(GENERIC_EVENT);
+        if (genericEvent == null)
+            return null;
+        TypeMirror erasedGeneric = types.erasure(genericEvent.asType());
+        while (type.getKind() == TypeKind.DECLARED) {
+            if (types.isSameType(types.erasure(type), erasedGeneric)) {
+                List<? extends TypeMirror> arguments = ((DeclaredType) type).getTypeArguments();
+                if (arguments.isEmpty())
+                    return null;
+                TypeKind kind = arguments.get(0).getKind();
+                return kind == TypeKind.DECLARED || kind == TypeKind.ARRAY ? arguments.get(0) : null;
+            }
+            //类的直接父类型中第一个是父类
+            List<? extends TypeMirror> supertypes = types.directSupertypes(type);
+            if (supertypes.isEmpty())
+                return null;
+            type = supertypes.get(0);
+        }
+        return null;
+    }
+
+    private boolean hasSubscribeEvent(ExecutableElement method) {
+        for (AnnotationMirror annotation : method.getAnnotationMirrors()) {
+            if (((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals(SUBSCRIBE_EVENT))
+                return true;
+        }
+        return false;
+    }
+
+    private static boolean isAccessibleClass(TypeElement type) {
+        for (Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            if (e.getModifiers().contains(Modifier.PRIVATE) || ((TypeElement) e).getNestingKind().compareTo(NestingKind.MEMBER) > 0)
+                return false;
+        }
+        return true;
+    }
+
+    private boolean isAccessibleFrom(TypeMirror type, TypeElement from) {
+        if (type.getKind() == TypeKind.ARRAY)
+            return isAccessibleFrom(((ArrayType) type).getComponentType(), from);
+        if (type.getKind() != TypeKind.DECLARED)
+            return true;
+        PackageElement fromPackage = elements.getPackageOf(from);
+        for (Element e = ((DeclaredType) type).asElement(); e instanceof TypeElement; e = e.getEnclosingElement()) {
+            Set<Modifier> modifiers = e.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE) || ((TypeElement) e).getNestingKind().compareTo(NestingKind.MEMBER) > 0)
+                return false;
+            if (!modifiers.contains(Modifier.PUBLIC) && !elements.getPackageOf(e).equals(fromPackage))
+                return false;
+        }
+        return true;
+    }
+
+    private final class SubscriberMethod {
+        private final ExecutableElement method;
+        private final TypeMirror eventType;
+        private final boolean isStatic;
+        private String priority = "NORMAL";
+        private boolean receiveCancelled = false;
+        private String key = null;
+        private long budgetNanos = 0;
+        private TypeMirror typeArgument = null;
+
+        private SubscriberMethod(ExecutableElement method, TypeMirror eventType) {
+            this.method = method;
+            this.eventType = eventType;
+            this.isStatic = method.getModifiers().contains(Modifier.STATIC);
+            for (AnnotationMirror annotation : method.getAnnotationMirrors()) {
+                if (!((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals(SUBSCRIBE_EVENT))
+                    continue;
+                annotation.getElementValues().forEach((element, value) -> {
+                    switch (element.getSimpleName().toString()) {
+                        case "priority" -> priority = ((VariableElement) value.getValue()).getSimpleName().toString();
+                        case "receiveCancelled" -> receiveCancelled = (Boolean) value.getValue();
+                        case "key" -> key = ((String) value.getValue()).isEmpty() ? null : (String) value.getValue();
+                        case "budgetNanos" -> budgetNanos = (Long) value.getValue();
+                        default -> {}
+                    }
+                });
+            }
+        }
+
+        private String keyExpression() {
+            if (typeArgument != null)
+                return typeArgument + ".class";
+            return key == null ? "null" : elements.getConstantExpression(key);
+        }
+
+        private String descriptor() {
+            StringBuilder ret = new StringBuilder("(");
+            ret.append(SubscribeEventProcessor.this.descriptor(method.getParameters().get(0).asType()));
+            return ret.append(')').append(SubscribeEventProcessor.this.descriptor(method.getReturnType())).toString();
+        }
+    }
+
+    private String descriptor(TypeMirror type) {
+        return switch (type.getKind()) {
+            case VOID -> "V";
+            case BOOLEAN -> "Z";
+            case BYTE -> "B";
+            case CHAR -> "C";
+            case SHORT -> "S";
+            case INT -> "I";
+            case LONG -> "J";
+            case FLOAT -> "F";
+            case DOUBLE -> "D";
+            case ARRAY -> "[" + descriptor(((ArrayType) type).getComponentType());
+            default -> {
+                TypeMirror erased = types.erasure(type);
+                TypeElement element = (TypeElement) ((DeclaredType) erased).asElement();
+                yield "L" + elements.getBinaryName(element).toString().replace('.', '/') + ";";
+            }
+        };
+    }
+
+    private void writeIndex(TypeElement listenerClass, List<SubscriberMethod> subscribers) throws IOException {
+        String packageName = elements.getPackageOf(listenerClass).getQualifiedName().toString();
+        String binaryName = elements.getBinaryName(listenerClass).toString();
+        String indexName = binaryName.substring(packageName.isEmpty() ? 0 : packageName.length() + 1) + INDEX_SUFFIX;
+        String listenerType = types.erasure(listenerClass.asType()).toString();
+
+        StringBuilder methods = new StringBuilder();
+        StringBuilder cases = new StringBuilder();
+        for (int i = 0; i < subscribers.size(); i++) {
+            SubscriberMethod subscriber = subscribers.get(i);
+            String eventType = subscriber.eventType.toString();
+            methods.append("""
+                                new SubscriberMethod("%s", "%s", %s, %s.class, EventPriority.%s, %s, %s, %dL)%s
+                    """.formatted(
+                    subscriber.method.getSimpleName(), subscriber.descriptor(), subscriber.isStatic,
+                    eventType, subscriber.priority, subscriber.receiveCancelled,
+                    subscriber.keyExpression(), subscriber.budgetNanos,
+                    i == subscribers.size() - 1 ? "" : ","));
+            String receiver = subscriber.isStatic ? listenerType : "instance";
+            cases.append("""
+                                case %d -> new GeneratedEventListener() {
+                                    @Override
+                                    public void invoke(Event event) {
+                                        %s.%s((%s) event);
+                                    }
+                                };
+                    """.formatted(i, receiver, subscriber.method.getSimpleName(), eventType));
+        }
+
+        String source = """
+                %s// 由 %s 生成，请勿修改
+                @SuppressWarnings({"unchecked", "rawtypes"})
+                public final class %s implements ISubscriberIndex {
+                    private static final List<SubscriberMethod> METHODS = List.of(
+                %s        );
+
+                    @Override
+                    public List<SubscriberMethod> methods() {
+                        return METHODS;
+                    }
+
+                    @Override
+                    public EventListener createListener(int index, Object target) {
+                        final %s instance = (%s) target;
+                        return switch (index) {
+                %s            default -> throw new IndexOutOfBoundsException(index);
+                        };
+                    }
+                }
+                """.formatted(
+                header(packageName), SubscribeEventProcessor.class.getName(), indexName,
+                methods, listenerType, listenerType, cases);
+
+        try (Writer writer = filer.createSourceFile(
+                packageName.isEmpty() ? indexName : packageName + "." + indexName, listenerClass).openWriter()) {
+            writer.write(source);
+        }
+    }
+
+    private static String header(String packageName) {
+        return (packageName.isEmpty() ? "" : "package " + packageName + ";\n\n") + """
+                import com.r3944realms.bus.GeneratedEventListener;
+                import com.r3944realms.bus.api.Event;
+                import com.r3944realms.bus.api.EventListener;
+                import com.r3944realms.bus.api.EventPriority;
+                import com.r3944realms.bus.api.ISubscriberIndex;
+
+                import java.util.List;
+
+                """;
+    }
+}
@@ -0,0 +1,280 @@
+package com.r3944realms.bus.processor;
+
+import com.r3944realms.bus.api.BusBuilder;
+import com.r3944realms.bus.api.Event;
+import com.r3944realms.bus.api.IEventBus;
+import com.r3944realms.bus.api.ISubscriberIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.*;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SubscribeEventProcessorTest {
+    private record Compilation(boolean success, List<Diagnostic<? extends JavaFileObject>> diagnostics, Path classes, Path generated) {
+        List<String> messages(Diagnostic.Kind kind) {
+            List<String> messages = new ArrayList<>();
+            for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics)
+                if (diagnostic.getKind() == kind)
+                    messages.add(diagnostic.getMessage(Locale.ROOT));
+            return messages;
+        }
+
+        URLClassLoader loader() throws IOException {
+            return new URLClassLoader(new URL[]{classes.toUri().toURL()}, SubscribeEventProcessorTest.class.getClassLoader());
+        }
+    }
+
+    /**
+     * 以当前的类路径编译源码并运行处理器
+     * @param sources 类名到源码的映射
+     */
+    private static Compilation compile(Path dir, Map<String, String> sources) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Path classes = Files.createDirectories(dir.resolve("classes"));
+        Path generated = Files.createDirectories(dir.resolve("generated"));
+        List<Path> files = new ArrayList<>();
+        for (Map.Entry<String, String> source : sources.entrySet()) {
+            Path file = dir.resolve("src").resolve(source.getKey().replace('.', '/') + ".java");
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, source.getValue());
+            files.add(file);
+        }
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, Locale.ROOT, StandardCharsets.UTF_8)) {
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+                    List.of("-classpath", System.getProperty("java.class.path"), "-d", classes.toString(), "-s", generated.toString()),
+                    null, fileManager.getJavaFileObjectsFromPaths(files));
+            task.setProcessors(List.of(new SubscribeEventProcessor()));
+            boolean success = task.call();
+            return new Compilation(success, diagnostics.getDiagnostics(), classes, generated);
+        }
+    }
+
+    @Test
+    public void generatesIndexForAccessibleListener(@TempDir Path dir) throws Exception {
+        Compilation compilation = compile(dir, Map.of("demo.Listener", """
+                package demo;
+
+                import com.r3944realms.bus.api.*;
+
+                public class Listener {
+                    public static class Ping extends Event {}
+
+                    public static class Statics {
+                        public static int hits;
+
+                        @SubscribeEvent
+                        static void onPing(Ping event) {
+                            hits++;
+                        }
+                    }
+
+                    public int hits;
+
+                    @SubscribeEvent(priority = EventPriority.HIGH)
+                    void onPing(Ping event) {
+                        hits++;
+                    }
+
+                    @SubscribeEvent(receiveCancelled = true)
+                    public void onPingAgain(Ping event) {
+                        hits++;
+                    }
+                }
+                """));
+        assertTrue(compilation.success(), compilation.diagnostics()::toString);
+        assertTrue(Files.exists(compilation.generated().resolve("demo/Listener" + ISubscriberIndex.CLASS_SUFFIX + ".java")));
+        try (URLClassLoader loader = compilation.loader()) {
+            Class<?> listenerClass = loader.loadClass("demo.Listener");
+            ISubscriberIndex index = (ISubscriberIndex) loader.loadClass("demo.Listener" + ISubscriberIndex.CLASS_SUFFIX)
+                    .getConstructor().newInstance();
+            assertEquals(2, index.methods().size());
+
+            IEventBus bus = BusBuilder.builder().build();
+            Class<?> statics = loader.loadClass("demo.Listener$Statics");
+            assertNotNull(loader.loadClass("demo.Listener$Statics" + ISubscriberIndex.CLASS_SUFFIX));
+            Object listener = listenerClass.getConstructor().newInstance();
+            bus.register(listener);
+            bus.register(statics);
+            bus.post((Event) loader.loadClass("demo.Listener$Ping").getConstructor().newInstance());
+            assertEquals(2, listenerClass.getField("hits").getInt(listener));
+            assertEquals(1, statics.getField("hits").getInt(null));
+        }
+    }
+
+    @Test
+    public void inaccessibleSubscriberFallsBackToReflection(@TempDir Path dir) throws Exception {
+        Compilation compilation = compile(dir, Map.of("demo.Hidden", """
+                package demo;
+
+                import com.r3944realms.bus.api.*;
+
+                public class Hidden {
+                    public static class Ping extends Event {}
+
+                    public int hits;
+
+                    @SubscribeEvent
+                    private void onPing(Ping event) {
+                        hits++;
+                    }
+                }
+                """));
+        assertTrue(compilation.success(), compilation.diagnostics()::toString);
+        assertFalse(Files.exists(compilation.generated().resolve("demo/Hidden" + ISubscriberIndex.CLASS_SUFFIX + ".java")));
+        assertTrue(compilation.messages(Diagnostic.Kind.NOTE).stream().anyMatch(message -> message.contains("demo.Hidden")),
+                compilation.diagnostics()::toString);
+        try (URLClassLoader loader = compilation.loader()) {
+            Class<?> listenerClass = loader.loadClass("demo.Hidden");
+            IEventBus bus = BusBuilder.builder().build();
+            Object listener = listenerClass.getConstructor().newInstance();
+            bus.register(listener);
+            bus.post((Event) loader.loadClass("demo.Hidden$Ping").getConstructor().newInstance());
+            assertEquals(1, listenerClass.getField("hits").getInt(listener));
+        }
+    }
+
+    @Test
+    public void supertypeSubscribersOnlyWarn(@TempDir Path dir) throws Exception {
+        Compilation compilation = compile(dir, Map.of(
+                "demo.Base", """
+                        package demo;
+
+                        import com.r3944realms.bus.api.*;
+
+                        public class Base {
+                            public static class Ping extends Event {}
+
+                            @SubscribeEvent
+                            public void onPing(Ping event) {}
+                        }
+                        """,
+                "demo.Derived", """
+                        package demo;
+
+                        import com.r3944realms.bus.api.*;
+
+                        public class Derived extends Base {
+                            @SubscribeEvent
+                            public void onPingAgain(Base.Ping event) {}
+                        }
+                        """));
+        assertTrue(compilation.success(), compilation.diagnostics()::toString);
+        assertTrue(compilation.messages(Diagnostic.Kind.ERROR).isEmpty());
+        assertTrue(compilation.messages(Diagnostic.Kind.WARNING).stream().anyMatch(message -> message.contains("demo.Derived")),
+                compilation.diagnostics()::toString);
+        assertTrue(Files.exists(compilation.generated().resolve("demo/Base" + ISubscriberIndex.CLASS_SUFFIX + ".java")));
+        assertFalse(Files.exists(compilation.generated().resolve("demo/Derived" + ISubscriberIndex.CLASS_SUFFIX + ".java")));
+    }
+
+    @Test
+    public void brokenIndexFallsBackToReflection(@TempDir Path dir) throws Exception {
+        Compilation compilation = compile(dir, Map.of(
+                "demo.Stale", """
+                        package demo;
+
+                        import com.r3944realms.bus.api.*;
+
+                        public class Stale {
+                            public static class Ping extends Event {}
+
+                            public int hits;
+
+                            @SubscribeEvent
+                            private void onPing(Ping event) {
+                                hits++;
+                            }
+                        }
+                        """,
+                "demo.Stale$$SubscriberIndex", """
+                        package demo;
+
+                        import com.r3944realms.bus.api.*;
+                        import java.util.List;
+
+                        public class Stale$$SubscriberIndex implements ISubscriberIndex {
+                            public Stale$$SubscriberIndex() {
+                                throw new IllegalStateException("stale index");
+                            }
+
+                            @Override
+                            public List<SubscriberMethod> methods() {
+                                return List.of();
+                            }
+
+                            @Override
+                            public EventListener createListener(int index, Object target) {
+                                throw new IndexOutOfBoundsException(index);
+                            }
+                        }
+                        """));
+        assertTrue(compilation.success(), compilation.diagnostics()::toString);
+        try (URLClassLoader loader = compilation.loader()) {
+            Class<?> listenerClass = loader.loadClass("demo.Stale");
+            IEventBus bus = BusBuilder.builder().build();
+            Object listener = listenerClass.getConstructor().newInstance();
+            bus.register(listener);
+            bus.post((Event) loader.loadClass("demo.Stale$Ping").getConstructor().newInstance());
+            assertEquals(1, listenerClass.getField("hits").getInt(listener));
+        }
+    }
+
+    @Test
+    public void indexedRegistrationStillRejectsSupertypeSubscribers(@TempDir Path dir) throws Exception {
+        //父类与监听器类分开编译时，监听器类的绑定表不知道父类后来添加的订阅方法
+        Compilation compilation = compile(dir, Map.of(
+                "demo.Parent", """
+                        package demo;
+
+                        import com.r3944realms.bus.api.*;
+
+                        public class Parent {
+                            public static class Ping extends Event {}
+
+                            @SubscribeEvent
+                            public void onPing(Ping event) {}
+                        }
+                        """,
+                "demo.Child", """
+                        package demo;
+
+                        public class Child extends Parent {}
+                        """,
+                "demo.Child$$SubscriberIndex", """
+                        package demo;
+
+                        import com.r3944realms.bus.api.*;
+                        import java.util.List;
+
+                        public class Child$$SubscriberIndex implements ISubscriberIndex {
+                            @Override
+                            public List<SubscriberMethod> methods() {
+                                return List.of();
+                            }
+
+                            @Override
+                            public EventListener createListener(int index, Object target) {
+                                throw new IndexOutOfBoundsException(index);
+                            }
+                        }
+                        """));
+        assertTrue(compilation.success(), compilation.diagnostics()::toString);
+        try (URLClassLoader loader = compilation.loader()) {
+            Object child = loader.loadClass("demo.Child").getConstructor().newInstance();
+            IEventBus bus = BusBuilder.builder().build();
+            assertThrows(IllegalArgumentException.class, () -> bus.register(child));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.r3944realms.bus.benchmark;
+
+import com.r3944realms.bus.api.BusBuilder;
+import com.r3944realms.bus.api.IEventBus;
+import com.r3944realms.bus.benchmark.BenchEvents.PlainEvent;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 逐个发布与{@link IEventBus#postBatch}/{@link IEventBus#postAll}批量发布同类事件的对比
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class BatchPostBenchmark {
+    private static final int BATCH_SIZE = 256;
+
+    @Param({"1", "10", "100"})
+    public int listenerCount;
+
+    private IEventBus bus;
+    private PlainEvent[] events;
+    private List<PlainEvent> eventList;
+
+    @Setup
+    public void setup() {
+        bus = BusBuilder.builder().build();
+        BenchEvents.registerListeners(bus, BenchEvents.ListenerKind.CONSUMER, false, listenerCount);
+        events = new PlainEvent[BATCH_SIZE];
+        Arrays.setAll(events, i -> new PlainEvent());
+        eventList = List.of(events);
+        bus.post(events[0]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public PlainEvent[] postEach() {
+        for (PlainEvent event : events)
+            bus.post(event);
+        return events;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public PlainEvent[] postBatch() {
+        return bus.postBatch(PlainEvent.class, events);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<PlainEvent> postAll() {
+        bus.postAll(eventList);
+        return eventList;
+    }
+}
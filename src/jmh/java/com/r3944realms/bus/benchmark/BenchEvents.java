@@ -0,0 +1,110 @@
+package com.r3944realms.bus.benchmark;
+
+import com.r3944realms.bus.api.Event;
+import com.r3944realms.bus.api.EventPriority;
+import com.r3944realms.bus.api.ICancellableEvent;
+import com.r3944realms.bus.api.IEventBus;
+import com.r3944realms.bus.api.SubscribeEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 基准测试共用的事件类型与监听器
+ */
+public final class BenchEvents {
+    private BenchEvents() {}
+
+    public static class PlainEvent extends Event {}
+
+    public static class CancellableEvent extends Event implements ICancellableEvent {}
+
+    /**
+     * 深层事件继承链，用于衡量父监听器展开的开销
+     */
+    public static class Depth0 extends Event {}
+    public static class Depth1 extends Depth0 {}
+    public static class Depth2 extends Depth1 {}
+    public static class Depth3 extends Depth2 {}
+    public static class Depth4 extends Depth3 {}
+    public static class Depth5 extends Depth4 {}
+    public static class Depth6 extends Depth5 {}
+    public static class Depth7 extends Depth6 {}
+
+    public static final List<Class<? extends Event>> DEPTH_CHAIN = List.of(
+            Depth0.class, Depth1.class, Depth2.class, Depth3.class,
+            Depth4.class, Depth5.class, Depth6.class, Depth7.class
+    );
+
+    public static final class PlainSubscriber {
+        public int hits;
+
+        @SubscribeEvent
+        public void onPlain(PlainEvent event) {
+            hits++;
+        }
+    }
+
+    public static final class CancellableSubscriber {
+        public int hits;
+
+        @SubscribeEvent
+        public void onCancellable(CancellableEvent event) {
+            hits++;
+        }
+    }
+
+    /**
+     * 带有多个{@link SubscribeEvent}方法的监听器对象，用于衡量register/unregister的开销
+     */
+    public static final class MultiSubscriber {
+        public int hits;
+
+        @SubscribeEvent(priority = EventPriority.HIGHEST)
+        public void onPlainHighest(PlainEvent event) { hits++; }
+        @SubscribeEvent(priority = EventPriority.HIGH)
+        public void onPlainHigh(PlainEvent event) { hits++; }
+        @SubscribeEvent
+        public void onPlainNormal(PlainEvent event) { hits++; }
+        @SubscribeEvent(priority = EventPriority.LOW)
+        public void onCancellableLow(CancellableEvent event) { hits++; }
+        @SubscribeEvent(priority = EventPriority.LOWEST)
+        public void onCancellableLowest(CancellableEvent event) { hits++; }
+        @SubscribeEvent
+        public void onDepth3(Depth3 event) { hits++; }
+        @SubscribeEvent
+        public void onDepth7(Depth7 event) { hits++; }
+    }
+
+    public enum ListenerKind {
+        SUBSCRIBE,
+        CONSUMER
+    }
+
+    /**
+     * 按{@link EventPriority}轮流为指定事件注册{@code count}个监听器
+     * @return 注册的对象，用于之后取消注册
+     */
+    public static List<Object> registerListeners(IEventBus bus, ListenerKind kind, boolean cancellable, int count) {
+        List<Object> targets = new ArrayList<>(count);
+        EventPriority[] priorities = EventPriority.values();
+        for (int i = 0; i < count; i++) {
+            Object target;
+            if (kind == ListenerKind.SUBSCRIBE) {
+                target = cancellable ? new CancellableSubscriber() : new PlainSubscriber();
+                bus.register(target);
+            } else if (cancellable) {
+                Consumer<CancellableEvent> consumer = e -> {};
+                bus.addListener(priorities[i % priorities.length], CancellableEvent.class, consumer);
+                target = consumer;
+            } else {
+                Consumer<PlainEvent> consumer = e -> {};
+                bus.addListener(priorities[i % priorities.length], PlainEvent.class, consumer);
+                target = consumer;
+            }
+            targets.add(target);
+        }
+        return targets;
+    }
+}
@@ -0,0 +1,46 @@
+package com.r3944realms.bus.benchmark;
+
+import com.r3944realms.bus.api.BusBuilder;
+import com.r3944realms.bus.api.EventPriority;
+import com.r3944realms.bus.api.IEventBus;
+import com.r3944realms.bus.benchmark.BenchEvents.CancellableEvent;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 可取消事件在{@link EventPriority#HIGHEST}阶段即被取消时的分发开销。
+ * <p>
+ * 其后的{@code listenerCount}个监听器都不接收已取消的事件，另有{@code receivingCount}个监听器接收已取消的事件，
+ * 用于衡量取消后跳过不接收的监听器的效果。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class CancellationBenchmark {
+    @Param({"10", "200"})
+    public int listenerCount;
+
+    @Param({"0", "2"})
+    public int receivingCount;
+
+    private IEventBus bus;
+
+    @Setup
+    public void setup() {
+        bus = BusBuilder.builder().build();
+        bus.addListener(EventPriority.HIGHEST, CancellableEvent.class, e -> e.setCanceled(true));
+        for (int i = 0; i < listenerCount; i++)
+            bus.addListener(EventPriority.NORMAL, CancellableEvent.class, e -> {});
+        for (int i = 0; i < receivingCount; i++)
+            bus.addListener(EventPriority.LOW, true, CancellableEvent.class, e -> {});
+    }
+
+    @Benchmark
+    public CancellableEvent postCanceledEarly() {
+        return bus.post(new CancellableEvent());
+    }
+}
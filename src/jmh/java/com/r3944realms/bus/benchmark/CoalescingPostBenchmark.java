@@ -0,0 +1,64 @@
+package com.r3944realms.bus.benchmark;
+
+import com.r3944realms.bus.api.BusBuilder;
+import com.r3944realms.bus.api.Event;
+import com.r3944realms.bus.api.IEventBus;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 突发的状态变化事件在合并与不合并时的开销对比。
+ * <p>
+ * 每次操作为{@code ENTITY_COUNT}个实体各发布{@code burst}个事件，然后{@link IEventBus#flush()}，相当于一个逻辑帧。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class CoalescingPostBenchmark {
+    private static final int ENTITY_COUNT = 16;
+    private static final int LISTENER_COUNT = 4;
+    private static final long LISTENER_WORK = 50;
+
+    public static class StateChangedEvent extends Event {
+        private final int entity;
+        private final int changes;
+
+        public StateChangedEvent(int entity, int changes) {
+            this.entity = entity;
+            this.changes = changes;
+        }
+    }
+
+    @Param({"1", "100"})
+    public int burst;
+
+    @Param({"false", "true"})
+    public boolean coalesce;
+
+    private IEventBus bus;
+
+    @Setup
+    public void setup() {
+        BusBuilder builder = BusBuilder.builder();
+        if (coalesce)
+            builder.coalesce(StateChangedEvent.class, event -> event.entity,
+                    (first, second) -> new StateChangedEvent(first.entity, first.changes + second.changes), 0);
+        bus = builder.build();
+        for (int i = 0; i < LISTENER_COUNT; i++)
+            bus.addListener(StateChangedEvent.class, e -> Blackhole.consumeCPU(LISTENER_WORK));
+    }
+
+    @Benchmark
+    public void tick() {
+        for (int i = 0; i < burst; i++) {
+            for (int entity = 0; entity < ENTITY_COUNT; entity++)
+                bus.post(new StateChangedEvent(entity, 1));
+        }
+        bus.flush();
+    }
+}
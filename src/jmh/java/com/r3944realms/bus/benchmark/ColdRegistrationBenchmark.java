@@ -0,0 +1,67 @@
+package com.r3944realms.bus.benchmark;
+
+import com.r3944realms.bus.api.BusBuilder;
+import com.r3944realms.bus.api.Event;
+import com.r3944realms.bus.api.IEventBus;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandles;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 冷启动时为大量不同事件类型注册监听器的开销，用于衡量{@code EventBus.listenerLists}查找表的写入与读取。
+ * <p>
+ * 事件类型在试验开始前用ASM生成为{@link Event}的隐藏子类，每次测量都使用一条全新的总线。
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ColdRegistrationBenchmark {
+    @Param({"10000"})
+    public int eventTypes;
+
+    private Class<? extends Event>[] types;
+    private final Consumer<Event> consumer = e -> {};
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void generateEventTypes() throws IllegalAccessException {
+        byte[] classBytes = makeEventClass();
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        types = new Class[eventTypes];
+        for (int i = 0; i < eventTypes; i++)
+            types[i] = (Class<? extends Event>) lookup.defineHiddenClass(classBytes, true).lookupClass();
+    }
+
+    private static byte[] makeEventClass() {
+        ClassWriter cv = new ClassWriter(0);
+        String eventDesc = Type.getInternalName(Event.class);
+        cv.visit(Opcodes.V16, Opcodes.ACC_PUBLIC, "com/r3944realms/bus/benchmark/GeneratedEvent", null, eventDesc, null);
+        MethodVisitor mv = cv.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, eventDesc, "<init>", "()V", false);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(1, 1);
+        mv.visitEnd();
+        cv.visitEnd();
+        return cv.toByteArray();
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public IEventBus registerAllEventTypes() {
+        IEventBus bus = BusBuilder.builder().build();
+        for (Class<? extends Event> type : types)
+            bus.addListener((Class<Event>) type, consumer);
+        return bus;
+    }
+}
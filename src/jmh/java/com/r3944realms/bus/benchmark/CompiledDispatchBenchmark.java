@@ -0,0 +1,54 @@
+package com.r3944realms.bus.benchmark;
+
+import com.r3944realms.bus.api.BusBuilder;
+import com.r3944realms.bus.api.Event;
+import com.r3944realms.bus.api.IEventBus;
+import com.r3944realms.bus.benchmark.BenchEvents.CancellableEvent;
+import com.r3944realms.bus.benchmark.BenchEvents.ListenerKind;
+import com.r3944realms.bus.benchmark.BenchEvents.PlainEvent;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 编译分发与数组循环分发的对比。
+ * <p>
+ * 同时注册{@link ListenerKind#SUBSCRIBE}与{@link ListenerKind#CONSUMER}两种监听器，使数组循环中的调用点呈超多态。
+ * 监听器数量超过{@code CompiledDispatcher.MAX_LISTENERS}时编译分发会退回数组循环，最大的参数用于确认退回的开销。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class CompiledDispatchBenchmark {
+    @Param({"2", "10", "50", "200"})
+    public int listenerCount;
+
+    @Param({"false", "true"})
+    public boolean cancellable;
+
+    @Param({"false", "true"})
+    public boolean compiled;
+
+    private IEventBus bus;
+    private Event event;
+
+    @Setup
+    public void setup() {
+        BusBuilder builder = BusBuilder.builder();
+        if (compiled)
+            builder.compiledDispatch();
+        bus = builder.build();
+        BenchEvents.registerListeners(bus, ListenerKind.SUBSCRIBE, cancellable, listenerCount / 2);
+        BenchEvents.registerListeners(bus, ListenerKind.CONSUMER, cancellable, listenerCount - listenerCount / 2);
+        event = cancellable ? new CancellableEvent() : new PlainEvent();
+        bus.post(event);
+    }
+
+    @Benchmark
+    public Event post() {
+        return bus.post(event);
+    }
+}
@@ -0,0 +1,58 @@
+package com.r3944realms.bus.benchmark;
+
+import com.r3944realms.bus.api.*;
+import com.r3944realms.bus.benchmark.MappedBridgeBenchmark.PositionEvent;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 记录事件日志时发布者一侧的开销，写入在日志的后台线程中进行。{@code journaled}为false时不记录。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class EventJournalBenchmark {
+    @Param({"false", "true"})
+    public boolean journaled;
+
+    private IEventBus bus;
+    private Path directory;
+    private IEventJournal journal;
+    private final PositionEvent event = new PositionEvent(1, 2, 3);
+
+    @Setup
+    public void setup() throws IOException {
+        bus = BusBuilder.builder().build();
+        bus.addListener(PositionEvent.class, e -> {});
+        if (journaled) {
+            directory = Files.createTempDirectory("eventbus-journal");
+            journal = IEventJournal.record(bus, directory, true, 1 << 26, List.of(MappedBridgeBenchmark.CODEC));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (journaled) {
+            journal.close();
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList())
+                    Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public PositionEvent post() {
+        return bus.post(event);
+    }
+}
@@ -0,0 +1,65 @@
+package com.r3944realms.bus.benchmark;
+
+import com.r3944realms.bus.api.BusBuilder;
+import com.r3944realms.bus.api.IEventBus;
+import com.r3944realms.bus.benchmark.BenchEvents.CancellableEvent;
+import com.r3944realms.bus.benchmark.BenchEvents.PlainEvent;
+import jdk.jfr.Recording;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JFR录制对发布开销的影响。{@code OFF}为未录制的基准，{@code POST}只录制发布事件，{@code LISTENERS}同时录制每次监听器调用。
+ * <p>
+ * 录制的阈值为0，即每次发布都会提交事件，反映的是开销上限。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class FlightRecorderPostBenchmark {
+    @Param({"10"})
+    public int listenerCount;
+
+    @Param({"OFF", "POST", "LISTENERS"})
+    public String mode;
+
+    private IEventBus bus;
+    private Recording recording;
+    private final PlainEvent plainEvent = new PlainEvent();
+
+    @Setup
+    public void setup() {
+        bus = BusBuilder.builder().build();
+        BenchEvents.registerListeners(bus, BenchEvents.ListenerKind.SUBSCRIBE, false, listenerCount);
+        BenchEvents.registerListeners(bus, BenchEvents.ListenerKind.SUBSCRIBE, true, listenerCount);
+        if (!mode.equals("OFF")) {
+            recording = new Recording();
+            recording.enable("com.r3944realms.bus.Post").withThreshold(Duration.ZERO).withoutStackTrace();
+            if (mode.equals("LISTENERS"))
+                recording.enable("com.r3944realms.bus.ListenerInvocation").withThreshold(Duration.ZERO);
+            recording.start();
+        }
+        bus.post(plainEvent);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (recording != null)
+            recording.close();
+    }
+
+    @Benchmark
+    public PlainEvent postPlain() {
+        return bus.post(plainEvent);
+    }
+
+    @Benchmark
+    public CancellableEvent postCancellable() {
+        return bus.post(new CancellableEvent());
+    }
+}
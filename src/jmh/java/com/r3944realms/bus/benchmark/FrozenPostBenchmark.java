@@ -0,0 +1,52 @@
+package com.r3944realms.bus.benchmark;
+
+import com.r3944realms.bus.api.BusBuilder;
+import com.r3944realms.bus.api.IEventBus;
+import com.r3944realms.bus.benchmark.BenchEvents.CancellableEvent;
+import com.r3944realms.bus.benchmark.BenchEvents.PlainEvent;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 冻结总线与可变总线(普通分发与编译分发)的发布开销对比。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class FrozenPostBenchmark {
+    @Param({"1", "10"})
+    public int listenerCount;
+
+    @Param({"MUTABLE", "COMPILED", "FROZEN"})
+    public String mode;
+
+    private IEventBus bus;
+    private final PlainEvent plainEvent = new PlainEvent();
+
+    @Setup
+    public void setup() {
+        BusBuilder builder = BusBuilder.builder();
+        if (mode.equals("COMPILED"))
+            builder.compiledDispatch();
+        bus = builder.build();
+        BenchEvents.registerListeners(bus, BenchEvents.ListenerKind.CONSUMER, false, listenerCount);
+        BenchEvents.registerListeners(bus, BenchEvents.ListenerKind.CONSUMER, true, listenerCount);
+        if (mode.equals("FROZEN"))
+            bus = bus.freeze();
+        bus.post(plainEvent);
+    }
+
+    @Benchmark
+    public PlainEvent postPlain() {
+        return bus.post(plainEvent);
+    }
+
+    @Benchmark
+    public CancellableEvent postCancellable() {
+        return bus.post(new CancellableEvent());
+    }
+}
@@ -0,0 +1,55 @@
+package com.r3944realms.bus.benchmark;
+
+import com.r3944realms.bus.api.BusBuilder;
+import com.r3944realms.bus.api.Event;
+import com.r3944realms.bus.api.EventPriority;
+import com.r3944realms.bus.api.IEventBus;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 深层事件继承链上的分发开销：每一层都注册了监听器，发布最底层的事件
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class HierarchyPostBenchmark {
+    @Param({"1", "10"})
+    public int listenersPerLevel;
+
+    private IEventBus bus;
+    private Event deepEvent;
+    private Event shallowEvent;
+
+    @Setup
+    public void setup() {
+        bus = BusBuilder.builder().build();
+        EventPriority[] priorities = EventPriority.values();
+        for (Class<? extends Event> level : BenchEvents.DEPTH_CHAIN) {
+            for (int i = 0; i < listenersPerLevel; i++)
+                addListener(level, priorities[i % priorities.length]);
+        }
+        deepEvent = new BenchEvents.Depth7();
+        shallowEvent = new BenchEvents.Depth0();
+        bus.post(deepEvent);
+        bus.post(shallowEvent);
+    }
+
+    private <T extends Event> void addListener(Class<T> type, EventPriority priority) {
+        bus.addListener(priority, type, e -> {});
+    }
+
+    @Benchmark
+    public Event postDeep() {
+        return bus.post(deepEvent);
+    }
+
+    @Benchmark
+    public Event postShallow() {
+        return bus.post(shallowEvent);
+    }
+}
@@ -0,0 +1,53 @@
+package com.r3944realms.bus.benchmark;
+
+import com.r3944realms.bus.api.BusBuilder;
+import com.r3944realms.bus.api.IEventBus;
+import com.r3944realms.bus.benchmark.BenchEvents.CancellableEvent;
+import com.r3944realms.bus.benchmark.BenchEvents.PlainEvent;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分发统计与慢监听器监视对发布开销的影响。{@code NONE}为未启用任何计时的基准。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class InstrumentedPostBenchmark {
+    @Param({"10"})
+    public int listenerCount;
+
+    @Param({"NONE", "METRICS", "WATCHDOG", "BOTH"})
+    public String mode;
+
+    private IEventBus bus;
+    private final PlainEvent plainEvent = new PlainEvent();
+
+    @Setup
+    public void setup() {
+        BusBuilder builder = BusBuilder.builder();
+        if (mode.equals("METRICS") || mode.equals("BOTH"))
+            builder.enableMetrics();
+        if (mode.equals("WATCHDOG") || mode.equals("BOTH"))
+            builder.listenerBudget(TimeUnit.MILLISECONDS.toNanos(1))
+                    .setSlowListenerHandler((bus, event, listener, elapsed, budget) -> {});
+        bus = builder.build();
+        BenchEvents.registerListeners(bus, BenchEvents.ListenerKind.SUBSCRIBE, false, listenerCount);
+        BenchEvents.registerListeners(bus, BenchEvents.ListenerKind.SUBSCRIBE, true, listenerCount);
+        bus.post(plainEvent);
+    }
+
+    @Benchmark
+    public PlainEvent postPlain() {
+        return bus.post(plainEvent);
+    }
+
+    @Benchmark
+    public CancellableEvent postCancellable() {
+        return bus.post(new CancellableEvent());
+    }
+}
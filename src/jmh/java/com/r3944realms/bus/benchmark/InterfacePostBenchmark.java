@@ -0,0 +1,69 @@
+package com.r3944realms.bus.benchmark;
+
+import com.r3944realms.bus.api.BusBuilder;
+import com.r3944realms.bus.api.Event;
+import com.r3944realms.bus.api.IEventBus;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 订阅接口的监听器的分发开销：事件实现了三个标记接口，每个接口上注册了{@code listenersPerInterface}个监听器。
+ * <p>
+ * 与之对照的是此前的做法：为每个标记接口定义一个包装事件，发布原事件后再逐个发布包装事件。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class InterfacePostBenchmark {
+    public interface MarkerA {}
+    public interface MarkerB {}
+    public interface MarkerC extends MarkerA {}
+
+    public static class MarkedEvent extends Event implements MarkerB, MarkerC {}
+
+    public static class UnmarkedEvent extends Event {}
+    public static class MarkerAEvent extends Event {}
+    public static class MarkerBEvent extends Event {}
+    public static class MarkerCEvent extends Event {}
+
+    @Param({"1", "10"})
+    public int listenersPerInterface;
+
+    private IEventBus interfaceBus;
+    private IEventBus repostBus;
+
+    @Setup
+    public void setup() {
+        interfaceBus = BusBuilder.builder().build();
+        repostBus = BusBuilder.builder().build();
+        for (int i = 0; i < listenersPerInterface; i++) {
+            interfaceBus.addListener(MarkedEvent.class, e -> {});
+            interfaceBus.addInterfaceListener(MarkerA.class, e -> {});
+            interfaceBus.addInterfaceListener(MarkerB.class, e -> {});
+            interfaceBus.addInterfaceListener(MarkerC.class, e -> {});
+
+            repostBus.addListener(UnmarkedEvent.class, e -> {});
+            repostBus.addListener(MarkerAEvent.class, e -> {});
+            repostBus.addListener(MarkerBEvent.class, e -> {});
+            repostBus.addListener(MarkerCEvent.class, e -> {});
+        }
+        interfaceBus.post(new MarkedEvent());
+    }
+
+    @Benchmark
+    public Event postViaInterfaces() {
+        return interfaceBus.post(new MarkedEvent());
+    }
+
+    @Benchmark
+    public Event postPerMarker() {
+        repostBus.post(new MarkerAEvent());
+        repostBus.post(new MarkerBEvent());
+        repostBus.post(new MarkerCEvent());
+        return repostBus.post(new UnmarkedEvent());
+    }
+}
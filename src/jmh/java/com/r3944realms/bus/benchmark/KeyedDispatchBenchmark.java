@@ -0,0 +1,99 @@
+package com.r3944realms.bus.benchmark;
+
+import com.r3944realms.bus.api.BusBuilder;
+import com.r3944realms.bus.api.Event;
+import com.r3944realms.bus.api.EventPriority;
+import com.r3944realms.bus.api.IEventBus;
+import com.r3944realms.bus.api.IKeyedEvent;
+import com.r3944realms.bus.api.IRegistrationBatch;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每个键一个订阅者时，按键路由与订阅者在监听器内自行过滤的对比。
+ * <p>
+ * 过滤方式下每次发布都要调用全部{@code subscribers}个监听器，按键路由只调用该键的监听器。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class KeyedDispatchBenchmark {
+    public static class SessionEvent extends Event implements IKeyedEvent {
+        final Integer session;
+
+        public SessionEvent(Integer session) {
+            this.session = session;
+        }
+
+        @Override
+        public Object key() {
+            return session;
+        }
+    }
+
+    /**
+     * 与{@link SessionEvent}相同，但不带键，供过滤方式使用
+     */
+    public static class UnkeyedSessionEvent extends Event {
+        final Integer session;
+        boolean handled;
+
+        public UnkeyedSessionEvent(Integer session) {
+            this.session = session;
+        }
+    }
+
+    @Param({"1000", "100000"})
+    public int subscribers;
+
+    private IEventBus keyedBus;
+    private IEventBus filteringBus;
+    private SessionEvent[] keyedEvents;
+    private UnkeyedSessionEvent[] unkeyedEvents;
+
+    @Setup
+    public void setup() {
+        keyedBus = BusBuilder.builder().build();
+        filteringBus = BusBuilder.builder().build();
+        try (IRegistrationBatch batch = keyedBus.batchRegister()) {
+            for (int i = 0; i < subscribers; i++)
+                batch.addListener(EventPriority.NORMAL, false, SessionEvent.class, i, e -> {});
+            batch.commit();
+        }
+        try (IRegistrationBatch batch = filteringBus.batchRegister()) {
+            for (int i = 0; i < subscribers; i++) {
+                Integer session = i;
+                batch.addListener(UnkeyedSessionEvent.class, e -> {
+                    if (e.session.equals(session))
+                        e.handled = true;
+                });
+            }
+            batch.commit();
+        }
+        //预先生成事件，使每次发布的键不同，避免只测到同一个键的缓存
+        keyedEvents = new SessionEvent[1024];
+        unkeyedEvents = new UnkeyedSessionEvent[1024];
+        for (int i = 0; i < keyedEvents.length; i++) {
+            int session = ThreadLocalRandom.current().nextInt(subscribers);
+            keyedEvents[i] = new SessionEvent(session);
+            unkeyedEvents[i] = new UnkeyedSessionEvent(session);
+        }
+    }
+
+    private int next;
+
+    @Benchmark
+    public SessionEvent keyedRouting() {
+        return keyedBus.post(keyedEvents[next++ & 1023]);
+    }
+
+    @Benchmark
+    public UnkeyedSessionEvent filterInListener() {
+        return filteringBus.post(unkeyedEvents[next++ & 1023]);
+    }
+}
@@ -0,0 +1,94 @@
+package com.r3944realms.bus.benchmark;
+
+import com.r3944realms.bus.api.BusBuilder;
+import com.r3944realms.bus.api.EventPriority;
+import com.r3944realms.bus.api.IEventBus;
+import com.r3944realms.bus.benchmark.BenchEvents.PlainEvent;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 并发压力测试：发布线程在注册线程不断注册/取消注册监听器的同时发布事件。
+ * <p>
+ * 以{@link Mode#SampleTime}模式运行，结果中的p99即为注册抖动期间的发布延迟。
+ * 每轮迭代结束时发布一个探测事件，核对实际被调用的监听器数量与预期注册数量，若有注册丢失则使基准测试失败。
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Group)
+public class ListenerChurnBenchmark {
+    private static final int BASE_LISTENERS = 100;
+    private static final int LISTENERS_PER_CHURN_THREAD = 16;
+
+    private IEventBus bus;
+    private final PlainEvent event = new PlainEvent();
+    private final PlainEvent probe = new PlainEvent();
+    private final LongAdder probeHits = new LongAdder();
+    private final AtomicLong expectedListeners = new AtomicLong();
+
+    @State(Scope.Thread)
+    public static class ChurnState {
+        final ArrayDeque<Consumer<PlainEvent>> owned = new ArrayDeque<>();
+
+        /**
+         * 每轮迭代都会创建新的总线，上一轮注册的监听器不属于它
+         */
+        @Setup(Level.Iteration)
+        public void reset() {
+            owned.clear();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        bus = BusBuilder.builder().build();
+        expectedListeners.set(0);
+        for (int i = 0; i < BASE_LISTENERS; i++)
+            addCountingListener(EventPriority.values()[i % EventPriority.values().length]);
+        bus.post(event);
+    }
+
+    private Consumer<PlainEvent> addCountingListener(EventPriority priority) {
+        Consumer<PlainEvent> consumer = e -> {
+            if (e == probe)
+                probeHits.increment();
+        };
+        bus.addListener(priority, PlainEvent.class, consumer);
+        expectedListeners.incrementAndGet();
+        return consumer;
+    }
+
+    @TearDown(Level.Iteration)
+    public void verify() {
+        probeHits.reset();
+        bus.post(probe);
+        if (probeHits.sum() != expectedListeners.get())
+            throw new IllegalStateException("监听器数量不一致：预期 " + expectedListeners.get() + "，实际 " + probeHits.sum());
+    }
+
+    @Benchmark
+    @Group("churn")
+    @GroupThreads(3)
+    public PlainEvent post() {
+        return bus.post(event);
+    }
+
+    @Benchmark
+    @Group("churn")
+    @GroupThreads(1)
+    public void registerAndUnregister(ChurnState state) {
+        state.owned.addLast(addCountingListener(EventPriority.NORMAL));
+        if (state.owned.size() > LISTENERS_PER_CHURN_THREAD) {
+            bus.unregister(state.owned.removeFirst());
+            expectedListeners.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.r3944realms.bus.benchmark;
+
+import com.r3944realms.bus.api.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 经共享文件转发事件时发布者一侧的开销。接收方在同一进程中的另一条总线上消费，{@code bridged}为false时不转发。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class MappedBridgeBenchmark {
+    public static class PositionEvent extends Event {
+        private final long entity;
+        private final double x;
+        private final double y;
+
+        public PositionEvent(long entity, double x, double y) {
+            this.entity = entity;
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    public static final IEventCodec<PositionEvent> CODEC = new IEventCodec<>() {
+        @Override
+        public Class<PositionEvent> eventType() {
+            return PositionEvent.class;
+        }
+
+        @Override
+        public void encode(PositionEvent event, ByteBuffer buffer) {
+            buffer.putLong(event.entity).putDouble(event.x).putDouble(event.y);
+        }
+
+        @Override
+        public PositionEvent decode(ByteBuffer buffer) {
+            return new PositionEvent(buffer.getLong(), buffer.getDouble(), buffer.getDouble());
+        }
+    };
+
+    @Param({"false", "true"})
+    public boolean bridged;
+
+    private IEventBus bus;
+    private Path file;
+    private IEventBridge outbound;
+    private IEventBridge inbound;
+    private final PositionEvent event = new PositionEvent(1, 2, 3);
+
+    @Setup
+    public void setup() throws IOException {
+        bus = BusBuilder.builder().build();
+        bus.addListener(PositionEvent.class, e -> {});
+        if (bridged) {
+            file = Files.createTempFile("eventbus-bridge", ".ring");
+            outbound = IEventBridge.outbound(bus, file, 1 << 20, List.of(CODEC));
+            IEventBus remote = BusBuilder.builder().build();
+            remote.addListener(PositionEvent.class, e -> {});
+            inbound = IEventBridge.inbound(remote, file, List.of(CODEC));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (bridged) {
+            outbound.close();
+            inbound.close();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Benchmark
+    public PositionEvent post() {
+        return bus.post(event);
+    }
+}
@@ -0,0 +1,69 @@
+package com.r3944realms.bus.benchmark;
+
+import com.r3944realms.bus.api.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 同步{@link IEventBus#post(Event)}与分区分发模式在多个生产者线程下的吞吐量对比。
+ * <p>
+ * 事件的分区键在{@code KEY_COUNT}个实体中随机选择，每个监听器消耗固定的CPU。{@code lanes}为0时同步分发。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@Threads(4)
+@State(Scope.Benchmark)
+public class PartitionedPostBenchmark {
+    private static final int LISTENER_COUNT = 4;
+    private static final long LISTENER_WORK = 50;
+    private static final int KEY_COUNT = 1024;
+
+    public static class EntityEvent extends Event implements IPartitionedEvent {
+        private final int entity;
+
+        public EntityEvent(int entity) {
+            this.entity = entity;
+        }
+
+        @Override
+        public Object partitionKey() {
+            return entity;
+        }
+    }
+
+    @Param({"0", "1", "4"})
+    public int lanes;
+
+    private IEventBus bus;
+
+    @Setup
+    public void setup() {
+        BusBuilder builder = BusBuilder.builder();
+        if (lanes > 0)
+            builder.partitioned(lanes, 4096);
+        bus = builder.build();
+        for (int i = 0; i < LISTENER_COUNT; i++)
+            bus.addListener(EntityEvent.class, e -> Blackhole.consumeCPU(LISTENER_WORK));
+    }
+
+    @TearDown(Level.Iteration)
+    public void drain() {
+        bus.drain();
+    }
+
+    @TearDown
+    public void close() {
+        bus.close();
+    }
+
+    @Benchmark
+    public EntityEvent post() {
+        return bus.post(new EntityEvent(ThreadLocalRandom.current().nextInt(KEY_COUNT)));
+    }
+}
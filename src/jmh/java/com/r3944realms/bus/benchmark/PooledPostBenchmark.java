@@ -0,0 +1,76 @@
+package com.r3944realms.bus.benchmark;
+
+import com.r3944realms.bus.api.BusBuilder;
+import com.r3944realms.bus.api.Event;
+import com.r3944realms.bus.api.IEventBus;
+import com.r3944realms.bus.api.IEventPool;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每次发布分配新事件与从{@link IEventPool}获取事件的对比。
+ * <p>
+ * 分配速率需要配合GC分析器查看：{@code -PjmhIncludes=PooledPostBenchmark}并在JMH参数中加入{@code -prof gc}。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class PooledPostBenchmark {
+    /**
+     * 带有若干字段的事件，使分配开销接近真实事件
+     */
+    public static class PayloadEvent extends Event {
+        long timestamp;
+        int x, y, z;
+        Object source;
+
+        @Override
+        public void reset() {
+            super.reset();
+            timestamp = 0;
+            x = y = z = 0;
+            source = null;
+        }
+    }
+
+    @Param({"1", "10"})
+    public int listenerCount;
+
+    private IEventBus bus;
+    private IEventPool<PayloadEvent> pool;
+
+    @Setup
+    public void setup() {
+        bus = BusBuilder.builder().build();
+        for (int i = 0; i < listenerCount; i++)
+            bus.addListener(PayloadEvent.class, e -> {});
+        pool = bus.pool(PayloadEvent.class, PayloadEvent::new);
+    }
+
+    @Benchmark
+    public PayloadEvent allocateAndPost() {
+        PayloadEvent event = new PayloadEvent();
+        fill(event);
+        return bus.post(event);
+    }
+
+    @Benchmark
+    public IEventPool<PayloadEvent> pooledPost() {
+        PayloadEvent event = pool.acquire();
+        fill(event);
+        pool.post(event);
+        return pool;
+    }
+
+    private void fill(PayloadEvent event) {
+        event.timestamp = System.nanoTime();
+        event.x = 1;
+        event.y = 2;
+        event.z = 3;
+        event.source = this;
+    }
+}
@@ -0,0 +1,56 @@
+package com.r3944realms.bus.benchmark;
+
+import com.r3944realms.bus.api.BusBuilder;
+import com.r3944realms.bus.api.Event;
+import com.r3944realms.bus.api.EventPriority;
+import com.r3944realms.bus.api.IEventBus;
+import com.r3944realms.bus.benchmark.BenchEvents.CancellableEvent;
+import com.r3944realms.bus.benchmark.BenchEvents.ListenerKind;
+import com.r3944realms.bus.benchmark.BenchEvents.PlainEvent;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link IEventBus#post(Event)} 与 {@link IEventBus#post(EventPriority, Event)} 的分发开销
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class PostBenchmark {
+    @Param({"1", "10", "100", "1000"})
+    public int listenerCount;
+
+    @Param({"false", "true"})
+    public boolean cancellable;
+
+    @Param({"SUBSCRIBE", "CONSUMER"})
+    public ListenerKind listenerKind;
+
+    private IEventBus bus;
+    private Event event;
+
+    @Setup
+    public void setup() {
+        bus = BusBuilder.builder().allowPerPhasePost().build();
+        BenchEvents.registerListeners(bus, listenerKind, cancellable, listenerCount);
+        event = cancellable ? new CancellableEvent() : new PlainEvent();
+        // 首次发布触发监听器数组构建，避免将其计入测量
+        bus.post(event);
+    }
+
+    @Benchmark
+    public Event post() {
+        return bus.post(event);
+    }
+
+    @Benchmark
+    public Event postPerPhase() {
+        for (EventPriority phase : EventPriority.values())
+            bus.post(phase, event);
+        return event;
+    }
+}
@@ -0,0 +1,112 @@
+package com.r3944realms.bus.benchmark;
+
+import com.r3944realms.bus.api.BusBuilder;
+import com.r3944realms.bus.api.EventPriority;
+import com.r3944realms.bus.api.IEventBus;
+import com.r3944realms.bus.api.IRegistrationBatch;
+import com.r3944realms.bus.benchmark.BenchEvents.MultiSubscriber;
+import com.r3944realms.bus.benchmark.BenchEvents.PlainEvent;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 注册、取消注册以及随后首次发布时监听器数组重建（{@code ListenerList.buildCache()}）的开销。
+ * <p>
+ * 总线上预先注册了{@code existingListeners}个监听器，以体现已有监听器数量对重建的影响。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class RegistrationBenchmark {
+    @Param({"0", "100", "1000"})
+    public int existingListeners;
+
+    private IEventBus bus;
+    private final PlainEvent event = new PlainEvent();
+    private final Consumer<PlainEvent> consumer = e -> {};
+
+    @Setup
+    public void setup() {
+        bus = BusBuilder.builder().build();
+        BenchEvents.registerListeners(bus, BenchEvents.ListenerKind.CONSUMER, false, existingListeners);
+        BenchEvents.registerListeners(bus, BenchEvents.ListenerKind.CONSUMER, true, existingListeners);
+        bus.post(event);
+    }
+
+    /**
+     * 扫描并注册一个带有多个{@link com.r3944realms.bus.api.SubscribeEvent}方法的对象，随后取消注册
+     */
+    @Benchmark
+    public IEventBus registerUnregisterObject() {
+        MultiSubscriber target = new MultiSubscriber();
+        bus.register(target);
+        bus.unregister(target);
+        return bus;
+    }
+
+    @Benchmark
+    public IEventBus addListenerUnregister() {
+        bus.addListener(EventPriority.NORMAL, PlainEvent.class, consumer);
+        bus.unregister(consumer);
+        return bus;
+    }
+
+    /**
+     * 注册后立即发布，再取消注册后发布：两次发布各自承担一次监听器数组重建
+     */
+    @Benchmark
+    public PlainEvent rebuildOnPost() {
+        bus.addListener(EventPriority.NORMAL, PlainEvent.class, consumer);
+        bus.post(event);
+        bus.unregister(consumer);
+        return bus.post(event);
+    }
+
+    /**
+     * 逐个注册与取消注册{@code BATCH_SIZE}个对象，每次都会重建监听器列表
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public IEventBus registerIndividually() {
+        MultiSubscriber[] targets = newTargets();
+        for (MultiSubscriber target : targets)
+            bus.register(target);
+        for (MultiSubscriber target : targets)
+            bus.unregister(target);
+        return bus;
+    }
+
+    /**
+     * 在注册事务中注册与取消注册{@code BATCH_SIZE}个对象，每次提交每个列表只重建一次
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public IEventBus registerInBatch() {
+        MultiSubscriber[] targets = newTargets();
+        try (IRegistrationBatch batch = bus.batchRegister()) {
+            for (MultiSubscriber target : targets)
+                batch.register(target);
+            batch.commit();
+        }
+        try (IRegistrationBatch batch = bus.batchRegister()) {
+            for (MultiSubscriber target : targets)
+                batch.unregister(target);
+            batch.commit();
+        }
+        return bus;
+    }
+
+    private static final int BATCH_SIZE = 100;
+
+    private static MultiSubscriber[] newTargets() {
+        MultiSubscriber[] targets = new MultiSubscriber[BATCH_SIZE];
+        for (int i = 0; i < BATCH_SIZE; i++)
+            targets[i] = new MultiSubscriber();
+        return targets;
+    }
+}
@@ -0,0 +1,92 @@
+package com.r3944realms.bus.benchmark;
+
+import com.r3944realms.bus.api.*;
+import com.r3944realms.bus.benchmark.BenchEvents.PlainEvent;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 同步{@link IEventBus#post(Event)}与环形缓冲区发布模式的对比。
+ * <p>
+ * 每个监听器消耗固定的CPU，以体现同步模式下生产者承担全部监听器开销。吞吐量在多个生产者线程下测量，
+ * 缓冲区满后生产者受限于消费线程，因此吞吐量同时反映了消费速度；延迟为生产者一侧单次发布的耗时分布。
+ * {@code mode}为{@code SYNC}或等待策略名。
+ */
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class RingBufferBenchmark {
+    private static final int LISTENER_COUNT = 4;
+    private static final long LISTENER_WORK = 50;
+
+    public abstract static class BusState {
+        IEventBus bus;
+
+        void setup(String mode, ProducerType producerType) {
+            BusBuilder builder = BusBuilder.builder();
+            if (!mode.equals("SYNC"))
+                builder.ringBuffer(1 << 14, producerType, WaitStrategy.valueOf(mode));
+            bus = builder.build();
+            for (int i = 0; i < LISTENER_COUNT; i++)
+                bus.addListener(PlainEvent.class, e -> Blackhole.consumeCPU(LISTENER_WORK));
+        }
+
+        @TearDown(Level.Iteration)
+        public void drain() {
+            bus.drain();
+        }
+
+        @TearDown
+        public void close() {
+            bus.close();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class MultiProducer extends BusState {
+        @Param({"SYNC", "BUSY_SPIN", "YIELD", "PARK"})
+        public String multiProducerMode;
+
+        @Setup
+        public void setup() {
+            setup(multiProducerMode, ProducerType.MULTI);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class SingleProducer extends BusState {
+        @Param({"SYNC", "BUSY_SPIN", "YIELD", "PARK"})
+        public String singleProducerMode;
+
+        @Setup
+        public void setup() {
+            setup(singleProducerMode, ProducerType.SINGLE);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Threads(4)
+    public PlainEvent multiProducerThroughput(MultiProducer state) {
+        return state.bus.post(new PlainEvent());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Threads(1)
+    public PlainEvent singleProducerThroughput(SingleProducer state) {
+        return state.bus.post(new PlainEvent());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Threads(4)
+    public PlainEvent multiProducerLatency(MultiProducer state) {
+        return state.bus.post(new PlainEvent());
+    }
+}
@@ -1,22 +1,65 @@
 package com.r3944realms.bus;
 
 import com.r3944realms.bus.api.BusBuilder;
+import com.r3944realms.bus.api.Event;
 import com.r3944realms.bus.api.IEventBus;
 import com.r3944realms.bus.api.IEventCLassChecker;
 import com.r3944realms.bus.api.IEventExceptionHandler;
+import com.r3944realms.bus.api.ISlowListenerHandler;
+import com.r3944realms.bus.api.ProducerType;
+import com.r3944realms.bus.api.WaitStrategy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
 
 public final class BusBuilderImpl implements BusBuilder {
     IEventExceptionHandler exceptionHandler;
+    long exceptionReportWindow = 0;
     boolean startShutdown = false;
     boolean checkTypesOnDispatch = false;
-    IEventCLassChecker classChecker;
+    IEventCLassChecker classChecker = eventClass -> {};
     boolean allowPerPhasePost = false;
+    Executor asyncExecutor;
+    boolean enableMetrics = false;
+    String metricsJmxName;
+    boolean compiledDispatch = false;
+    boolean debugEventPools = false;
+    int ringBufferCapacity = 0;
+    ProducerType producerType = ProducerType.MULTI;
+    WaitStrategy waitStrategy = WaitStrategy.PARK;
+    int lanes = 0;
+    int laneCapacity = 0;
+    boolean watchListeners = false;
+    ISlowListenerHandler slowListenerHandler;
+    long defaultListenerBudget = 0;
+    final Map<Class<? extends Event>, Long> listenerBudgets = new HashMap<>();
+    final List<EventCoalescer.Spec<?>> coalescing = new ArrayList<>();
 
     public BusBuilder setExceptionHandler(IEventExceptionHandler handler) {
         this.exceptionHandler = handler;
         return this;
     }
 
+    @Override
+    public BusBuilder rateLimitExceptions(long windowNanos) {
+        if (windowNanos <= 0)
+            throw new IllegalArgumentException("异常汇总的时间窗口必须为正数：" + windowNanos);
+        this.exceptionReportWindow = windowNanos;
+        return this;
+    }
+
+    @Override
+    public BusBuilder setSlowListenerHandler(ISlowListenerHandler handler) {
+        this.slowListenerHandler = handler;
+        this.watchListeners = true;
+        return this;
+    }
+
     @Override
     public BusBuilder startShutdown() {
         this.startShutdown = true;
@@ -41,6 +84,85 @@ public final class BusBuilderImpl implements BusBuilder {
         return this;
     }
 
+    @Override
+    public BusBuilder asyncExecutor(Executor executor) {
+        this.asyncExecutor = executor;
+        return this;
+    }
+
+    @Override
+    public BusBuilder enableMetrics() {
+        this.enableMetrics = true;
+        return this;
+    }
+
+    @Override
+    public BusBuilder exposeMetricsToJmx(String name) {
+        this.enableMetrics = true;
+        this.metricsJmxName = name;
+        return this;
+    }
+
+    @Override
+    public BusBuilder compiledDispatch() {
+        this.compiledDispatch = true;
+        return this;
+    }
+
+    @Override
+    public BusBuilder debugEventPools() {
+        this.debugEventPools = true;
+        return this;
+    }
+
+    @Override
+    public BusBuilder ringBuffer(int capacity, ProducerType producerType, WaitStrategy waitStrategy) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException("环形缓冲区的容量必须是2的幂：" + capacity);
+        this.ringBufferCapacity = capacity;
+        this.producerType = producerType;
+        this.waitStrategy = waitStrategy;
+        return this;
+    }
+
+    @Override
+    public BusBuilder partitioned(int lanes, int laneCapacity) {
+        if (lanes <= 0 || laneCapacity <= 0)
+            throw new IllegalArgumentException("分区数量与分区队列容量必须为正数：" + lanes + ", " + laneCapacity);
+        this.lanes = lanes;
+        this.laneCapacity = laneCapacity;
+        return this;
+    }
+
+    @Override
+    public BusBuilder listenerBudget(long budgetNanos) {
+        if (budgetNanos < 0)
+            throw new IllegalArgumentException("监听器的时间预算不能为负数：" + budgetNanos);
+        this.defaultListenerBudget = budgetNanos;
+        this.watchListeners = true;
+        return this;
+    }
+
+    @Override
+    public BusBuilder listenerBudget(Class<? extends Event> eventType, long budgetNanos) {
+        if (budgetNanos < 0)
+            throw new IllegalArgumentException("监听器的时间预算不能为负数：" + budgetNanos);
+        this.listenerBudgets.put(eventType, budgetNanos);
+        this.watchListeners = true;
+        return this;
+    }
+
+    @Override
+    public <T extends Event> BusBuilder coalesce(Class<T> eventType, Function<? super T, ?> keyFunction, BinaryOperator<T> merge, long windowNanos) {
+        if (windowNanos < 0)
+            throw new IllegalArgumentException("合并窗口不能为负数：" + windowNanos);
+        for (EventCoalescer.Spec<?> spec : coalescing)
+            if (spec.eventType() == eventType)
+                throw new IllegalArgumentException(eventType + "已经配置了合并");
+        this.coalescing.add(new EventCoalescer.Spec<>(eventType, keyFunction, merge, windowNanos));
+        return this;
+    }
+
     @Override
     public IEventBus build() {
         return new EventBus(this);
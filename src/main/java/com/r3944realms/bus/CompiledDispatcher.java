@@ -0,0 +1,182 @@
+package com.r3944realms.bus;
+
+import com.r3944realms.bus.api.Event;
+import com.r3944realms.bus.api.EventListener;
+import com.r3944realms.bus.api.ICancellableEvent;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.*;
+
+import java.lang.constant.ConstantDescs;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+
+import static com.r3944realms.bus.LogMakers.EVENTBUS;
+
+/**
+ * 为某一事件类型的监听器快照生成的分发器。
+ * <p>
+ * 生成的隐藏类把所有监听器的调用展开为直线字节码：每个监听器都以类数据常量的形式加载，
+ * 因此每个调用点的接收者都是常量，JIT可以去虚化并内联，而不必经过{@link EventBus}中数组循环的超多态调用点。
+ * 对于可取消事件，带检查的包装监听器会被替换为其内部监听器，取消检查直接内联在调用前。
+ */
+abstract class CompiledDispatcher implements Opcodes {
+    private static final Logger LOGGER = LogManager.getLogger();
+    /**
+     * 超过此数量的监听器不再生成分发器，退回到数组循环，以避免生成的方法过大而无法被JIT编译
+     */
+    static final int MAX_LISTENERS = 64;
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final String DISPATCHER_DESC = Type.getInternalName(CompiledDispatcher.class);
+    private static final String LISTENER_DESC = Type.getInternalName(EventListener.class);
+    private static final String EVENT_DESC = Type.getInternalName(Event.class);
+    private static final String CANCELLABLE_DESC = Type.getInternalName(ICancellableEvent.class);
+    private static final String CONSTRUCTOR_DESC = Type.getMethodDescriptor(
+            Type.VOID_TYPE, Type.getType(EventBus.class), Type.getType(EventListener[].class), Type.getType(EventListener[].class)
+    );
+    private static final String DISPATCH_DESC = Type.getMethodDescriptor(Type.VOID_TYPE, Type.getType(Event.class));
+    private static final String FAIL_DESC = Type.getMethodDescriptor(
+            Type.getType(Throwable.class), Type.getType(Event.class), Type.INT_TYPE, Type.getType(Throwable.class)
+    );
+    private static final Handle CLASS_DATA_AT = new Handle(H_INVOKESTATIC, Type.getInternalName(MethodHandles.class), "classDataAt",
+            MethodType.methodType(
+                    Object.class,
+                    MethodHandles.Lookup.class,
+                    String.class,
+                    Class.class,
+                    int.class
+            ).descriptorString(), false);
+    private static final MethodType CONSTRUCTOR = MethodType.methodType(void.class, EventBus.class, EventListener[].class, EventListener[].class);
+
+    private final EventBus bus;
+    /**
+     * 生成此分发器所依据的快照数组，用于判断快照是否已变化
+     */
+    final EventListener[] source;
+    /**
+     * 实际被调用的监听器，报告异常时使用
+     */
+    private final EventListener[] invoked;
+
+    protected CompiledDispatcher(EventBus bus, EventListener[] source, EventListener[] invoked) {
+        this.bus = bus;
+        this.source = source;
+        this.invoked = invoked;
+    }
+
+    abstract void dispatch(Event event);
+
+    /**
+     * 由生成的代码在监听器抛出异常时调用
+     * @return 传入的异常，由生成的代码重新抛出
+     */
+    protected final Throwable fail(Event event, int index, Throwable throwable) {
+        bus.handleListenerException(event, invoked, index, throwable);
+        return throwable;
+    }
+
+    /**
+     * 为监听器快照生成分发器
+     * @param listeners {@link ListenerList#getListeners()}返回的快照
+     * @param cancellable 事件是否可取消
+     * @return 生成的分发器，监听器数量超过{@link #MAX_LISTENERS}或无法生成时返回null
+     */
+    @Nullable
+    static CompiledDispatcher compile(EventBus bus, EventListener[] listeners, boolean cancellable) {
+        if (listeners.length > MAX_LISTENERS)
+            return null;
+        EventListener[] invoked = new EventListener[listeners.length];
+        boolean[] checkCanceled = new boolean[listeners.length];
+        for (int i = 0; i < listeners.length; i++) {
+            if (cancellable && listeners[i] instanceof IWrapperListener wrapper) {
+                invoked[i] = wrapper.getWithoutCheck();
+                checkCanceled[i] = !wrapper.receivesCanceled();
+            } else {
+                invoked[i] = listeners[i];
+            }
+        }
+        try {
+            byte[] classBytes = makeClass(CompiledDispatcher.class.getName() + "$Generated", checkCanceled);
+            var classLookup = LOOKUP.defineHiddenClassWithClassData(classBytes, List.of(invoked), true);
+            var constructor = classLookup.findConstructor(classLookup.lookupClass(), CONSTRUCTOR);
+            return (CompiledDispatcher) constructor.invoke(bus, listeners, invoked);
+        } catch (Throwable e) {
+            if (e instanceof VirtualMachineError error)
+                throw error;
+            LOGGER.error(EVENTBUS, "无法为{}个监听器生成分发器，退回到逐个调用监听器", listeners.length, e);
+            return null;
+        }
+    }
+
+    private static byte[] makeClass(String name, boolean[] checkCanceled) {
+        ClassWriter cv = new ClassWriter(ClassWriter.COMPUTE_FRAMES) {
+            @Override
+            protected String getCommonSuperClass(String type1, String type2) {
+                return "java/lang/Object";
+            }
+        };
+
+        String desc = name.replace('.', '/');
+        cv.visit(V16, ACC_PUBLIC | ACC_FINAL, desc, null, DISPATCHER_DESC, null);
+        cv.visitSource(".dynamic", null);
+        {
+            MethodVisitor mv = cv.visitMethod(ACC_PUBLIC, "<init>", CONSTRUCTOR_DESC, null, null);
+            mv.visitCode();
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitVarInsn(ALOAD, 1);
+            mv.visitVarInsn(ALOAD, 2);
+            mv.visitVarInsn(ALOAD, 3);
+            mv.visitMethodInsn(INVOKESPECIAL, DISPATCHER_DESC, "<init>", CONSTRUCTOR_DESC, false);
+            mv.visitInsn(RETURN);
+            mv.visitMaxs(4, 4);
+            mv.visitEnd();
+        }
+        {
+            MethodVisitor mv = cv.visitMethod(0, "dispatch", DISPATCH_DESC, null, null);
+            mv.visitCode();
+            Label start = new Label();
+            Label end = new Label();
+            Label handler = new Label();
+            //没有监听器时try块为空，而空的异常表范围是非法的
+            if (checkCanceled.length > 0)
+                mv.visitTryCatchBlock(start, end, handler, "java/lang/Throwable");
+            // 局部变量2保存当前监听器的索引，供异常报告使用
+            mv.visitInsn(ICONST_0);
+            mv.visitVarInsn(ISTORE, 2);
+            mv.visitLabel(start);
+            for (int i = 0; i < checkCanceled.length; i++) {
+                Label skip = new Label();
+                if (checkCanceled[i]) {
+                    mv.visitVarInsn(ALOAD, 1);
+                    mv.visitTypeInsn(CHECKCAST, CANCELLABLE_DESC);
+                    mv.visitMethodInsn(INVOKEINTERFACE, CANCELLABLE_DESC, "isCanceled", "()Z", true);
+                    mv.visitJumpInsn(IFNE, skip);
+                }
+                mv.visitLdcInsn(i);
+                mv.visitVarInsn(ISTORE, 2);
+                mv.visitLdcInsn(new ConstantDynamic(ConstantDescs.DEFAULT_NAME, "L" + LISTENER_DESC + ";", CLASS_DATA_AT, i));
+                mv.visitVarInsn(ALOAD, 1);
+                mv.visitMethodInsn(INVOKEVIRTUAL, LISTENER_DESC, "invoke", "(L" + EVENT_DESC + ";)V", false);
+                mv.visitLabel(skip);
+            }
+            mv.visitLabel(end);
+            mv.visitInsn(RETURN);
+            mv.visitLabel(handler);
+            mv.visitVarInsn(ASTORE, 3);
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitVarInsn(ALOAD, 1);
+            mv.visitVarInsn(ILOAD, 2);
+            mv.visitVarInsn(ALOAD, 3);
+            mv.visitMethodInsn(INVOKEVIRTUAL, DISPATCHER_DESC, "fail", FAIL_DESC, false);
+            mv.visitInsn(ATHROW);
+            mv.visitMaxs(4, 4);
+            mv.visitEnd();
+        }
+        cv.visitEnd();
+
+        return cv.toByteArray();
+    }
+}
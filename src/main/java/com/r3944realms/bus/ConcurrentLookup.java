@@ -0,0 +1,38 @@
+package com.r3944realms.bus;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 读多写少的并发查找表。
+ * <p>
+ * 读取直接访问{@link ConcurrentHashMap}，不加锁也不复制；
+ * 未命中时值的创建在映射表的锁之外进行(允许递归查找其他键)，只有最终写入由映射表原子地完成。
+ */
+public class ConcurrentLookup<K, V> {
+    private final ConcurrentHashMap<K, V> backingMap = new ConcurrentHashMap<>(32); // 合理的初始尺寸
+
+    public V get(K key) {
+        return backingMap.get(key);
+    }
+
+    public boolean containsKey(K key) {
+        return backingMap.containsKey(key);
+    }
+
+    public V computeIfAbsent(K key, Function<K, V> factory) {
+        return computeIfAbsent(key, factory, Function.identity());
+    }
+
+    /**
+     * @param factory 在映射表的锁之外调用，竞争时可能被多个线程调用，结果可能被丢弃，因此不应有副作用
+     * @param finalizer 在映射表的锁之内调用，对于同一个键只会成功调用一次
+     */
+    public <I> V computeIfAbsent(K key, Function<K, I> factory, Function<I, V> finalizer) {
+        var ret = backingMap.get(key);
+        if (ret != null)
+            return ret;
+        var intermediate = factory.apply(key);
+        return backingMap.computeIfAbsent(key, k -> finalizer.apply(intermediate));
+    }
+}
@@ -0,0 +1,45 @@
+package com.r3944realms.bus;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.r3944realms.bus.LogMakers.EVENTBUS;
+
+/**
+ * {@link com.r3944realms.bus.api.IEventBus#postAsync}未指定执行器时使用的默认执行器。
+ * <p>
+ * 运行时支持虚拟线程(Java 21+)时为每个事件创建一个虚拟线程，否则退回到{@link ForkJoinPool#commonPool()}。
+ * Java 19、20未启用预览特性时虚拟线程的方法存在但不可用，同样退回。首次使用时才会创建。
+ */
+final class DefaultAsyncExecutor {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final Executor INSTANCE = create();
+
+    private DefaultAsyncExecutor() {}
+
+    static Executor get() {
+        return INSTANCE;
+    }
+
+    private static Executor create() {
+        try {
+            var factory = MethodHandles.publicLookup().findStatic(
+                    Executors.class, "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class)
+            );
+            return (Executor) factory.invoke();
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return ForkJoinPool.commonPool();
+        } catch (Throwable e) {
+            //在静态初始化中抛出会使之后的每次异步发布都失败
+            LOGGER.debug(EVENTBUS, "无法创建虚拟线程执行器，异步发布改用公共线程池", e);
+            return ForkJoinPool.commonPool();
+        }
+    }
+}
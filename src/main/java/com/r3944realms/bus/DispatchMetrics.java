@@ -0,0 +1,181 @@
+package com.r3944realms.bus;
+
+import com.r3944realms.bus.api.Event;
+import com.r3944realms.bus.api.EventListener;
+import com.r3944realms.bus.api.IEventBusMetrics;
+import com.r3944realms.bus.api.ListenerStats;
+import org.jetbrains.annotations.Nullable;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 记录每个监听器的调用次数、累计耗时、耗时直方图以及每个事件类型的发布次数。
+ * <p>
+ * 监听器的计数器在注册时创建、取消注册时移除，因此统计不会让已取消注册的监听器(以及其所属的对象)保持可达；
+ * 记录时只查找，取消注册时仍在进行的发布不会重新创建计数器。事件类型的计数器在首次发布时创建。
+ * 之后的记录只做映射表查找与原子累加，不产生分配。
+ */
+final class DispatchMetrics implements IEventBusMetrics, EventBusMetricsMXBean {
+    private final ConcurrentHashMap<EventListener, Recorder> recorders = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Class<? extends Event>, LongAdder> postCounts = new ConcurrentHashMap<>();
+    /**
+     * 已注册到平台MBean服务器的名称，未注册时为null
+     */
+    @Nullable
+    private ObjectName mbeanName;
+
+    private static final class Recorder {
+        private final EventListener listener;
+        private final LongAdder invocations = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLongArray histogram = new AtomicLongArray(ListenerStats.BUCKETS);
+
+        private Recorder(EventListener listener) {
+            this.listener = listener;
+        }
+
+        private void reset() {
+            invocations.reset();
+            totalNanos.reset();
+            for (int i = 0; i < histogram.length(); i++)
+                histogram.set(i, 0);
+        }
+
+        private void record(long nanos) {
+            invocations.increment();
+            totalNanos.add(nanos);
+            histogram.incrementAndGet(bucket(nanos));
+        }
+
+        private ListenerStats snapshot() {
+            long[] buckets = new long[ListenerStats.BUCKETS];
+            for (int i = 0; i < buckets.length; i++)
+                buckets[i] = histogram.get(i);
+            return new ListenerStats(listener, invocations.sum(), totalNanos.sum(), buckets);
+        }
+    }
+
+    static int bucket(long nanos) {
+        return Math.min(64 - Long.numberOfLeadingZeros(Math.max(nanos, 0)), ListenerStats.BUCKETS - 1);
+    }
+
+    void recordPost(Class<? extends Event> eventType) {
+        LongAdder counter = postCounts.get(eventType);
+        if (counter == null)
+            counter = postCounts.computeIfAbsent(eventType, k -> new LongAdder());
+        counter.increment();
+    }
+
+    /**
+     * 为新注册的监听器创建计数器，包括快照中可能代替它被调用的去掉包装的监听器
+     */
+    void track(EventListener listener) {
+        for (EventListener current = listener; current != null; current = unwrap(current))
+            recorders.computeIfAbsent(current, Recorder::new);
+    }
+
+    /**
+     * 移除已取消注册的监听器的计数器与统计
+     */
+    void untrack(EventListener listener) {
+        for (EventListener current = listener; current != null; current = unwrap(current))
+            recorders.remove(current);
+    }
+
+    @Nullable
+    private static EventListener unwrap(EventListener listener) {
+        return listener instanceof IWrapperListener wrapper ? wrapper.getWithoutCheck() : null;
+    }
+
+    void recordInvocation(EventListener listener, long nanos) {
+        Recorder recorder = recorders.get(listener);
+        if (recorder != null)
+            recorder.record(nanos);
+    }
+
+    /**
+     * 注册到平台MBean服务器，已注册时什么也不做
+     */
+    synchronized void registerMBean(String name) {
+        if (mbeanName != null)
+            return;
+        try {
+            ObjectName objectName = new ObjectName("com.r3944realms.bus:type=EventBus,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new StandardMBean(this, EventBusMetricsMXBean.class, true), objectName);
+            mbeanName = objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("无法注册事件总线统计MBean：" + name, e);
+        }
+    }
+
+    /**
+     * 从平台MBean服务器注销，使MBean服务器不再引用本对象及其统计的监听器。未注册时什么也不做
+     */
+    synchronized void unregisterMBean() {
+        if (mbeanName == null)
+            return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(mbeanName);
+        } catch (InstanceNotFoundException ignored) {
+            //已被其他代码注销
+        } catch (JMException e) {
+            throw new IllegalStateException("无法注销事件总线统计MBean：" + mbeanName, e);
+        }
+        mbeanName = null;
+    }
+
+    @Override
+    public long getPostCount(Class<? extends Event> eventType) {
+        LongAdder counter = postCounts.get(eventType);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    @Override
+    public Map<Class<? extends Event>, Long> getPostCounts() {
+        Map<Class<? extends Event>, Long> ret = new HashMap<>();
+        postCounts.forEach((type, counter) -> ret.put(type, counter.sum()));
+        return ret;
+    }
+
+    @Override
+    public List<ListenerStats> getListenerStats() {
+        List<ListenerStats> ret = new ArrayList<>(recorders.size());
+        for (Recorder recorder : recorders.values()) {
+            ListenerStats stats = recorder.snapshot();
+            if (stats.invocations() > 0)
+                ret.add(stats);
+        }
+        return ret;
+    }
+
+    @Override
+    public void reset() {
+        recorders.values().forEach(Recorder::reset);
+        postCounts.clear();
+    }
+
+    @Override
+    public Map<String, Long> getEventPostCounts() {
+        Map<String, Long> ret = new TreeMap<>();
+        postCounts.forEach((type, counter) -> ret.put(type.getName(), counter.sum()));
+        return ret;
+    }
+
+    @Override
+    public List<String> getListenerSummaries() {
+        List<ListenerStats> stats = getListenerStats();
+        stats.sort(Comparator.comparingLong(ListenerStats::totalNanos).reversed());
+        List<String> ret = new ArrayList<>(stats.size());
+        for (ListenerStats stat : stats)
+            ret.add(stat.toString());
+        return ret;
+    }
+}
@@ -6,31 +6,82 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.Nullable;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Collection;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 import static com.r3944realms.bus.LogMakers.EVENTBUS;
 
 public class EventBus implements IEventBus, IEventExceptionHandler {
     private static final Logger LOGGER = LogManager.getLogger();
+    /**
+     * 当前线程最近一次交给异常处理器的异常，供捕获分发异常的调用方区分监听器的异常与其它失败。
+     * 只有在{@link #beginTracking()}与{@link #endTracking(boolean)}之间的线程才有这个槽，
+     * 普通的发布线程不会因此保留异常及其引用的类
+     */
+    private static final ThreadLocal<Throwable[]> REPORTED = new ThreadLocal<>();
     private static final boolean checkTypesOnDispatchProperty = Boolean.parseBoolean(System.getProperty("eventbus.checkTypesOnDispatch", "false"));
 
-    private ConcurrentHashMap<Object, List<EventListener>> listeners = new ConcurrentHashMap<>();
-    private final LockHelper<Class<?>, ListenerList> listenerLists = LockHelper.withIdentityHashMap();
+    /**
+     * 每个注册对象实际注册到的监听器列表及其监听器，取消注册时只需处理这些列表。弱引用注册的对象以{@link WeakTarget}为键
+     */
+    private final ConcurrentHashMap<Object, Map<ListenerList, List<EventListener>>> listeners = new ConcurrentHashMap<>();
+    /**
+     * 弱引用注册的对象被回收后，其{@link WeakTarget}进入此队列，由{@link #purgeCollected()}移除对应的监听器
+     */
+    private final ReferenceQueue<Object> collectedTargets = new ReferenceQueue<>();
+    private final ConcurrentLookup<Class<?>, ListenerList> listenerLists = new ConcurrentLookup<>();
+    /**
+     * 所有监听器列表共享的写锁
+     */
+    private final Object listenerLock = new Object();
     private final IEventExceptionHandler exceptionHandler;
     private volatile boolean shutdown;
 
     private final IEventCLassChecker classChecker;
     private final boolean checkTypesOnDispatch;
     private final boolean allowPerPhasePost;
+    @Nullable
+    private final Executor asyncExecutor;
+    @Nullable
+    private final DispatchMetrics metrics;
+    @Nullable
+    private final SlowListenerWatchdog watchdog;
+    /**
+     * 启用了统计或慢监听器监视，每次监听器调用都需要计时
+     */
+    private final boolean instrumented;
+    private final boolean compiledDispatch;
+    /**
+     * 统计MBean的名称，关闭时注销、启动时重新注册
+     */
+    @Nullable
+    private final String metricsJmxName;
+    @Nullable
+    private final PooledEventTracker pooledEventTracker;
+    @Nullable
+    private final RingBufferDispatcher ringBuffer;
+    @Nullable
+    private final PartitionedDispatcher partitions;
+    @Nullable
+    private final EventCoalescer coalescer;
+    private volatile boolean frozen;
+    @Nullable
+    private FrozenEventBus frozenView;
 
     private EventBus() {
         this(new BusBuilderImpl());
@@ -40,13 +91,46 @@ public class EventBus implements IEventBus, IEventExceptionHandler {
             final IEventExceptionHandler handler,
             boolean startShutdown, IEventCLassChecker classChecker,
             boolean checkTypesOnDispatch,
-            boolean allowPerPhasePost
+            boolean allowPerPhasePost,
+            @Nullable Executor asyncExecutor,
+            boolean enableMetrics,
+            @Nullable String metricsJmxName,
+            boolean compiledDispatch,
+            boolean debugEventPools,
+            int ringBufferCapacity,
+            ProducerType producerType,
+            WaitStrategy waitStrategy,
+            int lanes,
+            int laneCapacity,
+            boolean watchListeners,
+            @Nullable ISlowListenerHandler slowListenerHandler,
+            long defaultListenerBudget,
+            Map<Class<? extends Event>, Long> listenerBudgets,
+            long exceptionReportWindow,
+            List<EventCoalescer.Spec<?>> coalescing
     ) {
-        exceptionHandler = handler == null ? this : handler;
+        IEventExceptionHandler reporter = handler == null ? this : handler;
+        exceptionHandler = exceptionReportWindow > 0 ? new ThrottledExceptionHandler(reporter, exceptionReportWindow) : reporter;
         this.shutdown = startShutdown;
         this.classChecker = classChecker;
         this.checkTypesOnDispatch = checkTypesOnDispatch || checkTypesOnDispatchProperty;
         this.allowPerPhasePost = allowPerPhasePost;
+        this.asyncExecutor = asyncExecutor;
+        this.metrics = enableMetrics ? new DispatchMetrics() : null;
+        this.metricsJmxName = metricsJmxName;
+        if (metrics != null && metricsJmxName != null)
+            metrics.registerMBean(metricsJmxName);
+        this.watchdog = watchListeners ? new SlowListenerWatchdog(this, slowListenerHandler, defaultListenerBudget, listenerBudgets) : null;
+        this.instrumented = metrics != null || watchdog != null;
+        //统计与监视需要逐个计时监听器，与编译分发互斥
+        this.compiledDispatch = compiledDispatch && !instrumented;
+        this.pooledEventTracker = debugEventPools ? new PooledEventTracker(this) : null;
+        //消费线程在所有字段初始化后才启动
+        this.ringBuffer = ringBufferCapacity > 0 ? new RingBufferDispatcher(this, ringBufferCapacity, producerType, waitStrategy) : null;
+        this.partitions = lanes > 0 ? new PartitionedDispatcher(this, lanes, laneCapacity) : null;
+        this.coalescer = coalescing.isEmpty() ? null : new EventCoalescer(this, coalescing);
+        if (partitions != null && !startShutdown)
+            partitions.start();
     }
 
     public EventBus(final BusBuilderImpl busBuilder) {
@@ -55,16 +139,65 @@ public class EventBus implements IEventBus, IEventExceptionHandler {
                 busBuilder.startShutdown,
                 busBuilder.classChecker,
                 busBuilder.checkTypesOnDispatch,
-                busBuilder.allowPerPhasePost);
+                busBuilder.allowPerPhasePost,
+                busBuilder.asyncExecutor,
+                busBuilder.enableMetrics,
+                busBuilder.metricsJmxName,
+                busBuilder.compiledDispatch,
+                busBuilder.debugEventPools,
+                busBuilder.ringBufferCapacity,
+                busBuilder.producerType,
+                busBuilder.waitStrategy,
+                busBuilder.lanes,
+                busBuilder.laneCapacity,
+                busBuilder.watchListeners,
+                busBuilder.slowListenerHandler,
+                busBuilder.defaultListenerBudget,
+                busBuilder.listenerBudgets,
+                busBuilder.exceptionReportWindow,
+                busBuilder.coalescing);
     }
 
     @Override
     public void register(Object target) {
-        if (listeners.containsKey(target))
+        register(target, null);
+    }
+
+    /**
+     * @param batch 所在的注册事务，为null时直接发布
+     */
+    void register(Object target, @Nullable RegistrationBatch batch) {
+        checkNotFrozen();
+        purgeCollected();
+        if (batch == null ? isRegistered(target) : batch.isRegistered(target))
             return;
 
         boolean isStatic = target.getClass() == Class.class;
         Class<?> clazz = isStatic ? (Class<?>) target : target.getClass();
+        ISubscriberIndex index = SubscriberIndexes.find(clazz);
+        if (index != null) {
+            registerFromIndex(target, clazz, isStatic, index, batch);
+            return;
+        }
+        registerMethods(target, clazz, isStatic, batch);
+    }
+
+    @Override
+    public void registerWeak(Object target) {
+        checkNotFrozen();
+        if (target.getClass() == Class.class)
+            throw new IllegalArgumentException("静态监听器不属于任何对象，不能弱引用注册，请使用register(" + target + ")");
+        purgeCollected();
+        if (isRegistered(target))
+            return;
+        registerMethods(new WeakTarget(target, collectedTargets), target.getClass(), false, null);
+    }
+
+    /**
+     * 扫描带有{@link SubscribeEvent}注解的方法并逐个注册
+     * @param target 注册的对象，弱引用注册时为其{@link WeakTarget}
+     */
+    private void registerMethods(Object target, Class<?> clazz, boolean isStatic, @Nullable RegistrationBatch batch) {
         checkSupertypes(clazz, clazz);
 
         int foundMethods = 0;
@@ -72,23 +205,50 @@ public class EventBus implements IEventBus, IEventExceptionHandler {
             if (!method.isAnnotationPresent(SubscribeEvent.class))
                 continue;
             if (Modifier.isStatic(method.getModifiers()) == isStatic)
-                registerListener(target, method, method);
+                registerListener(target, method, method, batch);
             else {
-                if (isStatic)
-                    throw new IllegalArgumentException("""
-                            预期的带@SubscribeEvent方法%s应该是静态的
-                            因为register()带有一个类类型的调用。
-                            要么让方法静态，要么调用一个带%s实例的register()方法
-                            """.formatted(method, clazz));
-                else
-                    throw new IllegalArgumentException("""
-                            
-                            """);
+                throw staticMismatch(method, clazz, isStatic);
             }
             ++foundMethods;
         }
     }
 
+    private static IllegalArgumentException staticMismatch(Object method, Class<?> clazz, boolean isStatic) {
+        if (isStatic)
+            return new IllegalArgumentException("""
+                    预期的带@SubscribeEvent方法%s应该是静态的
+                    因为register()带有一个类类型的调用。
+                    要么让方法静态，要么调用一个带%s实例的register()方法
+                    """.formatted(method, clazz));
+        else
+            return new IllegalArgumentException("""
+                    预期的带@SubscribeEvent方法%s不应该是静态的
+                    因为register()带有一个对象实例的调用。
+                    要么让方法非静态，要么调用一个带%s类类型的register()方法
+                    """.formatted(method, clazz));
+    }
+
+    /**
+     * 使用编译期生成的绑定表注册监听器，跳过方法扫描。
+     * <p>
+     * 父类可能与监听器类分开编译，注解处理器对父类中的订阅方法只给出警告，因此仍与反射路径一样检查父类。
+     */
+    private void registerFromIndex(Object target, Class<?> clazz, boolean isStatic, ISubscriberIndex index, @Nullable RegistrationBatch batch) {
+        checkSupertypes(clazz, clazz);
+
+        List<ISubscriberIndex.SubscriberMethod> methods = index.methods();
+        for (int i = 0; i < methods.size(); i++) {
+            ISubscriberIndex.SubscriberMethod method = methods.get(i);
+            String readable = clazz.getName() + "." + method.name() + method.descriptor();
+            if (method.isStatic() != isStatic)
+                throw staticMismatch(readable, clazz, isStatic);
+            checkEventType(readable, method.eventType());
+            EventListener handler = index.createListener(i, isStatic ? null : target);
+            SubscribeEventListener listener = new SubscribeEventListener(target, method, handler);
+            addToListeners(target, method.eventType(), listener, listener.getPriority(), listener.getKey(), batch);
+        }
+    }
+
     private static void checkSupertypes(Class<?> registerType, Class<?> type) {
         if (type == null || type == Object.class)
             return;
@@ -144,11 +304,55 @@ public class EventBus implements IEventBus, IEventExceptionHandler {
 
     @Override
     public <T extends Event> void addListener(final EventPriority priority, final boolean receiveCanceled, final Class<T> eventType, final Consumer<T> consumer) {
-        addListener(priority, passNotGenericFilter(receiveCanceled), eventType, consumer);
+        addListener(priority, passNotGenericFilter(receiveCanceled), eventType, null, consumer, null);
+    }
+
+    @Override
+    public <T extends Event & IKeyedEvent> void addListener(Class<T> eventType, Object key, Consumer<T> consumer) {
+        addListener(EventPriority.NORMAL, false, eventType, key, consumer);
     }
 
+    @Override
+    public <T extends Event & IKeyedEvent> void addListener(EventPriority priority, boolean receiveCanceled, Class<T> eventType, Object key, Consumer<T> consumer) {
+        addListener(priority, passNotGenericFilter(receiveCanceled), eventType, Objects.requireNonNull(key), consumer, null);
+    }
+
+    @Override
+    public <T extends GenericEvent<? extends F>, F> void addGenericListener(Class<F> genericClassFilter, Consumer<T> consumer) {
+        addListener(EventPriority.NORMAL, passNotGenericFilter(false), getEventClass(consumer), Objects.requireNonNull(genericClassFilter), consumer, null);
+    }
+
+    @Override
+    public <T extends GenericEvent<? extends F>, F> void addGenericListener(Class<F> genericClassFilter, EventPriority priority, boolean receiveCanceled, Class<T> eventType, Consumer<T> consumer) {
+        addListener(priority, passNotGenericFilter(receiveCanceled), eventType, Objects.requireNonNull(genericClassFilter), consumer, null);
+    }
+
+    @Override
+    public <T> void addInterfaceListener(Class<T> eventInterface, Consumer<T> consumer) {
+        addInterfaceListener(EventPriority.NORMAL, false, eventInterface, consumer);
+    }
+
+    @Override
+    public <T> void addInterfaceListener(EventPriority priority, boolean receiveCanceled, Class<T> eventInterface, Consumer<T> consumer) {
+        addInterfaceListener(priority, receiveCanceled, eventInterface, consumer, null);
+    }
+
+    /**
+     * 接口监听器与事件类的监听器经过相同的{@link IEventCLassChecker}检查与批量暂存，检查器收到的是接口本身
+     */
     @SuppressWarnings("unchecked")
-    private void registerListener(final Object target, final Method method, final Method real) {
+    <T> void addInterfaceListener(EventPriority priority, boolean receiveCanceled, Class<T> eventInterface, Consumer<T> consumer, @Nullable RegistrationBatch batch) {
+        if (!eventInterface.isInterface())
+            throw new IllegalArgumentException(eventInterface + "不是接口，请使用addListener订阅事件类");
+        addListener(priority, passNotGenericFilter(receiveCanceled), (Class<Event>) (Class<?>) eventInterface, null, (Consumer<Event>) (Consumer<?>) consumer, batch);
+    }
+
+    <T extends Event> void addListener(EventPriority priority, boolean receiveCanceled, Class<T> eventType, @Nullable Object key, Consumer<T> consumer, RegistrationBatch batch) {
+        addListener(priority, passNotGenericFilter(receiveCanceled), eventType, key, consumer, batch);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void registerListener(final Object target, final Method method, final Method real, @Nullable RegistrationBatch batch) {
         Class<?>[] parameterTypes = method.getParameterTypes();
         if (parameterTypes.length != 1)
             throw new IllegalArgumentException("""
@@ -158,11 +362,18 @@ public class EventBus implements IEventBus, IEventExceptionHandler {
                     """.formatted(method, parameterTypes.length));
 
         Class<?> eventType = parameterTypes[0];
+        checkEventType(method, eventType);
+        register(eventType, target, real, batch);
+    }
+
 
-        if(!Event.class.isAssignableFrom(eventType))
+
+    @SuppressWarnings("unchecked")
+    private void checkEventType(Object method, Class<?> eventType) {
+        if (!eventType.isInterface() && !Event.class.isAssignableFrom(eventType))
             throw new IllegalArgumentException("""
                     方法 %s 虽然带有@SubscribeEvent注解，
-                    但是其唯一参数类型 %s 并不是事件类的子类
+                    但是其唯一参数类型 %s 既不是事件类的子类，也不是接口
                     """.formatted(method, eventType));
         try {
             classChecker.check((Class<? extends Event>) eventType);
@@ -172,24 +383,40 @@ public class EventBus implements IEventBus, IEventExceptionHandler {
                     但是其参数在 %s 总线上无效
                     """.formatted(method, eventType), e);
         }
-        register(eventType, target, real);
     }
 
-
-
-    private void register(Class<?> eventType, Object target, Method method) {
-        SubscribeEventListener listener = new SubscribeEventListener(target, method);
-        addToListeners(target, eventType, listener, listener.getPriority());
+    private void register(Class<?> eventType, Object target, Method method, @Nullable RegistrationBatch batch) {
+        SubscribeEventListener listener = target instanceof WeakTarget weakTarget ?
+                new SubscribeEventListener(weakTarget, method) :
+                new SubscribeEventListener(target, method);
+        addToListeners(target, eventType, listener, listener.getPriority(), listener.getKey(), batch);
     }
 
-    private void addToListeners(final Object target, final Class<?> eventType, final EventListener listener, final EventPriority priority) {
-        if (Modifier.isAbstract(eventType.getModifiers()))
+    private void addToListeners(final Object target, final Class<?> eventType, final EventListener listener, final EventPriority priority, @Nullable Object key, @Nullable RegistrationBatch batch) {
+        checkNotFrozen();
+        if (eventType == Event.class)
             throw new IllegalArgumentException("""
-                    不能为抽象的%s注册监听器，请为其非抽象子类注册监听器。
+                    不能为%s本身注册监听器，请为具体的事件类、抽象事件类或事件实现的接口注册监听器。
                     """.formatted(eventType));
-        getListenList(eventType).register(priority, listener);
-        List<EventListener> others = listeners.computeIfAbsent(target, k -> Collections.synchronizedList(new ArrayList<>()));
-        others.add(listener);
+        if (key != null && !IKeyedEvent.class.isAssignableFrom(eventType))
+            throw new IllegalArgumentException("""
+                    %s的监听器指定了键%s，但该事件没有实现IKeyedEvent。
+                    """.formatted(eventType, key));
+        ListenerList listenerList = getListenList(eventType);
+        if (batch != null) {
+            batch.stage(target, listenerList, priority, key, listener);
+            return;
+        }
+        FlightRecorderEvents.Registration recording = new FlightRecorderEvents.Registration();
+        recording.begin();
+        if (metrics != null)
+            metrics.track(listener);
+        listenerList.register(priority, key, listener);
+        Map<ListenerList, List<EventListener>> others = listeners.computeIfAbsent(target, k -> new IdentityHashMap<>());
+        synchronized (others) {
+            others.computeIfAbsent(listenerList, k -> new ArrayList<>()).add(listener);
+        }
+        recording.complete(eventType, listener, priority, key != null);
     }
 
     private ListenerList getListenList(Class<?> eventType) {
@@ -197,17 +424,22 @@ public class EventBus implements IEventBus, IEventExceptionHandler {
         if (list != null)
             return list;
 
-        if (Modifier.isAbstract(eventType.getSuperclass().getModifiers())) {
-            validateAbstractChain(eventType.getSuperclass());
-
-            return listenerLists.computeIfAbsent(eventType, e -> new ListenerList(e, allowPerPhasePost));
-        } else
-            return listenerLists.computeIfAbsent(eventType, e -> new ListenerList(e, getListenList(e.getSuperclass()), allowPerPhasePost));
+        if (eventType != Event.class && Event.class.isAssignableFrom(eventType)) {
+            Class<?> abstractType = Modifier.isAbstract(eventType.getModifiers()) ? eventType : eventType.getSuperclass();
+            if (Modifier.isAbstract(abstractType.getModifiers()))
+                validateAbstractChain(abstractType);
+        }
+        //父列表在映射表锁之外查找，子列表只在真正写入时创建，避免竞争中落败的列表被挂到父列表上
+        return listenerLists.computeIfAbsent(eventType, this::getParentLists,
+                parents -> new ListenerList(eventType, listenerLock, parents, allowPerPhasePost, instrumented));
     }
 
+    /**
+     * 抽象事件只能继承抽象类，使抽象事件始终是一组具体事件的分类，而不是某个可以单独发布的事件的子类
+     */
     private static void validateAbstractChain(Class<?> eventType) {
         while (eventType != Event.class) {
-            if(!Modifier.isAbstract(eventType.getSuperclass().getModifiers())) {
+            if (!Modifier.isAbstract(eventType.getSuperclass().getModifiers())) {
                 throw new IllegalArgumentException("""
                         抽象事件 %s 有一个非抽象的父类 %s。
                         该父类必须为抽象类。
@@ -217,6 +449,19 @@ public class EventBus implements IEventBus, IEventExceptionHandler {
             eventType = eventType.getSuperclass();
         }
     }
+
+    /**
+     * @return 父类(不超过{@link Event})与直接实现的所有接口的列表
+     */
+    private List<ListenerList> getParentLists(Class<?> eventType) {
+        Class<?>[] interfaces = eventType.getInterfaces();
+        List<ListenerList> parents = new ArrayList<>(interfaces.length + 1);
+        if (eventType != Event.class && eventType.getSuperclass() != null)
+            parents.add(getListenList(eventType.getSuperclass()));
+        for (Class<?> eventInterface : interfaces)
+            parents.add(getListenList(eventInterface));
+        return parents;
+    }
     @SuppressWarnings("unchecked")
     private <T extends Event> Class<T> getEventClass(Consumer<T> consumer) {
         Class<T> eventClass = (Class<T>) TypeResolver.resolveRawArgument(Consumer.class, consumer.getClass());
@@ -234,15 +479,15 @@ public class EventBus implements IEventBus, IEventExceptionHandler {
                     "你能确保他会按你的预期工作吗? 注意：Lambda表达式所具有的通用计算类型" +
                     "将会在运行时擦除以及无法被解析。");
         }
-        addListener(priority, filter, eventClass, consumer);
+        addListener(priority, filter, eventClass, null, consumer, null);
     }
 
     private <T extends Event> Predicate<T> passNotGenericFilter(boolean receiveCanceled) {
-        //该转型是安全的，因为当事件是不可取消时过滤器会被移除
-        return receiveCanceled ? null : e -> !((ICancellableEvent)e).isCanceled();
+        //不可取消事件的列表通常会移除过滤器，但启用了统计或监视的总线保留包装以报告监听器，因此仍需判断类型
+        return receiveCanceled ? null : e -> !(e instanceof ICancellableEvent cancellable) || !cancellable.isCanceled();
     }
 
-    private <T extends Event> void addListener(final EventPriority priority, @Nullable Predicate<? super T> filter, final Class<T> eventClass, final Consumer<T> consumer) {
+    private <T extends Event> void addListener(final EventPriority priority, @Nullable Predicate<? super T> filter, final Class<T> eventClass, @Nullable Object key, final Consumer<T> consumer, @Nullable RegistrationBatch batch) {
         try {
             classChecker.check(eventClass);
         } catch (IllegalArgumentException e) {
@@ -250,10 +495,12 @@ public class EventBus implements IEventBus, IEventExceptionHandler {
                     "该事件" + eventClass + "的监听器带有一个无效于当前事件总系的参数"
             );
         }
+        checkNotFrozen();
+        purgeCollected();
         @SuppressWarnings("unchecked") EventListener listener = filter == null ?
                 new ConsumerEventHandler((Consumer<Event>) consumer) :
                 new ConsumerEventHandler.WithPredicate((Consumer<Event>) consumer, (Predicate<Event>) filter);
-        addToListeners(consumer, eventClass, listener, priority);
+        addToListeners(consumer, eventClass, listener, priority, key, batch);
     }
     private void doPostChecks(Event event) {
         if (checkTypesOnDispatch) {
@@ -269,14 +516,176 @@ public class EventBus implements IEventBus, IEventExceptionHandler {
 
     @Override
     public void unregister(Object object) {
-        List<EventListener> list = listeners.remove(object);
-        if(list == null)
+        checkNotFrozen();
+        purgeCollected();
+        Map<ListenerList, List<EventListener>> registered = removeRegistration(object);
+        if(registered == null)
             return;
-        for (ListenerList listenerList : listenerLists.getReadMap().values()) {
-            for (EventListener listener : list) {
-                listenerList.unregister(listener);
+        FlightRecorderEvents.Unregistration recording = new FlightRecorderEvents.Unregistration();
+        recording.begin();
+        synchronized (registered) {
+            registered.forEach(ListenerList::unregister);
+            untrack(registered);
+        }
+        recording.complete(object, registered.size());
+    }
+
+    boolean isRegistered(Object target) {
+        return listeners.containsKey(target) || listeners.containsKey(WeakTarget.lookup(target));
+    }
+
+    /**
+     * @return 对象(无论是否弱引用注册)注册的监听器，未注册时为null
+     */
+    @Nullable
+    private Map<ListenerList, List<EventListener>> removeRegistration(Object target) {
+        Map<ListenerList, List<EventListener>> registered = listeners.remove(target);
+        return registered != null ? registered : listeners.remove(WeakTarget.lookup(target));
+    }
+
+    /**
+     * 移除对象已被回收的弱引用注册。
+     * <p>
+     * 只在注册、添加监听器与取消注册时调用，发布路径上被回收对象的监听器只是什么也不做。
+     * 所有被回收对象的监听器作为一次提交移除，每个受影响的列表只重建一次。
+     */
+    private void purgeCollected() {
+        Reference<?> collected = collectedTargets.poll();
+        if (collected == null)
+            return;
+        Map<ListenerList, ListenerList.Changes> changes = new IdentityHashMap<>();
+        for (; collected != null; collected = collectedTargets.poll()) {
+            //已经显式取消注册的对象不在注册表中
+            Map<ListenerList, List<EventListener>> registered = listeners.remove(collected);
+            if (registered == null)
+                continue;
+            synchronized (registered) {
+                registered.forEach((listenerList, removed) ->
+                        changes.computeIfAbsent(listenerList, k -> new ListenerList.Changes()).remove(removed));
+                untrack(registered);
+            }
+        }
+        if (!changes.isEmpty())
+            ListenerList.commit(changes);
+    }
+
+    /**
+     * 移除已取消注册的监听器的统计
+     */
+    private void untrack(Map<ListenerList, List<EventListener>> registered) {
+        if (metrics == null)
+            return;
+        for (List<EventListener> removed : registered.values())
+            removed.forEach(metrics::untrack);
+    }
+
+    @Override
+    public IRegistrationBatch batchRegister() {
+        checkNotFrozen();
+        return new RegistrationBatch(this);
+    }
+
+    private void checkNotFrozen() {
+        if (frozen)
+            throw frozen();
+    }
+
+    /**
+     * 由{@link FrozenEventBus}在每次发布时读取
+     */
+    boolean isShutdown() {
+        return shutdown;
+    }
+
+    static IllegalStateException frozen() {
+        return new IllegalStateException("总线已冻结，不能再注册或取消注册监听器");
+    }
+
+    @Override
+    public synchronized IEventBus freeze() {
+        if (frozenView != null)
+            return frozenView;
+        if (shutdown)
+            throw new IllegalStateException("只能冻结已启动的总线");
+        frozen = true;
+        frozenView = new FrozenEventBus(this);
+        return frozenView;
+    }
+
+    /**
+     * 确定冻结后某一事件类型的分发方式，由{@link FrozenEventBus}对每个事件类型调用一次。
+     * <p>
+     * 类型检查在此时完成；监听器不再变化，因此直接固定快照。启用了编译分发且事件没有键时固定编译分发器，
+     * 只有JFR正在录制监听器调用事件时才改用快照。
+     */
+    Consumer<Event> frozenRoute(Class<? extends Event> eventClass) {
+        if (checkTypesOnDispatch) {
+            try {
+                classChecker.check(eventClass);
+            } catch (IllegalArgumentException e) {
+                return event -> {
+                    throw new IllegalArgumentException("不能发布事件的类型" + eventClass.getSimpleName() + "在该总线上", e);
+                };
             }
         }
+        if (isRoutedAsync(eventClass))
+            return this::publish;
+        ListenerList listenerList = getListenList(eventClass);
+        if (IKeyedEvent.class.isAssignableFrom(eventClass))
+            return event -> post(event, listenerList.getSnapshot(keyOf(event)));
+        ListenerList.Snapshot snapshot = listenerList.getSnapshot();
+        if (compiledDispatch) {
+            CompiledDispatcher dispatcher = listenerList.getCompiledDispatcher(this);
+            if (dispatcher != null)
+                return event -> {
+                    if (FlightRecorderEvents.tracingListeners())
+                        post(event, snapshot);
+                    else
+                        dispatchCompiled(dispatcher, event);
+                };
+        }
+        return event -> post(event, snapshot);
+    }
+
+    /**
+     * @return 该类型的事件经环形缓冲区、分区或合并阶段异步分发，{@link #post(Event)}返回时可能尚未分发
+     */
+    private boolean isRoutedAsync(Class<? extends Event> eventClass) {
+        return ringBuffer != null || (partitions != null && IPartitionedEvent.class.isAssignableFrom(eventClass))
+                || (coalescer != null && coalescer.handles(eventClass));
+    }
+
+    /**
+     * 发布事务中暂存的修改。
+     * <p>
+     * 监听器列表先于注册表更新，因此提交期间并发的{@link #unregister(Object)}可能看不到本事务新注册的对象。
+     */
+    void commit(RegistrationBatch batch) {
+        checkNotFrozen();
+        purgeCollected();
+        FlightRecorderEvents.RegistrationCommit recording = new FlightRecorderEvents.RegistrationCommit();
+        recording.begin();
+        Map<ListenerList, ListenerList.Changes> changes = batch.changes;
+        for (Object target : batch.removed) {
+            Map<ListenerList, List<EventListener>> registered = removeRegistration(target);
+            if (registered == null)
+                continue;
+            synchronized (registered) {
+                registered.forEach((listenerList, removed) ->
+                        changes.computeIfAbsent(listenerList, k -> new ListenerList.Changes()).remove(removed));
+                untrack(registered);
+            }
+        }
+        if (metrics != null)
+            batch.added.values().forEach(staged -> staged.values().forEach(added -> added.forEach(metrics::track)));
+        ListenerList.commit(changes);
+        batch.added.forEach((target, staged) -> {
+            Map<ListenerList, List<EventListener>> others = listeners.computeIfAbsent(target, k -> new IdentityHashMap<>());
+            synchronized (others) {
+                staged.forEach((listenerList, added) -> others.computeIfAbsent(listenerList, k -> new ArrayList<>()).addAll(added));
+            }
+        });
+        recording.complete(batch.added.size(), batch.removed.size(), changes.size());
     }
 
     @Override
@@ -285,7 +694,71 @@ public class EventBus implements IEventBus, IEventExceptionHandler {
             return event;
         }
         doPostChecks(event);
-        return post(event, getListenList(event.getClass()).getListeners());
+        return publish(event);
+    }
+
+    /**
+     * 把事件交给合并阶段，不需要合并时经{@link #route(Event)}发布
+     */
+    private <T extends Event> T publish(T event) {
+        if (coalescer != null && coalescer.offer(event))
+            return event;
+        return route(event);
+    }
+
+    /**
+     * 由合并阶段调用，发布合并后的事件
+     */
+    void dispatchCoalesced(Event event) {
+        route(event);
+    }
+
+    /**
+     * 把事件交给分区或环形缓冲区，两者都不适用时同步分发
+     */
+    private <T extends Event> T route(T event) {
+        if (partitions != null && event instanceof IPartitionedEvent partitioned) {
+            partitions.publish(event, partitioned.partitionKey());
+            return event;
+        }
+        if (ringBuffer != null) {
+            ringBuffer.publish(event);
+            return event;
+        }
+        return dispatch(event);
+    }
+
+    @Nullable
+    private static Object keyOf(Event event) {
+        return event instanceof IKeyedEvent keyedEvent ? keyedEvent.key() : null;
+    }
+
+    private <T extends Event> T dispatch(T event) {
+        ListenerList listenerList = getListenList(event.getClass());
+        Object key = keyOf(event);
+        //编译分发只覆盖全局监听器，JFR录制监听器调用时经过逐个调用监听器的路径
+        if (compiledDispatch && key == null && !FlightRecorderEvents.tracingListeners()) {
+            CompiledDispatcher dispatcher = listenerList.getCompiledDispatcher(this);
+            if (dispatcher != null) {
+                dispatchCompiled(dispatcher, event);
+                return event;
+            }
+        }
+        return post(event, listenerList.getSnapshot(key));
+    }
+
+    private void dispatchCompiled(CompiledDispatcher dispatcher, Event event) {
+        if (!FlightRecorderEvents.recordingPosts()) {
+            dispatcher.dispatch(event);
+            return;
+        }
+        FlightRecorderEvents.Post recording = new FlightRecorderEvents.Post();
+        recording.begin();
+        try {
+            dispatcher.dispatch(event);
+        } finally {
+            recording.complete(event, dispatcher.source.length);
+        }
     }
 
     @Override
@@ -297,22 +770,377 @@ public class EventBus implements IEventBus, IEventExceptionHandler {
             return event;
         }
         doPostChecks(event);
-        return post(event, getListenList(event.getClass()).getPrePhaseListeners(phase));
+        Object key = keyOf(event);
+        ListenerList listenerList = getListenList(event.getClass());
+        if (key == null)
+            return post(event, listenerList.getPrePhaseListeners(phase));
+        return post(event, listenerList.getSnapshot(key).perPhaseListeners()[phase.ordinal()]);
+    }
+
+    @Override
+    public <T extends Event> CompletableFuture<T> postAsync(T event) {
+        if(shutdown) {
+            return CompletableFuture.completedFuture(event);
+        }
+        doPostChecks(event);
+        //在调用线程上获取监听器数组，保证事件看到的是发布时刻的监听器
+        ListenerList.Snapshot snapshot = getListenList(event.getClass()).getSnapshot(keyOf(event));
+        Executor executor = asyncExecutor == null ? DefaultAsyncExecutor.get() : asyncExecutor;
+        return CompletableFuture.supplyAsync(() -> post(event, snapshot), executor);
+    }
+
+    @Override
+    public <T extends Event> void postAll(Collection<? extends T> events) {
+        if(shutdown || events.isEmpty()) {
+            return;
+        }
+        Event[] batch = events.toArray(new Event[0]);
+        int start = 0;
+        while (start < batch.length) {
+            Class<? extends Event> eventClass = batch[start].getClass();
+            int end = start + 1;
+            while (end < batch.length && batch[end].getClass() == eventClass)
+                end++;
+            postRun(batch, start, end, eventClass);
+            start = end;
+        }
+    }
+
+    @Override
+    public <T extends Event> T[] postBatch(Class<T> eventType, T[] events) {
+        if(shutdown || events.length == 0) {
+            return events;
+        }
+        for (T event : events) {
+            if (event.getClass() != eventType)
+                throw new IllegalArgumentException("事件" + event + "的类型不是" + eventType);
+        }
+        postRun(events, 0, events.length, eventType);
+        return events;
+    }
+
+    /**
+     * 分发[from, to)范围内的同类事件。异步分发的事件与{@link #post(Event)}一样逐个交给合并阶段、分区或环形缓冲区，
+     * 带键的事件各自的监听器不同，因此逐个分发
+     */
+    private void postRun(Event[] events, int from, int to, Class<? extends Event> eventClass) {
+        if (isRoutedAsync(eventClass)) {
+            for (int i = from; i < to; i++) {
+                doPostChecks(events[i]);
+                publish(events[i]);
+            }
+            return;
+        }
+        doPostChecks(events[from]);
+        ListenerList listenerList = getListenList(eventClass);
+        if (events[from] instanceof IKeyedEvent) {
+            for (int i = from; i < to; i++)
+                post(events[i], listenerList.getSnapshot(keyOf(events[i])));
+        } else {
+            postBatch(events, from, to, listenerList.getListeners());
+        }
+    }
+
+    /**
+     * 由环形缓冲区的消费线程与分区的工作线程调用，按顺序分发一批事件。
+     * <p>
+     * 连续的同类事件只查找一次监听器数组；与{@link #postAll(Collection)}不同，每个事件单独分发，
+     * 一个事件的监听器抛出异常(已由异常处理器报告)不会影响同批的其它事件，异常处理器未报告的异常记录到日志。
+     * {@link Error}向上抛出，终止消费线程。
+     */
+    void dispatchQueued(Event[] events, int size) {
+        Class<?> eventClass = null;
+        ListenerList listenerList = null;
+        boolean tracking = beginTracking();
+        try {
+            for (int i = 0; i < size; i++) {
+                Event event = events[i];
+                if (event.getClass() != eventClass) {
+                    eventClass = event.getClass();
+                    listenerList = getListenList(eventClass);
+                }
+                try {
+                    post(event, listenerList.getSnapshot(keyOf(event)));
+                } catch (Throwable throwable) {
+                    if (!wasReported(throwable))
+                        LOGGER.error(EVENTBUS, "分发队列中的事件{}失败", event, throwable);
+                }
+            }
+        } finally {
+            endTracking(tracking);
+        }
+    }
+
+    @Override
+    public void flush() {
+        if (coalescer != null)
+            coalescer.flush();
+    }
+
+    @Override
+    public void drain() {
+        if (coalescer != null)
+            coalescer.flush();
+        if (ringBuffer != null)
+            ringBuffer.drain();
+        if (partitions != null)
+            partitions.drain();
+    }
+
+    @Override
+    public void close() {
+        this.shutdown = true;
+        //合并阶段暂存的事件先交给环形缓冲区或分区，再随它们一起分发完成
+        if (coalescer != null)
+            coalescer.close();
+        if (ringBuffer != null)
+            ringBuffer.close();
+        if (partitions != null)
+            partitions.close();
+        if (exceptionHandler instanceof ThrottledExceptionHandler throttled)
+            throttled.summarize();
+        if (metrics != null)
+            metrics.unregisterMBean();
+    }
+
+    @Override
+    public List<LaneStats> getLaneStats() {
+        return partitions == null ? List.of() : partitions.stats();
+    }
+
+    @Override
+    public List<CoalescingStats> getCoalescingStats() {
+        return coalescer == null ? List.of() : coalescer.stats();
+    }
+
+    /**
+     * 按顺序把[from, to)范围内的每个事件分发给所有监听器。
+     * <p>
+     * 与逐个{@link #post(Event)}一致：监听器在第k个事件上抛出异常时，之前的事件已到达所有监听器，之后的事件不被分发
+     */
+    private void postBatch(Event[] events, int from, int to, EventListener[] listeners) {
+        if (!FlightRecorderEvents.recordingPosts()) {
+            invokeBatch(events, from, to, listeners);
+            return;
+        }
+        FlightRecorderEvents.Post recording = new FlightRecorderEvents.Post();
+        recording.begin();
+        try {
+            invokeBatch(events, from, to, listeners);
+        } finally {
+            recording.complete(events, from, to, listeners.length);
+        }
+    }
+
+    private void invokeBatch(Event[] events, int from, int to, EventListener[] listeners) {
+        int index = 0;
+        int eventIndex = from;
+        try {
+            if (metrics != null) {
+                for (eventIndex = from; eventIndex < to; eventIndex++)
+                    metrics.recordPost(events[eventIndex].getClass());
+            }
+            //同一段事件的类型相同，预算只需解析一次
+            long budget = watchdog == null ? 0 : watchdog.budget(events[from].getClass());
+            boolean traced = FlightRecorderEvents.tracingListeners();
+            for (eventIndex = from; eventIndex < to; eventIndex++) {
+                Event event = events[eventIndex];
+                for (index = 0; index < listeners.length; index++) {
+                    EventListener listener = listeners[index];
+                    if (traced) {
+                        long start = System.nanoTime();
+                        FlightRecorderEvents.invoke(event, listener);
+                        record(event, listener, budget, System.nanoTime() - start);
+                    } else if (instrumented) {
+                        long start = System.nanoTime();
+                        listener.invoke(event);
+                        record(event, listener, budget, System.nanoTime() - start);
+                    } else {
+                        listener.invoke(event);
+                    }
+                }
+            }
+        } catch (Throwable throwable) {
+            report(events[eventIndex], listeners, index, throwable);
+            throw throwable;
+        }
+    }
+
+    /**
+     * 可取消事件使用快照中去掉取消检查的监听器，事件被取消后直接跳到下一个会接收已取消事件的监听器，
+     * 而不是让后面每个监听器各自检查一次取消状态后返回。
+     */
+    private <T extends Event> T post(T event, ListenerList.Snapshot snapshot) {
+        int[] nextReceiving = snapshot.nextReceiving();
+        if (nextReceiving == null || instrumented || FlightRecorderEvents.tracingListeners())
+            return post(event, snapshot.listeners());
+        if (!FlightRecorderEvents.recordingPosts())
+            return postSkippingCanceled(event, snapshot, nextReceiving);
+        FlightRecorderEvents.Post recording = new FlightRecorderEvents.Post();
+        recording.begin();
+        try {
+            return postSkippingCanceled(event, snapshot, nextReceiving);
+        } finally {
+            recording.complete(event, snapshot.listeners().length);
+        }
+    }
+
+    private <T extends Event> T postSkippingCanceled(T event, ListenerList.Snapshot snapshot, int[] nextReceiving) {
+        EventListener[] unwrapped = snapshot.unwrapped();
+        ICancellableEvent cancellable = (ICancellableEvent) event;
+        int index = 0;
+        try {
+            while (index < unwrapped.length) {
+                //接收已取消事件的监听器可能撤销取消，因此每次调用前都重新检查
+                if (cancellable.isCanceled()) {
+                    index = nextReceiving[index];
+                    if (index == unwrapped.length)
+                        break;
+                }
+                unwrapped[index].invoke(event);
+                index++;
+            }
+        } catch (Throwable throwable) {
+            report(event, snapshot.listeners(), index, throwable);
+            throw throwable;
+        }
+        return event;
     }
 
     private <T extends Event> T post(T event, EventListener[] listeners) {
+        if (!FlightRecorderEvents.recordingPosts())
+            return invokeAll(event, listeners);
+        FlightRecorderEvents.Post recording = new FlightRecorderEvents.Post();
+        recording.begin();
+        try {
+            return invokeAll(event, listeners);
+        } finally {
+            recording.complete(event, listeners.length);
+        }
+    }
+
+    private <T extends Event> T invokeAll(T event, EventListener[] listeners) {
+        if (instrumented || FlightRecorderEvents.tracingListeners())
+            return postInstrumented(event, listeners);
         int index = 0;
         try {
             for (;index < listeners.length; index++) {
                 listeners[index].invoke(event);
             }
         } catch (Throwable throwable) {
-            exceptionHandler.handleException(this, event, listeners, index, throwable);
+            report(event, listeners, index, throwable);
+            throw throwable;
+        }
+        return event;
+    }
+
+    /**
+     * 逐个计时调用监听器，用于统计、慢监听器监视与JFR的监听器调用事件
+     */
+    private <T extends Event> T postInstrumented(T event, EventListener[] listeners) {
+        if (metrics != null)
+            metrics.recordPost(event.getClass());
+        long budget = watchdog == null ? 0 : watchdog.budget(event.getClass());
+        boolean traced = FlightRecorderEvents.tracingListeners();
+        int index = 0;
+        try {
+            for (;index < listeners.length; index++) {
+                EventListener listener = listeners[index];
+                long start = System.nanoTime();
+                if (traced)
+                    FlightRecorderEvents.invoke(event, listener);
+                else
+                    listener.invoke(event);
+                record(event, listener, budget, System.nanoTime() - start);
+            }
+        } catch (Throwable throwable) {
+            report(event, listeners, index, throwable);
             throw throwable;
         }
         return event;
     }
 
+    private void record(Event event, EventListener listener, long budget, long elapsedNanos) {
+        if (metrics != null)
+            metrics.recordInvocation(listener, elapsedNanos);
+        if (watchdog != null)
+            watchdog.check(event, listener, budget, elapsedNanos);
+    }
+
+    @Override
+    public <T extends Event> IEventPool<T> pool(Class<T> eventType, Supplier<T> factory) {
+        return createPool(this, eventType, factory);
+    }
+
+    /**
+     * @param owner 池化事件经由其发布的总线
+     */
+    <T extends Event> IEventPool<T> createPool(IEventBus owner, Class<T> eventType, Supplier<T> factory) {
+        if (Modifier.isAbstract(eventType.getModifiers()))
+            throw new IllegalArgumentException("不能为抽象的" + eventType + "创建事件池");
+        //异步分发的事件在发布返回后仍由消费线程持有，回收后会被下一个发布者覆盖
+        if (isRoutedAsync(eventType))
+            throw new IllegalArgumentException("""
+                    不能为%s创建事件池：该类型经环形缓冲区、分区或合并阶段异步分发，发布返回时事件可能尚未分发
+                    """.formatted(eventType));
+        return new EventPool<>(owner, eventType, factory, pooledEventTracker);
+    }
+
+    EventListener[] getListeners(Class<?> eventType) {
+        return getListenList(eventType).getListeners();
+    }
+
+    void handleListenerException(Event event, EventListener[] listeners, int index, Throwable throwable) {
+        report(event, listeners, index, throwable);
+    }
+
+    private void report(Event event, EventListener[] listeners, int index, Throwable throwable) {
+        Throwable[] reported = REPORTED.get();
+        if (reported != null)
+            reported[0] = throwable;
+        exceptionHandler.handleException(this, event, listeners, index, throwable);
+    }
+
+    /**
+     * 开始在当前线程上记录交给异常处理器的异常，由捕获分发异常的调用方(消费线程、合并阶段、事件桥与日志重放)在分发之前调用。
+     * @return 是否由本次调用开始记录，需原样传给{@link #endTracking(boolean)}；外层已在记录时为false
+     */
+    static boolean beginTracking() {
+        if (REPORTED.get() != null)
+            return false;
+        REPORTED.set(new Throwable[1]);
+        return true;
+    }
+
+    /**
+     * @param started {@link #beginTracking()}的返回值
+     */
+    static void endTracking(boolean started) {
+        if (started)
+            REPORTED.remove();
+    }
+
+    /**
+     * 必须在{@link #beginTracking()}与{@link #endTracking(boolean)}之间调用，{@link Error}总是重新抛出。
+     * @return 异常已由异常处理器报告，为false时是发布路径上的其它失败，调用方不应将其静默丢弃
+     */
+    static boolean wasReported(Throwable throwable) {
+        Throwable[] reported = REPORTED.get();
+        Throwable last = null;
+        if (reported != null) {
+            last = reported[0];
+            reported[0] = null;
+        }
+        if (throwable instanceof Error error)
+            throw error;
+        return last == throwable;
+    }
+
+    @Override
+    public IEventBusMetrics getMetrics() {
+        return metrics;
+    }
+
     @Override
     public void handleException(IEventBus bus, Event event, EventListener[] listeners, int index, Throwable throwable) {
         LOGGER.error(EVENTBUS, () -> new EventBusErrorMessage(index, listeners, throwable));
@@ -320,6 +1148,12 @@ public class EventBus implements IEventBus, IEventExceptionHandler {
 
     @Override
     public void start() {
+        if (partitions != null)
+            partitions.start();
+        if (coalescer != null)
+            coalescer.start();
+        if (metrics != null && metricsJmxName != null)
+            metrics.registerMBean(metricsJmxName);
         this.shutdown = false;
     }
 }
@@ -0,0 +1,22 @@
+package com.r3944realms.bus;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 通过JMX暴露的总线分发统计
+ * @see com.r3944realms.bus.api.BusBuilder#exposeMetricsToJmx(String)
+ */
+public interface EventBusMetricsMXBean {
+    /**
+     * @return 事件类名到发布次数的映射
+     */
+    Map<String, Long> getEventPostCounts();
+
+    /**
+     * @return 每个监听器一行的统计摘要，按累计耗时降序排列
+     */
+    List<String> getListenerSummaries();
+
+    void reset();
+}
@@ -0,0 +1,228 @@
+package com.r3944realms.bus;
+
+import com.r3944realms.bus.api.CoalescingStats;
+import com.r3944realms.bus.api.Event;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+import static com.r3944realms.bus.LogMakers.EVENTBUS;
+
+/**
+ * 事件合并阶段。
+ * <p>
+ * 配置了合并的事件类型(及其子类)的事件在发布时不立即分发，而是按合并键暂存：同一窗口内键相同的事件经合并函数合并为一个，
+ * 窗口结束时只有合并的结果按首次出现的顺序经由普通的发布路径分发。窗口从某一类型在上次分发后的第一个事件开始计时，
+ * 由总线自己的定时线程结束；窗口为0的类型只在{@link #flush()}时分发，适合以逻辑帧为边界的调用方。
+ * <p>
+ * 每个类型的分发在该类型的锁内进行，因此定时结束与显式结束的窗口不会交错；暂存只需另一把短暂的锁。
+ */
+final class EventCoalescer {
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    /**
+     * @param windowNanos 窗口长度，为0时只在显式{@link #flush()}时分发
+     */
+    record Spec<T extends Event>(Class<T> eventType, Function<? super T, ?> keyFunction, BinaryOperator<T> merge, long windowNanos) {}
+
+    private final EventBus bus;
+    private final List<Stage<?>> stages = new ArrayList<>();
+    private final ClassValue<Stage<?>> lookup = new ClassValue<>() {
+        @Override
+        @Nullable
+        protected Stage<?> computeValue(Class<?> eventClass) {
+            for (Class<?> type = eventClass; type != null; type = type.getSuperclass()) {
+                for (Stage<?> stage : stages)
+                    if (stage.spec.eventType() == type)
+                        return stage;
+            }
+            return null;
+        }
+    };
+    /**
+     * 仅在持有本对象的锁时修改
+     */
+    @Nullable
+    private volatile ScheduledExecutorService timer;
+    /**
+     * 关闭后不再接受事件，也不再创建定时线程，直到总线重新启动。仅在持有本对象的锁时修改
+     */
+    private volatile boolean closed;
+
+    private final class Stage<T extends Event> {
+        private final Spec<T> spec;
+        /**
+         * 仅在持有{@link #pendingLock}时访问
+         */
+        private LinkedHashMap<Object, T> pending = new LinkedHashMap<>();
+        /**
+         * 当前窗口的序号，显式结束窗口后已安排的定时结束失效
+         */
+        private long window;
+        private boolean scheduled;
+        private final Object pendingLock = new Object();
+        private final LongAdder received = new LongAdder();
+        private final LongAdder dispatched = new LongAdder();
+
+        private Stage(Spec<T> spec) {
+            this.spec = spec;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void offer(Event event) {
+            T typed = (T) event;
+            Object key = spec.keyFunction().apply(typed);
+            received.increment();
+            long scheduleWindow = -1;
+            synchronized (pendingLock) {
+                pending.merge(key, typed, spec.merge());
+                if (spec.windowNanos() > 0 && !scheduled) {
+                    scheduled = true;
+                    scheduleWindow = window;
+                }
+            }
+            if (scheduleWindow >= 0) {
+                long expected = scheduleWindow;
+                try {
+                    timer().schedule(() -> flush(expected), spec.windowNanos(), TimeUnit.NANOSECONDS);
+                } catch (RejectedExecutionException e) {
+                    //与关闭并发：事件留待下一次flush分发，之后的事件可以重新安排窗口
+                    synchronized (pendingLock) {
+                        if (window == expected)
+                            scheduled = false;
+                    }
+                }
+            }
+        }
+
+        /**
+         * @param expected 要结束的窗口序号，为-1时结束当前窗口
+         */
+        private synchronized void flush(long expected) {
+            LinkedHashMap<Object, T> batch;
+            synchronized (pendingLock) {
+                if (expected >= 0 && expected != window)
+                    return;
+                window++;
+                scheduled = false;
+                if (pending.isEmpty())
+                    return;
+                batch = pending;
+                pending = new LinkedHashMap<>();
+            }
+            boolean tracking = EventBus.beginTracking();
+            try {
+                for (T event : batch.values()) {
+                    dispatched.increment();
+                    try {
+                        bus.dispatchCoalesced(event);
+                    } catch (Throwable throwable) {
+                        //监听器的异常已由异常处理器报告，不影响同一窗口的其它事件
+                        if (!EventBus.wasReported(throwable))
+                            LOGGER.error(EVENTBUS, "分发合并后的事件{}失败", event, throwable);
+                    }
+                }
+            } finally {
+                EventBus.endTracking(tracking);
+            }
+        }
+
+        private CoalescingStats stats() {
+            int size;
+            synchronized (pendingLock) {
+                size = pending.size();
+            }
+            return new CoalescingStats(spec.eventType(), received.sum(), dispatched.sum(), size);
+        }
+    }
+
+    EventCoalescer(EventBus bus, List<Spec<?>> specs) {
+        this.bus = bus;
+        for (Spec<?> spec : specs)
+            stages.add(new Stage<>(spec));
+    }
+
+    /**
+     * @return 事件已进入合并阶段或因合并阶段已关闭而被丢弃，为false时应照常发布
+     */
+    boolean offer(Event event) {
+        Stage<?> stage = lookup.get(event.getClass());
+        if (stage == null)
+            return false;
+        if (!closed)
+            stage.offer(event);
+        return true;
+    }
+
+    boolean handles(Class<? extends Event> eventClass) {
+        return lookup.get(eventClass) != null;
+    }
+
+    /**
+     * 立即结束所有类型的当前窗口并分发暂存的事件
+     */
+    void flush() {
+        for (Stage<?> stage : stages)
+            stage.flush(-1);
+    }
+
+    /**
+     * 停止接受事件，分发所有暂存的事件并停止定时线程
+     */
+    void close() {
+        ScheduledExecutorService current;
+        synchronized (this) {
+            closed = true;
+            current = timer;
+            timer = null;
+        }
+        if (current != null)
+            current.shutdownNow();
+        //在定时线程停止之后分发，被取消的定时结束留下的窗口也在此结束
+        flush();
+    }
+
+    /**
+     * 重新接受事件，之后的窗口会重新创建定时线程
+     */
+    synchronized void start() {
+        closed = false;
+    }
+
+    List<CoalescingStats> stats() {
+        List<CoalescingStats> stats = new ArrayList<>(stages.size());
+        for (Stage<?> stage : stages)
+            stats.add(stage.stats());
+        return stats;
+    }
+
+    private ScheduledExecutorService timer() {
+        ScheduledExecutorService current = timer;
+        if (current != null)
+            return current;
+        synchronized (this) {
+            if (closed)
+                throw new RejectedExecutionException("合并阶段已经关闭");
+            if (timer == null) {
+                timer = Executors.newSingleThreadScheduledExecutor(task -> {
+                    Thread thread = new Thread(task, "EventBus-Coalescer");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            return timer;
+        }
+    }
+}
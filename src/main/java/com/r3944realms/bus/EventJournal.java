@@ -0,0 +1,407 @@
+package com.r3944realms.bus;
+
+import com.r3944realms.bus.api.*;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static com.r3944realms.bus.LogMakers.EVENTBUS;
+
+/**
+ * {@link IEventJournal}的实现。
+ * <p>
+ * 日志段的文件名是十进制的序号，头部为魔数、版本与所属会话的开始时刻(纪元纳秒)，之后是8字节对齐的记录：长度(int)、类型(int)、记录时刻(long)、内容。
+ * 长度在记录的其余部分写完后最后写入，新映射的文件内容为0，因此长度为0的位置就是日志的末尾，进程崩溃时写了一半的记录不会被读到；
+ * 日志段末尾放不下下一条记录时写入一个{@link #END}标记，读取从下一个日志段继续。
+ * <p>
+ * 发布者的线程把事件编码到线程本地的缓冲区，复制出内容放入有界队列；写入线程每次取走队列中的所有记录(至多{@link #MAX_BATCH}条)一起写入。
+ */
+public final class EventJournal {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final int MAX_RECORD = 1 << 16;
+    private static final int MIN_SEGMENT_SIZE = 1 << 20;
+    private static final int QUEUE_CAPACITY = 1 << 16;
+    private static final int MAX_BATCH = 1024;
+    private static final int MAGIC = 0x45424A4C;
+    private static final int VERSION = 1;
+    private static final int SESSION_OFFSET = 8;
+    private static final int DATA_OFFSET = 64;
+    private static final int RECORD_HEADER = 16;
+    private static final int END = -1;
+    private static final String SUFFIX = ".journal";
+
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+    private static final ThreadLocal<ByteBuffer> SCRATCH = ThreadLocal.withInitial(() -> ByteBuffer.allocate(MAX_RECORD));
+
+    private EventJournal() {
+    }
+
+    public static IEventJournal record(IEventBus bus, Path directory, boolean beforeDispatch, int segmentSize, List<? extends IEventCodec<?>> codecs) throws IOException {
+        if (segmentSize < MIN_SEGMENT_SIZE)
+            throw new IllegalArgumentException("日志段的大小不能小于" + MIN_SEGMENT_SIZE + "：" + segmentSize);
+        Map<Integer, IEventCodec<?>> types = MappedEventBridge.typeIds(codecs);
+        Files.createDirectories(directory);
+        return new Recorder(bus, directory, beforeDispatch, segmentSize, types);
+    }
+
+    public static long replay(Path directory, IEventBus bus, List<? extends IEventCodec<?>> codecs, ReplayPace pace) throws IOException {
+        boolean tracking = EventBus.beginTracking();
+        try {
+            return replaySegments(directory, bus, codecs, pace);
+        } finally {
+            EventBus.endTracking(tracking);
+        }
+    }
+
+    private static long replaySegments(Path directory, IEventBus bus, List<? extends IEventCodec<?>> codecs, ReplayPace pace) throws IOException {
+        Map<Integer, IEventCodec<?>> types = MappedEventBridge.typeIds(codecs);
+        long replayed = 0;
+        long skipped = 0;
+        long firstTimestamp = 0;
+        long start = 0;
+        long session = 0;
+        boolean rebase = true;
+        for (Path segment : segments(directory)) {
+            ByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.nativeOrder());
+            }
+            if (buffer.capacity() < DATA_OFFSET || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                LOGGER.warn(EVENTBUS, "跳过无法识别的日志段{}", segment);
+                continue;
+            }
+            //每次打开日志都从新的会话开始，会话之间的停机时间不计入重放的间隔
+            long segmentSession = buffer.getLong(SESSION_OFFSET);
+            if (segmentSession != session) {
+                session = segmentSession;
+                rebase = true;
+            }
+            int offset = DATA_OFFSET;
+            while (offset + RECORD_HEADER <= buffer.capacity()) {
+                int length = buffer.getInt(offset);
+                if (length <= 0 || offset + RECORD_HEADER + length > buffer.capacity())
+                    break;
+                int type = buffer.getInt(offset + 4);
+                long timestamp = buffer.getLong(offset + 8);
+                ByteBuffer payload = buffer.slice(offset + RECORD_HEADER, length).asReadOnlyBuffer().order(ByteOrder.BIG_ENDIAN);
+                offset += align(RECORD_HEADER + length);
+                IEventCodec<?> codec = types.get(type);
+                Event event = null;
+                if (codec != null) {
+                    try {
+                        event = codec.decode(payload);
+                    } catch (RuntimeException e) {
+                        LOGGER.warn(EVENTBUS, "编解码器{}无法解码日志段{}中的事件", codec, segment, e);
+                    }
+                }
+                if (event == null) {
+                    skipped++;
+                    continue;
+                }
+                if (rebase) {
+                    firstTimestamp = timestamp;
+                    start = System.nanoTime();
+                    rebase = false;
+                } else if (pace == ReplayPace.ORIGINAL_TIMING) {
+                    long due = start + (timestamp - firstTimestamp);
+                    for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime())
+                        LockSupport.parkNanos(wait);
+                }
+                replayed++;
+                try {
+                    bus.post(event);
+                } catch (Throwable throwable) {
+                    //监听器的异常已由总线的异常处理器报告，不中断重放
+                    if (!EventBus.wasReported(throwable))
+                        throw throwable;
+                }
+            }
+        }
+        if (skipped > 0)
+            LOGGER.warn(EVENTBUS, "重放{}时跳过了{}条类型未知或无法解码的记录", directory, skipped);
+        return replayed;
+    }
+
+    /**
+     * @return 目录中按序号排列的日志段
+     */
+    private static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory))
+            return List.of();
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> sequence(file) >= 0).sorted((a, b) -> Long.compare(sequence(a), sequence(b))).toList();
+        }
+    }
+
+    /**
+     * @return 日志段的序号，不是日志段时为-1
+     */
+    private static long sequence(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.endsWith(SUFFIX))
+            return -1;
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static int align(int size) {
+        return (size + 7) & ~7;
+    }
+
+    /**
+     * @param timestamp 纪元纳秒
+     */
+    private record Entry(int type, long timestamp, byte[] payload) {
+    }
+
+    private static final class Recorder implements IEventJournal, Runnable {
+        private static final Entry STOP = new Entry(0, 0, new byte[0]);
+
+        private final IEventBus bus;
+        private final Path directory;
+        private final int segmentSize;
+        private final List<Consumer<?>> recorders = new ArrayList<>();
+        private final BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private final Thread writer;
+        /**
+         * 以{@link System#nanoTime()}的精度换算纪元纳秒
+         */
+        private final long epochBase;
+        private final long nanoBase;
+        private final LongAdder recorded = new LongAdder();
+        private final LongAdder producerWaits = new LongAdder();
+        private final LongAdder codecErrors = new LongAdder();
+        private volatile boolean encodeFailureLogged;
+        private volatile boolean closed;
+        /**
+         * 写入映射的页面时发生了{@link Error}(例如磁盘已满时的总线错误)，写入线程已经停止
+         */
+        private volatile boolean failed;
+        /**
+         * 以下字段只在持有本对象的锁时访问
+         */
+        private long nextSequence;
+        private MappedByteBuffer segment;
+        private int offset;
+        private boolean writeFailureLogged;
+        /**
+         * 只由写入线程更新
+         */
+        private volatile int segments;
+        /**
+         * 由写入线程在写完一批后更新
+         */
+        private volatile long written;
+
+        private Recorder(IEventBus bus, Path directory, boolean beforeDispatch, int segmentSize, Map<Integer, IEventCodec<?>> codecs) throws IOException {
+            this.bus = bus;
+            this.directory = directory;
+            this.segmentSize = segmentSize;
+            this.nanoBase = System.nanoTime();
+            this.epochBase = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+            List<Path> existing = segments(directory);
+            this.nextSequence = existing.isEmpty() ? 0 : sequence(existing.get(existing.size() - 1)) + 1;
+            synchronized (this) {
+                roll();
+            }
+            this.writer = new Thread(this, "EventBus-Journal-" + directory.getFileName());
+            writer.setDaemon(true);
+            writer.start();
+            codecs.forEach((type, codec) -> attach(type, codec, beforeDispatch));
+        }
+
+        private <T extends Event> void attach(int type, IEventCodec<T> codec, boolean beforeDispatch) {
+            Consumer<T> recorder = event -> record(type, codec, event);
+            if (beforeDispatch)
+                bus.addListener(EventPriority.HIGHEST, true, codec.eventType(), recorder);
+            else
+                bus.addListener(EventPriority.LOWEST, codec.eventType(), recorder);
+            recorders.add(recorder);
+        }
+
+        private <T extends Event> void record(int type, IEventCodec<T> codec, T event) {
+            if (closed || failed)
+                return;
+            long timestamp = epochBase + (System.nanoTime() - nanoBase);
+            ByteBuffer scratch = SCRATCH.get();
+            scratch.clear();
+            try {
+                codec.encode(event, scratch);
+            } catch (RuntimeException e) {
+                codecErrors.increment();
+                if (!encodeFailureLogged) {
+                    encodeFailureLogged = true;
+                    LOGGER.error(EVENTBUS, "编解码器{}无法编码事件{}，之后的失败只计入统计", codec, event, e);
+                }
+                return;
+            }
+            byte[] payload = new byte[scratch.position()];
+            scratch.flip().get(payload);
+            Entry entry = new Entry(type, timestamp, payload);
+            if (!queue.offer(entry)) {
+                producerWaits.increment();
+                try {
+                    while (!queue.offer(entry, 10, TimeUnit.MILLISECONDS)) {
+                        //写入线程已经停止时队列不会再被取走
+                        if (closed || !writer.isAlive())
+                            return;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            recorded.increment();
+        }
+
+        @Override
+        public void run() {
+            List<Entry> batch = new ArrayList<>(MAX_BATCH);
+            boolean stopping = false;
+            while (!stopping) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    continue;
+                }
+                queue.drainTo(batch, MAX_BATCH - 1);
+                int count = 0;
+                synchronized (this) {
+                    for (Entry entry : batch) {
+                        if (entry == STOP) {
+                            stopping = true;
+                            continue;
+                        }
+                        if (!write(entry)) {
+                            stopping = true;
+                            break;
+                        }
+                        count++;
+                    }
+                }
+                written += count;
+                batch.clear();
+            }
+            if (failed)
+                queue.clear();
+        }
+
+        /**
+         * 写入一条记录，日志段放不下时先创建下一个日志段。写入失败的记录被丢弃，之后的记录仍会尝试写入；
+         * 访问映射的页面时发生{@link Error}则停止记录
+         * @return 为false时写入线程应停止
+         */
+        private boolean write(Entry entry) {
+            int size = align(RECORD_HEADER + entry.payload().length);
+            try {
+                if (segment == null || offset + size > segmentSize) {
+                    if (segment != null && offset + 4 <= segmentSize)
+                        INTS.setRelease(segment, offset, END);
+                    roll();
+                }
+                segment.putInt(offset + 4, entry.type());
+                segment.putLong(offset + 8, entry.timestamp());
+                segment.put(offset + RECORD_HEADER, entry.payload());
+                INTS.setRelease(segment, offset, entry.payload().length);
+                offset += size;
+            } catch (IOException | RuntimeException e) {
+                if (!writeFailureLogged) {
+                    writeFailureLogged = true;
+                    LOGGER.error(EVENTBUS, "无法写入事件日志{}，之后的失败不再记录", directory, e);
+                }
+            } catch (Error e) {
+                failed = true;
+                LOGGER.error(EVENTBUS, "写入事件日志{}的映射页面时发生错误，停止记录", directory, e);
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * 把当前日志段写回存储设备并创建下一个日志段
+         */
+        private void roll() throws IOException {
+            if (segment != null)
+                segment.force();
+            segment = null;
+            Path file = directory.resolve("%020d%s".formatted(nextSequence++, SUFFIX));
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+                mapped.order(ByteOrder.nativeOrder());
+                mapped.putInt(4, VERSION);
+                mapped.putLong(SESSION_OFFSET, epochBase);
+                INTS.setRelease(mapped, 0, MAGIC);
+                segment = mapped;
+            }
+            offset = DATA_OFFSET;
+            segments++;
+        }
+
+        @Override
+        public void flush() {
+            if (Thread.currentThread() == writer)
+                throw new IllegalStateException("不能在日志的写入线程中等待写入完成");
+            long target = recorded.sum();
+            while (written < target && writer.isAlive())
+                LockSupport.parkNanos(this, 100_000L);
+            synchronized (this) {
+                if (segment != null && !failed)
+                    segment.force();
+            }
+        }
+
+        @Override
+        public JournalStats stats() {
+            return new JournalStats(recorded.sum(), written, segments, producerWaits.sum(), codecErrors.sum());
+        }
+
+        @Override
+        public void close() {
+            if (closed)
+                return;
+            closed = true;
+            //先停止写入线程，取消监听失败时也不会留下线程与映射
+            if (Thread.currentThread() != writer) {
+                try {
+                    while (writer.isAlive() && !queue.offer(STOP, 10, TimeUnit.MILLISECONDS)) {
+                    }
+                    writer.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                synchronized (this) {
+                    if (segment != null && !failed)
+                        segment.force();
+                }
+            }
+            try {
+                recorders.forEach(bus::unregister);
+            } catch (IllegalStateException e) {
+                //冻结的总线不能取消监听，关闭后记录器不再记录任何事件
+            }
+        }
+    }
+}
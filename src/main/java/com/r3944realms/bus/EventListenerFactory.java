@@ -31,7 +31,7 @@ public class EventListenerFactory implements Opcodes {
     private static final ConstantDynamic METHOD_CONSTANT = new ConstantDynamic(
             ConstantDescs.DEFAULT_NAME,
             MethodHandle.class.descriptorString(),
-            new Handle(H_INVOKESTATIC, Type.getInternalName(MethodHandle.class), "classData",
+            new Handle(H_INVOKESTATIC, Type.getInternalName(MethodHandles.class), "classData",
                     MethodType.methodType(
                             Object.class,
                             MethodHandles.Lookup.class,
@@ -39,7 +39,8 @@ public class EventListenerFactory implements Opcodes {
                             Class.class
                     ).descriptorString(), false));
 
-    private static final LockHelper<Method, MethodHandle> eventListenerFactories = LockHelper.withHashMap();
+    private static final ConcurrentLookup<Method, MethodHandle> eventListenerFactories = new ConcurrentLookup<>();
+    private static final ConcurrentLookup<Method, MethodHandle> invokers = new ConcurrentLookup<>();
 
     private static MethodHandle getEventListenerFactory(Method m) {
         return eventListenerFactories.computeIfAbsent(m, EventListenerFactory::createWrapper0);
@@ -72,7 +73,7 @@ public class EventListenerFactory implements Opcodes {
         if (!isStatic)
             cv.visitField(ACC_PRIVATE | ACC_FINAL, "instance", "Ljava/lang/Object;", null, null).visitEnd();
         {
-            MethodVisitor mv = cv.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+            MethodVisitor mv = cv.visitMethod(ACC_PUBLIC, "<init>", isStatic ? "()V" : "(Ljava/lang/Object;)V", null, null);
             mv.visitCode();
             mv.visitVarInsn(ALOAD, 0);
             mv.visitMethodInsn(INVOKESPECIAL, HANDLER_DESC, "<init>", "()V", false);
@@ -107,6 +108,20 @@ public class EventListenerFactory implements Opcodes {
         return cv.toByteArray();
     }
 
+    /**
+     * @return 以{@code (Object, Event)void}调用实例方法的句柄，供不持有对象的{@link WeakEventListener}使用
+     */
+    static MethodHandle getInvoker(Method callback) {
+        return invokers.computeIfAbsent(callback, method -> {
+            try {
+                method.setAccessible(true);
+                return LOOKUP.unreflect(method).asType(INSTANCE_HANDLER);
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException("Failed to create listener", e);
+            }
+        });
+    }
+
     public static EventListener create(Method callback, Object target) {
         try {
             var factory = getEventListenerFactory(callback);
@@ -0,0 +1,63 @@
+package com.r3944realms.bus;
+
+import com.r3944realms.bus.api.Event;
+import com.r3944realms.bus.api.IEventBus;
+import com.r3944realms.bus.api.IEventPool;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.function.Supplier;
+
+final class EventPool<T extends Event> implements IEventPool<T> {
+    /**
+     * 每个线程最多缓存的空闲事件数量，超出部分交给垃圾回收
+     */
+    static final int MAX_POOLED_PER_THREAD = 256;
+
+    private final IEventBus bus;
+    private final Class<T> eventType;
+    private final Supplier<T> factory;
+    private final ThreadLocal<ArrayDeque<T>> pool = ThreadLocal.withInitial(ArrayDeque::new);
+    @Nullable
+    private final PooledEventTracker tracker;
+
+    EventPool(IEventBus bus, Class<T> eventType, Supplier<T> factory, @Nullable PooledEventTracker tracker) {
+        this.bus = bus;
+        this.eventType = eventType;
+        this.factory = factory;
+        this.tracker = tracker;
+    }
+
+    @Override
+    public T acquire() {
+        //调试模式下不复用事件，回收的事件交给追踪器观察
+        T event = tracker == null ? pool.get().pollLast() : null;
+        if (event == null) {
+            event = factory.get();
+            if (event.getClass() != eventType)
+                throw new IllegalStateException("事件池的工厂返回了" + event.getClass() + "，而不是" + eventType);
+        }
+        return event;
+    }
+
+    @Override
+    public void post(T event) {
+        try {
+            bus.post(event);
+        } finally {
+            release(event);
+        }
+    }
+
+    @Override
+    public void release(T event) {
+        event.reset();
+        if (tracker != null) {
+            tracker.released(event);
+            return;
+        }
+        ArrayDeque<T> free = pool.get();
+        if (free.size() < MAX_POOLED_PER_THREAD)
+            free.addLast(event);
+    }
+}
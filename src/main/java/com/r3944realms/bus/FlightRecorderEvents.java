@@ -0,0 +1,248 @@
+package com.r3944realms.bus;
+
+import com.r3944realms.bus.api.Event;
+import com.r3944realms.bus.api.EventListener;
+import com.r3944realms.bus.api.EventPriority;
+import com.r3944realms.bus.api.ICancellableEvent;
+import jdk.jfr.*;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
+
+import static com.r3944realms.bus.LogMakers.EVENTBUS;
+
+/**
+ * 总线向Java Flight Recorder提交的事件。
+ * <p>
+ * 每种事件的开关、阈值与是否记录调用栈都可以在JFR的设置中按事件名覆盖，默认值见各事件的注解。
+ * 发布路径只读取缓存的开关状态，未录制或事件被禁用时不创建事件对象也不计时；
+ * 字段只在{@code shouldCommit()}之后填充，因此低于阈值的发布也不会产生分配。
+ * <p>
+ * 开关状态在录制开始或结束时刷新，录制期间修改的设置由{@link StateCheck}至多一秒后刷新。
+ */
+final class FlightRecorderEvents {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final String CATEGORY = "EventBus";
+    private static volatile boolean recordingPosts;
+    private static volatile boolean tracingListeners;
+
+    static {
+        refresh();
+        try {
+            FlightRecorder.addListener(new FlightRecorderListener() {
+                @Override
+                public void recordingStateChanged(Recording recording) {
+                    refresh();
+                }
+            });
+            FlightRecorder.addPeriodicEvent(StateCheck.class, FlightRecorderEvents::refresh);
+        } catch (RuntimeException e) {
+            LOGGER.debug(EVENTBUS, "无法监听JFR的录制状态，总线只在启动时读取一次事件开关", e);
+        }
+    }
+
+    private FlightRecorderEvents() {
+    }
+
+    @Name("com.r3944realms.bus.Post")
+    @Label("事件发布")
+    @Description("一次事件发布从第一个监听器开始到最后一个监听器返回的耗时")
+    @Category(CATEGORY)
+    @Threshold("1 ms")
+    static final class Post extends jdk.jfr.Event {
+        @Label("事件类型")
+        Class<?> eventClass;
+        @Label("监听器数量")
+        int listenerCount;
+        @Label("事件数量")
+        @Description("批量发布时同一次分发的同类事件数量，单个发布时为1")
+        int batchSize;
+        @Label("已取消")
+        @Description("分发结束时事件处于取消状态，批量发布时为其中任一事件")
+        boolean canceled;
+
+        void complete(Event event, int listenerCount) {
+            end();
+            if (shouldCommit()) {
+                this.eventClass = event.getClass();
+                this.listenerCount = listenerCount;
+                this.batchSize = 1;
+                this.canceled = isCanceled(event);
+                commit();
+            }
+        }
+
+        void complete(Event[] events, int from, int to, int listenerCount) {
+            end();
+            if (shouldCommit()) {
+                this.eventClass = events[from].getClass();
+                this.listenerCount = listenerCount;
+                this.batchSize = to - from;
+                for (int i = from; i < to && !canceled; i++)
+                    this.canceled = isCanceled(events[i]);
+                commit();
+            }
+        }
+    }
+
+    @Name("com.r3944realms.bus.ListenerInvocation")
+    @Label("监听器调用")
+    @Description("单个监听器处理一个事件的耗时，开销较大，默认禁用")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @Threshold("1 ms")
+    @StackTrace(false)
+    static final class ListenerInvocation extends jdk.jfr.Event {
+        @Label("事件类型")
+        Class<?> eventClass;
+        @Label("监听器")
+        String listener;
+
+        void complete(Event event, EventListener listener) {
+            end();
+            if (shouldCommit()) {
+                this.eventClass = event.getClass();
+                this.listener = listener.toString();
+                commit();
+            }
+        }
+    }
+
+    @Name("com.r3944realms.bus.Registration")
+    @Label("监听器注册")
+    @Description("向监听器列表添加一个监听器，包含随之进行的快照重建")
+    @Category(CATEGORY)
+    static final class Registration extends jdk.jfr.Event {
+        @Label("事件类型")
+        Class<?> eventClass;
+        @Label("监听器")
+        String listener;
+        @Label("优先级")
+        String priority;
+        @Label("按键注册")
+        boolean keyed;
+
+        void complete(Class<?> eventClass, EventListener listener, EventPriority priority, boolean keyed) {
+            end();
+            if (shouldCommit()) {
+                this.eventClass = eventClass;
+                this.listener = listener.toString();
+                this.priority = priority.name();
+                this.keyed = keyed;
+                commit();
+            }
+        }
+    }
+
+    @Name("com.r3944realms.bus.Unregistration")
+    @Label("监听器取消注册")
+    @Description("取消注册一个对象的所有监听器")
+    @Category(CATEGORY)
+    static final class Unregistration extends jdk.jfr.Event {
+        @Label("对象类型")
+        Class<?> targetClass;
+        @Label("监听器列表数量")
+        int listenerLists;
+
+        void complete(Object target, int listenerLists) {
+            end();
+            if (shouldCommit()) {
+                this.targetClass = target.getClass();
+                this.listenerLists = listenerLists;
+                commit();
+            }
+        }
+    }
+
+    @Name("com.r3944realms.bus.RegistrationCommit")
+    @Label("注册事务提交")
+    @Description("提交一个注册事务中暂存的修改")
+    @Category(CATEGORY)
+    static final class RegistrationCommit extends jdk.jfr.Event {
+        @Label("注册的对象数量")
+        int registered;
+        @Label("取消注册的对象数量")
+        int unregistered;
+        @Label("修改的监听器列表数量")
+        int listenerLists;
+
+        void complete(int registered, int unregistered, int listenerLists) {
+            end();
+            if (shouldCommit()) {
+                this.registered = registered;
+                this.unregistered = unregistered;
+                this.listenerLists = listenerLists;
+                commit();
+            }
+        }
+    }
+
+    @Name("com.r3944realms.bus.ListenerListRebuild")
+    @Label("监听器列表重建")
+    @Description("监听器变化后重建受影响的监听器列表及其子孙列表的快照")
+    @Category(CATEGORY)
+    static final class Rebuild extends jdk.jfr.Event {
+        @Label("事件类型")
+        @Description("发生变化的列表的事件类型，一次提交修改了多个列表时为空")
+        Class<?> eventClass;
+        @Label("变化的列表数量")
+        int changedLists;
+        @Label("重建的列表数量")
+        int rebuiltLists;
+
+        void complete(@Nullable Class<?> eventClass, int changedLists, int rebuiltLists) {
+            end();
+            if (shouldCommit()) {
+                this.eventClass = eventClass;
+                this.changedLists = changedLists;
+                this.rebuiltLists = rebuiltLists;
+                commit();
+            }
+        }
+    }
+
+    @Name("com.r3944realms.bus.RecordingStateCheck")
+    @Label("录制状态检查")
+    @Description("内部使用，从不提交：周期性地刷新总线缓存的事件开关，使录制期间修改的设置生效")
+    @Category(CATEGORY)
+    @Period("1 s")
+    @StackTrace(false)
+    static final class StateCheck extends jdk.jfr.Event {
+    }
+
+    private static void refresh() {
+        recordingPosts = new Post().isEnabled();
+        tracingListeners = new ListenerInvocation().isEnabled();
+    }
+
+    /**
+     * @return 发布事件正在被录制，发布应被包装在{@link Post}中；编译分发器与快速路径仍然可用
+     */
+    static boolean recordingPosts() {
+        return recordingPosts;
+    }
+
+    /**
+     * @return 监听器调用事件正在被录制，此时发布应经过逐个调用监听器的路径而不是编译分发器或去掉包装的快速路径
+     */
+    static boolean tracingListeners() {
+        return tracingListeners;
+    }
+
+    /**
+     * 调用监听器并提交一个{@link ListenerInvocation}
+     */
+    static void invoke(Event event, EventListener listener) {
+        ListenerInvocation recording = new ListenerInvocation();
+        recording.begin();
+        try {
+            listener.invoke(event);
+        } finally {
+            recording.complete(event, listener);
+        }
+    }
+
+    private static boolean isCanceled(Event event) {
+        return event instanceof ICancellableEvent cancellable && cancellable.isCanceled();
+    }
+}
@@ -0,0 +1,197 @@
+package com.r3944realms.bus;
+
+import com.r3944realms.bus.api.*;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 由{@link EventBus#freeze()}返回的冻结视图。
+ * <p>
+ * 冻结后监听器不再变化，因此每个事件类型的分发方式只需在首次发布时确定一次并缓存在{@link ClassValue}中：
+ * 类型检查在此时完成，监听器快照或{@link CompiledDispatcher 编译分发器}被固定下来。
+ * {@link #post(Event)}只剩一次关闭状态的读取、一次按类查找与一次调用，不再读取监听器列表的快照。
+ * 其它发布方法与生命周期方法委托给原总线。
+ */
+final class FrozenEventBus implements IEventBus {
+    private final EventBus bus;
+    private final ClassValue<Consumer<Event>> routes = new ClassValue<>() {
+        @Override
+        @SuppressWarnings("unchecked")
+        protected Consumer<Event> computeValue(Class<?> eventClass) {
+            return bus.frozenRoute((Class<? extends Event>) eventClass);
+        }
+    };
+
+    FrozenEventBus(EventBus bus) {
+        this.bus = bus;
+    }
+
+    @Override
+    public <T extends Event> T post(T event) {
+        if (bus.isShutdown())
+            return event;
+        routes.get(event.getClass()).accept(event);
+        return event;
+    }
+
+    @Override
+    public <T extends Event> T post(EventPriority priority, T event) {
+        return bus.post(priority, event);
+    }
+
+    @Override
+    public <T extends Event> CompletableFuture<T> postAsync(T event) {
+        return bus.postAsync(event);
+    }
+
+    @Override
+    public <T extends Event> void postAll(Collection<? extends T> events) {
+        bus.postAll(events);
+    }
+
+    @Override
+    public <T extends Event> T[] postBatch(Class<T> eventType, T[] events) {
+        return bus.postBatch(eventType, events);
+    }
+
+    @Override
+    public <T extends Event> IEventPool<T> pool(Class<T> eventType, Supplier<T> factory) {
+        return bus.createPool(this, eventType, factory);
+    }
+
+    @Override
+    public IEventBus freeze() {
+        return this;
+    }
+
+    @Override
+    public void flush() {
+        bus.flush();
+    }
+
+    @Override
+    public void drain() {
+        bus.drain();
+    }
+
+    @Override
+    public void close() {
+        bus.close();
+    }
+
+    @Override
+    public void start() {
+        bus.start();
+    }
+
+    @Override
+    public List<LaneStats> getLaneStats() {
+        return bus.getLaneStats();
+    }
+
+    @Override
+    public List<CoalescingStats> getCoalescingStats() {
+        return bus.getCoalescingStats();
+    }
+
+    @Override
+    @Nullable
+    public IEventBusMetrics getMetrics() {
+        return bus.getMetrics();
+    }
+
+    @Override
+    public void register(Object target) {
+        throw EventBus.frozen();
+    }
+
+    @Override
+    public void registerWeak(Object target) {
+        throw EventBus.frozen();
+    }
+
+    @Override
+    public void unregister(Object target) {
+        throw EventBus.frozen();
+    }
+
+    @Override
+    public IRegistrationBatch batchRegister() {
+        throw EventBus.frozen();
+    }
+
+    @Override
+    public <T extends Event> void addListener(Consumer<T> consumer) {
+        throw EventBus.frozen();
+    }
+
+    @Override
+    public <T extends Event> void addListener(Class<T> eventType, Consumer<T> consumer) {
+        throw EventBus.frozen();
+    }
+
+    @Override
+    public <T extends Event> void addListener(EventPriority priority, Consumer<T> consumer) {
+        throw EventBus.frozen();
+    }
+
+    @Override
+    public <T extends Event> void addListener(EventPriority priority, Class<T> eventType, Consumer<T> consumer) {
+        throw EventBus.frozen();
+    }
+
+    @Override
+    public <T extends Event> void addListener(EventPriority priority, boolean receiveCanceled, Consumer<T> consumer) {
+        throw EventBus.frozen();
+    }
+
+    @Override
+    public <T extends Event> void addListener(EventPriority priority, boolean receiveCanceled, Class<T> eventType, Consumer<T> consumer) {
+        throw EventBus.frozen();
+    }
+
+    @Override
+    public <T extends Event> void addListener(boolean receiveCanceled, Consumer<T> consumer) {
+        throw EventBus.frozen();
+    }
+
+    @Override
+    public <T extends Event> void addListener(boolean receiveCanceled, Class<T> eventType, Consumer<T> consumer) {
+        throw EventBus.frozen();
+    }
+
+    @Override
+    public <T extends GenericEvent<? extends F>, F> void addGenericListener(Class<F> genericClassFilter, Consumer<T> consumer) {
+        throw EventBus.frozen();
+    }
+
+    @Override
+    public <T extends GenericEvent<? extends F>, F> void addGenericListener(Class<F> genericClassFilter, EventPriority priority, boolean receiveCanceled, Class<T> eventType, Consumer<T> consumer) {
+        throw EventBus.frozen();
+    }
+
+    @Override
+    public <T> void addInterfaceListener(Class<T> eventInterface, Consumer<T> consumer) {
+        throw EventBus.frozen();
+    }
+
+    @Override
+    public <T> void addInterfaceListener(EventPriority priority, boolean receiveCanceled, Class<T> eventInterface, Consumer<T> consumer) {
+        throw EventBus.frozen();
+    }
+
+    @Override
+    public <T extends Event & IKeyedEvent> void addListener(Class<T> eventType, Object key, Consumer<T> consumer) {
+        throw EventBus.frozen();
+    }
+
+    @Override
+    public <T extends Event & IKeyedEvent> void addListener(EventPriority priority, boolean receiveCanceled, Class<T> eventType, Object key, Consumer<T> consumer) {
+        throw EventBus.frozen();
+    }
+}
@@ -1,6 +1,22 @@
 package com.r3944realms.bus;
 
 import com.r3944realms.bus.api.EventListener;
+import org.jetbrains.annotations.Nullable;
 
 public abstract non-sealed class GeneratedEventListener extends EventListener {
+    /**
+     * 生成的类没有可读的名称，由包装它的{@link SubscribeEventListener}提供，
+     * 使去掉包装后的快照在异常报告、统计与JFR事件中仍能指出对应的方法
+     */
+    @Nullable
+    private String description;
+
+    void describe(String description) {
+        this.description = description;
+    }
+
+    @Override
+    public String toString() {
+        return description == null ? super.toString() : description;
+    }
 }
@@ -0,0 +1,63 @@
+package com.r3944realms.bus;
+
+import com.r3944realms.bus.api.GenericEvent;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.*;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 从订阅方法的参数类型中解析{@link GenericEvent}的类型参数
+ */
+final class GenericTypes {
+    private GenericTypes() {}
+
+    /**
+     * 沿父类链把参数类型中的实际类型参数代入，直到{@link GenericEvent}
+     * @param parameterType 订阅方法的泛型参数类型
+     * @return {@link GenericEvent}的类型参数的原始类型，参数类型不是泛型事件、为原始类型或类型参数为通配符/类型变量时返回null
+     */
+    @Nullable
+    static Class<?> resolveTypeArgument(Type parameterType) {
+        if (!(parameterType instanceof ParameterizedType parameterized))
+            return null;
+        Class<?> type = (Class<?>) parameterized.getRawType();
+        if (!GenericEvent.class.isAssignableFrom(type))
+            return null;
+        Map<TypeVariable<?>, Type> bindings = bind(type, parameterized, Map.of());
+        while (type != GenericEvent.class) {
+            Type superType = type.getGenericSuperclass();
+            type = type.getSuperclass();
+            //父类为原始类型时类型参数被擦除
+            if (!(superType instanceof ParameterizedType superParameterized))
+                return null;
+            bindings = bind(type, superParameterized, bindings);
+        }
+        return rawType(bindings.get(GenericEvent.class.getTypeParameters()[0]));
+    }
+
+    private static Map<TypeVariable<?>, Type> bind(Class<?> type, ParameterizedType parameterized, Map<TypeVariable<?>, Type> outer) {
+        TypeVariable<?>[] variables = type.getTypeParameters();
+        Type[] arguments = parameterized.getActualTypeArguments();
+        Map<TypeVariable<?>, Type> bindings = new HashMap<>();
+        for (int i = 0; i < variables.length; i++) {
+            Type argument = arguments[i];
+            bindings.put(variables[i], argument instanceof TypeVariable<?> variable ? outer.get(variable) : argument);
+        }
+        return bindings;
+    }
+
+    @Nullable
+    private static Class<?> rawType(@Nullable Type type) {
+        if (type instanceof Class<?> clazz)
+            return clazz;
+        if (type instanceof ParameterizedType parameterized)
+            return (Class<?>) parameterized.getRawType();
+        if (type instanceof GenericArrayType array) {
+            Class<?> component = rawType(array.getGenericComponentType());
+            return component == null ? null : component.arrayType();
+        }
+        return null;
+    }
+}
@@ -7,4 +7,11 @@ import com.r3944realms.bus.api.EventListener;
  */
 public interface IWrapperListener {
     EventListener getWithoutCheck();
+
+    /**
+     * @return 包装的检查是否仍会把已取消的事件交给内部监听器
+     */
+    default boolean receivesCanceled() {
+        return false;
+    }
 }
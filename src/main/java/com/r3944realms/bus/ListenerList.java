@@ -3,139 +3,675 @@ package com.r3944realms.bus;
 import com.r3944realms.bus.api.EventListener;
 import com.r3944realms.bus.api.EventPriority;
 import com.r3944realms.bus.api.ICancellableEvent;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.concurrent.Semaphore;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
 
+/**
+ * 某一事件类型的监听器列表。
+ * <p>
+ * 写入方（注册与取消注册）在写锁内替换每个优先级的不可变数组，随后重新构建并原子地发布本列表及所有子列表的快照；
+ * 读取方（{@link #getListeners()}与{@link #getPrePhaseListeners(EventPriority)}）只做一次volatile读取，既不加锁也不做重建。
+ * <p>
+ * 父列表包括父类与直接实现的接口的列表，因此列表之间构成有向无环图。每个列表的快照由自身及所有祖先列表的监听器
+ * 直接展开得到，经多条路径继承的同一祖先只计入一次，发布时仍只需遍历一个数组。
+ * <p>
+ * 按键注册的监听器单独按键索引，只有发布带有该键的{@link com.r3944realms.bus.api.IKeyedEvent}时才会被调用。
+ * 写入方只为每个键维护本列表及祖先列表中该键的监听器，全局监听器的修改不涉及任何键；
+ * 某个键的完整快照在发布时与当前的全局快照合并，并按全局快照缓存，全局快照不变时按键发布只做volatile读取。
+ * 同一次提交对全局监听器与按键监听器的修改在{@link #publication}的写锁内一起发布，按键发布以乐观读取同时读取两者，
+ * 因此不会看到只完成一半的提交。
+ */
 public class ListenerList {
-    private boolean rebuild = true;
-    private final AtomicReference<EventListener[]> listeners = new AtomicReference<>();
-    private final AtomicReference<EventListener[][]> prePhaseListeners = new AtomicReference<>();
-    private final ArrayList<ArrayList<EventListener>> priorities;
-    private ListenerList parent;
-    private List<ListenerList> children;
-    private final Semaphore writeLock = new Semaphore(1, true);
+    private static final EventListener[] EMPTY = new EventListener[0];
+    private static final int PRIORITY_COUNT = EventPriority.values().length;
+
+    /**
+     * 同一总线的所有列表共享一把写锁：接口把不同的继承树连接在一起，一个列表的修改可能影响任意多棵树中的子列表
+     */
+    private final Object writeLock;
+    private final Class<?> eventClass;
+    /**
+     * 本列表自身注册的监听器，每个优先级一个不可变数组，仅在持有写锁时替换
+     */
+    private final EventListener[][] priorities;
+    /**
+     * 本列表及所有祖先列表，每个列表只出现一次，顺序为本列表、父类的祖先、各接口的祖先
+     */
+    private final ListenerList[] lineage;
+    /**
+     * 仅在持有写锁时访问
+     */
+    private final List<ListenerList> children = new ArrayList<>(2);
     private final boolean canUnwrapListeners;
+    /**
+     * 启用了统计或监视的总线需要报告监听器本身，因此保留包装
+     */
+    private final boolean keepWrappers;
     private final boolean buildPerPhaseList;
+    private volatile Snapshot snapshot;
+    @Nullable
+    private volatile CompiledDispatcher compiledDispatcher;
+    /**
+     * 无法生成分发器的快照数组，同一快照不再重试
+     */
+    @Nullable
+    private volatile EventListener[] uncompiled;
+    /**
+     * 曾经以编译分发发布过本列表事件的总线，此后每次快照变化都由写入方重新生成分发器。仅在持有写锁时访问
+     */
+    @Nullable
+    private EventBus compiledBus;
+    /**
+     * 本列表按键注册的监听器，每个键每个优先级一个不可变数组，仅在持有写锁时替换
+     */
+    private final ConcurrentHashMap<Object, EventListener[][]> keyed = new ConcurrentHashMap<>();
+    /**
+     * 按键注册的监听器所属的键，取消注册时用于找到对应的数组。仅在持有写锁时访问
+     */
+    private final Map<EventListener, Object> listenerKeys = new IdentityHashMap<>();
+    /**
+     * 本列表及祖先列表中有按键监听器的每个键，仅在持有写锁时写入
+     */
+    private final ConcurrentHashMap<Object, KeyedListeners> keyedCache = new ConcurrentHashMap<>();
+    /**
+     * 保证按键发布读取到的全局快照与该键的监听器来自同一次提交
+     */
+    private final StampedLock publication = new StampedLock();
+
+    /**
+     * 一次发布的不可变快照
+     * @param inherited 每个优先级下本列表及所有祖先列表的监听器(未解包装)，供按键的快照合并
+     * @param listeners 所有优先级的完整监听器数组
+     * @param perPhaseListeners 每个优先级的监听器数组，未启用按阶段发布时为null
+     * @param unwrapped 与{@code listeners}一一对应、去掉取消检查的监听器，仅可取消事件的列表有
+     * @param nextReceiving {@code nextReceiving[i]}为不小于{@code i}的第一个会接收已取消事件的监听器索引，没有时为监听器数量；
+     *                      事件被取消后分发可以直接跳到该索引。仅可取消事件的列表有
+     */
+    record Snapshot(
+            EventListener[][] inherited,
+            EventListener[] listeners,
+            EventListener[][] perPhaseListeners,
+            @Nullable EventListener[] unwrapped,
+            @Nullable int[] nextReceiving
+    ) {}
 
-    ListenerList(Class<?> eventClass, boolean buildPerPhaseList) {
-        int count = EventPriority.values().length;
-        priorities = new ArrayList<>(count);
+    /**
+     * 某个键在本列表及所有祖先列表中的监听器
+     */
+    private static final class KeyedListeners {
+        /**
+         * 每个优先级下该键的监听器，依次为本列表、祖先列表的监听器
+         */
+        final EventListener[][] listeners;
+        /**
+         * 与某个全局快照合并后的快照，全局快照变化后的首次按键发布重新合并
+         */
+        @Nullable
+        volatile Merged merged;
 
-        for (int i = 0; i < count; i++) {
-            priorities.add(new ArrayList<>());
+        KeyedListeners(EventListener[][] listeners) {
+            this.listeners = listeners;
         }
+    }
+
+    private record Merged(Snapshot base, Snapshot snapshot) {}
+
+    /**
+     * @param writeLock 总线的写锁
+     * @param parents 父类与直接实现的接口的列表
+     * @param keepWrappers 是否在不可取消事件的快照中保留包装监听器
+     */
+    ListenerList(Class<?> eventClass, Object writeLock, List<ListenerList> parents, boolean buildPerPhaseList, boolean keepWrappers) {
+        priorities = new EventListener[PRIORITY_COUNT][];
+        Arrays.fill(priorities, EMPTY);
         // 当事件不可取消时解包装监听器
         canUnwrapListeners = !ICancellableEvent.class.isAssignableFrom(eventClass);
         this.buildPerPhaseList = buildPerPhaseList;
+        this.keepWrappers = keepWrappers;
+        this.writeLock = writeLock;
+        this.eventClass = eventClass;
+        Set<ListenerList> ancestors = new LinkedHashSet<>();
+        ancestors.add(this);
+        for (ListenerList parent : parents)
+            Collections.addAll(ancestors, parent.lineage);
+        this.lineage = ancestors.toArray(new ListenerList[0]);
+        synchronized (writeLock) {
+            for (ListenerList parent : parents)
+                parent.children.add(this);
+            snapshot = buildSnapshot();
+            buildAllKeyed();
+        }
     }
 
-    ListenerList(Class<?> eventClass, ListenerList parent, boolean buildPerPhaseList) {
-        this(eventClass, buildPerPhaseList);
-        this.parent = parent;
-        this.parent.addChild(parent);
+    /**
+     * 返回所有优先级的所有监听器的完整列表 (包括所有父监听器)。<br/>
+     * 列表以正确的优先级顺序返回，同一优先级内子事件的监听器在前。<br/>
+     * @return 所有优先级的所有监听器的完整列表
+     */
+    public EventListener[] getListeners() {
+        return snapshot.listeners();
     }
 
     /**
-     * 返回一个包含所有该事件监听器的数组列表<br/>
-     * 和所有其指定优先级的父事件。
-     * <p>
-     * 列表首先返回子事件的监听。
-     *
-     * @param priority 想获取的优先级
-     * @return 包含事件监听器的数组列表
-     */
-    private ArrayList<EventListener> getListeners(EventPriority priority) {
-        writeLock.acquireUninterruptibly();
-        ArrayList<EventListener> ret = new ArrayList<>(priorities.get(priority.ordinal()));
-        writeLock.release();
-        if (parent != null) {
-            ret.addAll(parent.getListeners(priority));
+     * @return 当前快照，需要同时使用快照中的多个数组时应只读取一次
+     */
+    Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @param key 事件的键，为null时等同于{@link #getSnapshot()}
+     * @return 包含全局监听器与该键监听器的快照
+     */
+    Snapshot getSnapshot(@Nullable Object key) {
+        if (key == null)
+            return snapshot;
+        long stamp = publication.tryOptimisticRead();
+        Snapshot base = snapshot;
+        //没有该键的监听器时不会有缓存
+        KeyedListeners keyedListeners = keyedCache.get(key);
+        if (!publication.validate(stamp)) {
+            stamp = publication.readLock();
+            try {
+                base = snapshot;
+                keyedListeners = keyedCache.get(key);
+            } finally {
+                publication.unlockRead(stamp);
+            }
         }
-        return ret;
+        if (keyedListeners == null)
+            return base;
+        Merged merged = keyedListeners.merged;
+        if (merged == null || merged.base() != base) {
+            //合并只依赖两个不可变的输入，并发的发布线程得到相同的结果，不需要加锁
+            merged = new Merged(base, merge(base, keyedListeners.listeners));
+            keyedListeners.merged = merged;
+        }
+        return merged.snapshot();
     }
 
     /**
-     * 返回所有优先级的所有监听器的完整列表 (包括所有父监听器)。<br/>
-     * 列表以正确的优先级顺序返回。<br/>
-     * 如果内部阵列缓存的信息已过期，则自动重建其。<br/>
-     * @return 所有优先级的所有监听器的完整列表
+     * 把该键的监听器追加到全局快照中每个优先级的监听器之后
      */
-    public EventListener[] getListeners() {
-        if (shouldRebuild()) buildCache();
-        return listeners.get();
+    private Snapshot merge(Snapshot base, EventListener[][] keyedListeners) {
+        EventListener[][] merged = new EventListener[PRIORITY_COUNT][];
+        for (int phase = 0; phase < PRIORITY_COUNT; phase++) {
+            EventListener[] global = base.inherited()[phase];
+            EventListener[] own = keyedListeners[phase];
+            if (own.length == 0) {
+                merged[phase] = global;
+                continue;
+            }
+            EventListener[] concat = Arrays.copyOf(global, global.length + own.length);
+            System.arraycopy(own, 0, concat, global.length, own.length);
+            merged[phase] = concat;
+        }
+        return flatten(merged);
+    }
+
+    /**
+     * 根据本列表与祖先列表中该键的监听器重建该键的监听器，但不发布。必须在持有写锁时调用
+     * @return 没有该键的监听器时为null
+     */
+    @Nullable
+    private KeyedListeners buildKeyed(Object key) {
+        EventListener[][] merged = new EventListener[PRIORITY_COUNT][];
+        boolean found = false;
+        for (int phase = 0; phase < PRIORITY_COUNT; phase++) {
+            EventListener[] phaseListeners = EMPTY;
+            for (ListenerList list : lineage) {
+                EventListener[][] keyedListeners = list.keyed.get(key);
+                if (keyedListeners == null || keyedListeners[phase].length == 0)
+                    continue;
+                EventListener[] own = keyedListeners[phase];
+                EventListener[] concat = Arrays.copyOf(phaseListeners, phaseListeners.length + own.length);
+                System.arraycopy(own, 0, concat, phaseListeners.length, own.length);
+                phaseListeners = concat;
+                found = true;
+            }
+            merged[phase] = phaseListeners;
+        }
+        return found ? new KeyedListeners(merged) : null;
+    }
+
+    /**
+     * 创建列表时收集祖先列表中已有的所有键。必须在持有写锁时调用
+     */
+    private void buildAllKeyed() {
+        Set<Object> keys = null;
+        for (ListenerList list : lineage) {
+            if (list.keyed.isEmpty())
+                continue;
+            if (keys == null)
+                keys = new HashSet<>();
+            keys.addAll(list.keyed.keySet());
+        }
+        if (keys == null)
+            return;
+        for (Object key : keys) {
+            KeyedListeners keyedListeners = buildKeyed(key);
+            if (keyedListeners != null)
+                keyedCache.put(key, keyedListeners);
+        }
+    }
+
+    /**
+     * 该键的监听器变化后重建本列表及所有子孙列表中该键的快照，经多条路径可达的列表只重建一次。必须在持有写锁时调用
+     */
+    private void rebuildKeyed(Object key) {
+        for (ListenerList list : descendants(List.of(this)))
+            list.publish(null, Collections.singletonMap(key, list.buildKeyed(key)));
+    }
+
+    /**
+     * 发布重建的全局快照与按键的监听器，在快照变化时重新生成已使用的分发器。必须在持有写锁时调用
+     * @param built 新的全局快照，为null时不变
+     * @param keyedBuilt 每个键新的监听器，值为null时移除该键
+     */
+    private void publish(@Nullable Snapshot built, Map<Object, KeyedListeners> keyedBuilt) {
+        long stamp = publication.writeLock();
+        try {
+            if (built != null)
+                snapshot = built;
+            keyedBuilt.forEach((key, keyedListeners) -> {
+                if (keyedListeners == null)
+                    keyedCache.remove(key);
+                else
+                    keyedCache.put(key, keyedListeners);
+            });
+        } finally {
+            publication.unlockWrite(stamp);
+        }
+        if (built != null && compiledBus != null)
+            compileDispatcher();
+    }
+
+    /**
+     * @return 给定列表及其所有子孙列表，经多条路径可达的列表只出现一次。必须在持有写锁时调用
+     */
+    private static Set<ListenerList> descendants(Collection<ListenerList> lists) {
+        Set<ListenerList> affected = Collections.newSetFromMap(new IdentityHashMap<>());
+        ArrayDeque<ListenerList> pending = new ArrayDeque<>(lists);
+        while (!pending.isEmpty()) {
+            ListenerList list = pending.pop();
+            if (affected.add(list))
+                pending.addAll(list.children);
+        }
+        return affected;
     }
 
     public EventListener[] getPrePhaseListeners(EventPriority priority) {
         if (!buildPerPhaseList)
             throw new IllegalStateException("buildPerPhaseList is false!");
-        if (shouldRebuild()) buildCache();
-        return prePhaseListeners.get()[priority.ordinal()];
+        return snapshot.perPhaseListeners()[priority.ordinal()];
     }
 
-    protected boolean shouldRebuild() {
-        return rebuild;
-    }
-    protected void forceRebuild() {
-        this.rebuild = true;
-        if (this.children != null) {
-            synchronized (this.children) {
-                for (ListenerList child : this.children) {
-                    child.forceRebuild();
-                }
+    /**
+     * 返回为当前快照生成的分发器。
+     * <p>
+     * 首次调用时在写锁内生成，此后写入方每次发布新快照时都在同一把写锁内重新生成，发布线程只做volatile读取。
+     * @return 分发器，监听器过多或无法生成时返回null，此时应使用{@link #getListeners()}
+     */
+    @Nullable
+    CompiledDispatcher getCompiledDispatcher(EventBus bus) {
+        EventListener[] current = snapshot.listeners();
+        CompiledDispatcher dispatcher = compiledDispatcher;
+        if (dispatcher != null && dispatcher.source == current)
+            return dispatcher;
+        if (uncompiled == current)
+            return null;
+        synchronized (writeLock) {
+            if (compiledBus == null) {
+                compiledBus = bus;
+                compileDispatcher();
             }
+            return compiledDispatcher;
         }
     }
 
-    private void addChild(ListenerList child) {
-        if (this.children == null)
-            this.children = Collections.synchronizedList(new ArrayList<>(2));
-        this.children.add(child);
+    /**
+     * 为当前快照生成并发布分发器。必须在持有写锁时调用
+     */
+    private void compileDispatcher() {
+        EventListener[] current = snapshot.listeners();
+        CompiledDispatcher dispatcher = CompiledDispatcher.compile(compiledBus, current, !canUnwrapListeners);
+        compiledDispatcher = dispatcher;
+        uncompiled = dispatcher == null ? current : null;
     }
 
-    private void unwrapListeners(List<EventListener> ret) {
-        if (canUnwrapListeners)
-            for (int i = 0; i < ret.size(); ++i)
-                if (ret.get(i) instanceof IWrapperListener wrapper)
-                    ret.set(i, wrapper.getWithoutCheck());
+    private EventListener[] unwrapListeners(EventListener[] listeners) {
+        if (!canUnwrapListeners || keepWrappers)
+            return listeners;
+        EventListener[] ret = listeners.clone();
+        for (int i = 0; i < ret.length; ++i)
+            if (ret[i] instanceof IWrapperListener wrapper)
+                ret[i] = wrapper.getWithoutCheck();
+        return ret;
     }
 
     /**
-     * 重构监听器数组，如果什么事业没做，则返回值需要的时间减小
+     * 重建并发布本列表及所有子孙列表的快照。必须在持有写锁时调用。
      */
     private void buildCache() {
-        if (parent != null && parent.shouldRebuild())
-            parent.buildCache();
-        ArrayList<EventListener> ret = new ArrayList<>();
-        EventListener[][] perPhaseListeners = buildPerPhaseList ? new EventListener[EventPriority.values().length][] : null;
+        if (children.isEmpty()) {
+            FlightRecorderEvents.Rebuild recording = new FlightRecorderEvents.Rebuild();
+            recording.begin();
+            publish(buildSnapshot(), Map.of());
+            recording.complete(eventClass, 1, 1);
+        } else {
+            rebuild(List.of(this));
+        }
+    }
 
-        for (EventPriority phase : EventPriority.values()) {
-            var phaseListeners = getListeners(phase);
-            unwrapListeners(phaseListeners);
-            ret.addAll(phaseListeners);
+    /**
+     * 重建并发布给定列表及其所有子孙列表的快照，经多条路径可达的列表只重建一次。
+     * <p>
+     * 每个快照直接由祖先列表自身的监听器数组展开，不依赖其他列表的快照，因此重建顺序无关紧要。必须在持有写锁时调用。
+     */
+    private static void rebuild(Collection<ListenerList> changed) {
+        rebuild(changed, Map.of());
+    }
 
-            if (perPhaseListeners != null)
-                perPhaseListeners[phase.ordinal()] = phaseListeners.toArray(EventListener[]::new);
+    /**
+     * 重建并发布给定列表及其所有子孙列表的快照，以及按键的修改影响到的列表中这些键的监听器。
+     * 每个列表的全局快照与其按键的监听器一起发布。必须在持有写锁时调用。
+     * @param changedKeys 每个列表中按键的监听器有修改的键
+     */
+    private static void rebuild(Collection<ListenerList> changed, Map<ListenerList, Set<Object>> changedKeys) {
+        FlightRecorderEvents.Rebuild recording = new FlightRecorderEvents.Rebuild();
+        recording.begin();
+        Set<ListenerList> affected = descendants(changed);
+        Map<ListenerList, Set<Object>> affectedKeys = new IdentityHashMap<>();
+        changedKeys.forEach((list, keys) -> {
+            for (ListenerList descendant : descendants(List.of(list)))
+                affectedKeys.computeIfAbsent(descendant, k -> new HashSet<>()).addAll(keys);
+        });
+        Set<ListenerList> published = Collections.newSetFromMap(new IdentityHashMap<>());
+        published.addAll(affected);
+        published.addAll(affectedKeys.keySet());
+        for (ListenerList list : published) {
+            Map<Object, KeyedListeners> keyedBuilt = new HashMap<>();
+            for (Object key : affectedKeys.getOrDefault(list, Set.of()))
+                keyedBuilt.put(key, list.buildKeyed(key));
+            list.publish(affected.contains(list) ? list.buildSnapshot() : null, keyedBuilt);
         }
-        this.listeners.set(ret.toArray(new EventListener[0]));
-        this.prePhaseListeners.set(perPhaseListeners);
+        if (!affected.isEmpty())
+            recording.complete(changed.size() == 1 ? changed.iterator().next().eventClass : null, changed.size(), affected.size());
+    }
 
-        rebuild = false;
+    /**
+     * 根据本列表与所有祖先列表的监听器数组重建本列表的快照，但不发布。必须在持有写锁时调用。
+     */
+    private Snapshot buildSnapshot() {
+        EventListener[][] inherited = new EventListener[PRIORITY_COUNT][];
+        for (int phase = 0; phase < PRIORITY_COUNT; phase++) {
+            EventListener[] own = priorities[phase];
+            int total = 0;
+            for (ListenerList list : lineage)
+                total += list.priorities[phase].length;
+            if (total == own.length) {
+                inherited[phase] = own;
+                continue;
+            }
+            EventListener[] merged = new EventListener[total];
+            int offset = 0;
+            for (ListenerList list : lineage) {
+                EventListener[] listeners = list.priorities[phase];
+                System.arraycopy(listeners, 0, merged, offset, listeners.length);
+                offset += listeners.length;
+            }
+            inherited[phase] = merged;
+        }
+        return flatten(inherited);
+    }
+
+    /**
+     * 把每个优先级的监听器展开为发布时使用的快照
+     */
+    private Snapshot flatten(EventListener[][] inherited) {
+        EventListener[][] perPhaseListeners = buildPerPhaseList ? new EventListener[PRIORITY_COUNT][] : null;
+        int total = 0;
+        for (EventListener[] phaseListeners : inherited)
+            total += phaseListeners.length;
+
+        EventListener[] ret = new EventListener[total];
+        int offset = 0;
+        for (int phase = 0; phase < PRIORITY_COUNT; phase++) {
+            EventListener[] phaseListeners = unwrapListeners(inherited[phase]);
+            System.arraycopy(phaseListeners, 0, ret, offset, phaseListeners.length);
+            offset += phaseListeners.length;
+            if (perPhaseListeners != null)
+                perPhaseListeners[phase] = phaseListeners;
+        }
+        EventListener[] unwrapped = null;
+        int[] nextReceiving = null;
+        if (!canUnwrapListeners) {
+            unwrapped = new EventListener[total];
+            nextReceiving = new int[total + 1];
+            nextReceiving[total] = total;
+            for (int i = total - 1; i >= 0; i--) {
+                if (ret[i] instanceof IWrapperListener wrapper) {
+                    unwrapped[i] = wrapper.getWithoutCheck();
+                    nextReceiving[i] = wrapper.receivesCanceled() ? i : nextReceiving[i + 1];
+                } else {
+                    unwrapped[i] = ret[i];
+                    nextReceiving[i] = i;
+                }
+            }
+        }
+        return new Snapshot(inherited, ret, perPhaseListeners, unwrapped, nextReceiving);
     }
 
     public void register(EventPriority priority, EventListener listener) {
-        writeLock.acquireUninterruptibly();
-        priorities.get(priority.ordinal()).add(listener);
-        writeLock.release();
-        this.forceRebuild();
+        synchronized (writeLock) {
+            EventListener[] old = priorities[priority.ordinal()];
+            EventListener[] updated = Arrays.copyOf(old, old.length + 1);
+            updated[old.length] = listener;
+            priorities[priority.ordinal()] = updated;
+            buildCache();
+        }
+    }
+
+    /**
+     * @param key 监听器的键，为null时注册为全局监听器
+     */
+    public void register(EventPriority priority, @Nullable Object key, EventListener listener) {
+        if (key == null) {
+            register(priority, listener);
+            return;
+        }
+        synchronized (writeLock) {
+            addKeyed(key, priority, listener);
+            rebuildKeyed(key);
+        }
+    }
+
+    /**
+     * 只修改本列表的数组，由调用方重建该键的监听器。必须在持有写锁时调用
+     */
+    private void addKeyed(Object key, EventPriority priority, EventListener listener) {
+        EventListener[][] old = keyed.get(key);
+        EventListener[][] updated;
+        if (old == null) {
+            updated = new EventListener[PRIORITY_COUNT][];
+            Arrays.fill(updated, EMPTY);
+        } else {
+            updated = old.clone();
+        }
+        EventListener[] phase = updated[priority.ordinal()];
+        EventListener[] added = Arrays.copyOf(phase, phase.length + 1);
+        added[phase.length] = listener;
+        updated[priority.ordinal()] = added;
+        keyed.put(key, updated);
+        listenerKeys.put(listener, key);
+    }
+
+    /**
+     * 只修改本列表的数组，由调用方重建该键的监听器。必须在持有写锁时调用
+     */
+    private void removeKeyed(Object key, Set<EventListener> toRemove) {
+        EventListener[][] old = keyed.get(key);
+        if (old == null)
+            return;
+        EventListener[][] updated = new EventListener[PRIORITY_COUNT][];
+        boolean empty = true;
+        for (int phase = 0; phase < PRIORITY_COUNT; phase++) {
+            updated[phase] = removeAll(old[phase], toRemove);
+            empty &= updated[phase].length == 0;
+        }
+        if (empty)
+            keyed.remove(key);
+        else
+            keyed.put(key, updated);
     }
 
     public void unregister(EventListener listener) {
-        writeLock.acquireUninterruptibly();
-        priorities.stream().filter(list -> list.remove(listener)).forEach(list -> this.forceRebuild());
-        writeLock.release();
+        unregister(List.of(listener));
+    }
+
+    /**
+     * 一次性移除多个监听器，无论移除了多少个监听器都只重建一次快照
+     */
+    public void unregister(Collection<EventListener> listeners) {
+        if (listeners.isEmpty())
+            return;
+        Changes changes = new Changes();
+        changes.remove(listeners);
+        synchronized (writeLock) {
+            Set<Object> changedKeys = new HashSet<>();
+            boolean changed = apply(changes, changedKeys);
+            if (changedKeys.isEmpty()) {
+                if (changed)
+                    buildCache();
+            } else {
+                rebuild(changed ? List.of(this) : List.of(), Map.of(this, changedKeys));
+            }
+        }
+    }
+
+    /**
+     * 一次提交中对单个列表的修改
+     */
+    static final class Changes {
+        private final ArrayList<ArrayList<EventListener>> additions = new ArrayList<>(PRIORITY_COUNT);
+        private final Set<EventListener> removals = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final List<KeyedAddition> keyedAdditions = new ArrayList<>();
+
+        private record KeyedAddition(Object key, EventPriority priority, EventListener listener) {}
+
+        Changes() {
+            for (int i = 0; i < PRIORITY_COUNT; i++)
+                additions.add(new ArrayList<>());
+        }
+
+        void add(EventPriority priority, @Nullable Object key, EventListener listener) {
+            if (key == null)
+                additions.get(priority.ordinal()).add(listener);
+            else
+                keyedAdditions.add(new KeyedAddition(key, priority, listener));
+        }
+
+        void remove(Collection<EventListener> listeners) {
+            removals.addAll(listeners);
+        }
+
+        /**
+         * 撤销尚未提交的添加
+         */
+        void discard(Collection<EventListener> listeners) {
+            for (ArrayList<EventListener> phase : additions)
+                phase.removeAll(listeners);
+            keyedAdditions.removeIf(addition -> listeners.contains(addition.listener()));
+        }
+    }
+
+    /**
+     * 将修改应用到本列表自身的监听器数组，但不重建快照，读取方在重建之前看不到任何修改。必须在持有写锁时调用。
+     * @param changedKeys 收集按键的监听器有修改的键
+     * @return 全局监听器是否有任何修改
+     */
+    private boolean apply(Changes changes, Set<Object> changedKeys) {
+        if (!listenerKeys.isEmpty() && !changes.removals.isEmpty()) {
+            Map<Object, Set<EventListener>> byKey = new HashMap<>();
+            for (EventListener listener : changes.removals) {
+                Object key = listenerKeys.remove(listener);
+                if (key != null)
+                    byKey.computeIfAbsent(key, k -> Collections.newSetFromMap(new IdentityHashMap<>())).add(listener);
+            }
+            byKey.forEach(this::removeKeyed);
+            changedKeys.addAll(byKey.keySet());
+        }
+        for (Changes.KeyedAddition addition : changes.keyedAdditions) {
+            addKeyed(addition.key(), addition.priority(), addition.listener());
+            changedKeys.add(addition.key());
+        }
+
+        boolean changed = false;
+        for (int phase = 0; phase < PRIORITY_COUNT; phase++) {
+            EventListener[] old = priorities[phase];
+            EventListener[] updated = changes.removals.isEmpty() ? old : removeAll(old, changes.removals);
+            List<EventListener> added = changes.additions.get(phase);
+            if (!added.isEmpty()) {
+                int size = updated.length;
+                updated = Arrays.copyOf(updated, size + added.size());
+                for (int i = 0; i < added.size(); i++)
+                    updated[size + i] = added.get(i);
+            }
+            if (updated != old) {
+                priorities[phase] = updated;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * 提交多个列表的修改。
+     * <p>
+     * 同一把写锁内先应用所有修改(包括按键注册的监听器)，再统一重建，
+     * 因此每个受影响的列表只发布一次快照，读取方只会看到提交前或提交后的监听器，而不会看到一半的修改。
+     */
+    static void commit(Map<ListenerList, Changes> changes) {
+        Map<Object, List<ListenerList>> byLock = new IdentityHashMap<>();
+        for (ListenerList list : changes.keySet())
+            byLock.computeIfAbsent(list.writeLock, k -> new ArrayList<>()).add(list);
+        byLock.forEach((lock, lists) -> {
+            synchronized (lock) {
+                Set<ListenerList> changed = Collections.newSetFromMap(new IdentityHashMap<>());
+                Map<ListenerList, Set<Object>> changedKeys = new IdentityHashMap<>();
+                for (ListenerList list : lists) {
+                    Set<Object> keys = new HashSet<>();
+                    if (list.apply(changes.get(list), keys))
+                        changed.add(list);
+                    if (!keys.isEmpty())
+                        changedKeys.put(list, keys);
+                }
+                if (!changed.isEmpty() || !changedKeys.isEmpty())
+                    rebuild(changed, changedKeys);
+            }
+        });
+    }
+
+    /**
+     * @return 移除后的新数组，如果没有任何监听器被移除则返回原数组
+     */
+    private static EventListener[] removeAll(EventListener[] listeners, Set<EventListener> toRemove) {
+        EventListener[] ret = null;
+        int size = 0;
+        for (int i = 0; i < listeners.length; i++) {
+            if (toRemove.contains(listeners[i])) {
+                if (ret == null) {
+                    ret = new EventListener[listeners.length - 1];
+                    System.arraycopy(listeners, 0, ret, 0, i);
+                    size = i;
+                }
+            } else if (ret != null) {
+                ret[size++] = listeners[i];
+            }
+        }
+        return ret == null ? listeners : Arrays.copyOf(ret, size);
     }
 }
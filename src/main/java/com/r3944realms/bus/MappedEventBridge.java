@@ -0,0 +1,233 @@
+package com.r3944realms.bus;
+
+import com.r3944realms.bus.api.*;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import static com.r3944realms.bus.LogMakers.EVENTBUS;
+
+/**
+ * 基于{@link MappedRingFile}的{@link IEventBridge}实现。
+ * <p>
+ * 发送方在发布者的线程上编码并写入共享文件，写入由发送方的锁串行化；接收方只有一个后台线程，
+ * 每次取走所有已写入的记录依次解码并发布，没有记录时先短暂挂起，持续空闲后逐渐延长挂起时间。
+ */
+public final class MappedEventBridge {
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private MappedEventBridge() {
+    }
+
+    public static IEventBridge outbound(IEventBus bus, Path file, int capacity, List<? extends IEventCodec<?>> codecs) throws IOException {
+        Map<Integer, IEventCodec<?>> types = typeIds(codecs);
+        return new Outbound(bus, MappedRingFile.openProducer(file, capacity), types);
+    }
+
+    public static IEventBridge inbound(IEventBus bus, Path file, List<? extends IEventCodec<?>> codecs) {
+        return new Inbound(bus, file, typeIds(codecs));
+    }
+
+    /**
+     * 以事件类名的散列作为记录的类型，两侧不需要以相同的顺序配置编解码器。{@link EventJournal}也使用同样的类型
+     */
+    static Map<Integer, IEventCodec<?>> typeIds(List<? extends IEventCodec<?>> codecs) {
+        Map<Integer, IEventCodec<?>> types = new HashMap<>();
+        for (IEventCodec<?> codec : codecs) {
+            IEventCodec<?> previous = types.putIfAbsent(codec.eventType().getName().hashCode(), codec);
+            if (previous != null)
+                throw new IllegalArgumentException("""
+                        编解码器%s与%s的事件类型%s和%s相同或类名的散列冲突
+                        """.formatted(codec, previous, codec.eventType(), previous.eventType()));
+        }
+        return types;
+    }
+
+    private static final class Outbound implements IEventBridge {
+        private final IEventBus bus;
+        private final MappedRingFile ring;
+        /**
+         * 仅在持有本对象的锁时访问
+         */
+        private final ByteBuffer scratch;
+        private final List<Consumer<?>> forwarders = new ArrayList<>();
+        private final LongAdder forwarded = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private final LongAdder codecErrors = new LongAdder();
+        private boolean failureLogged;
+        private volatile boolean closed;
+
+        private Outbound(IEventBus bus, MappedRingFile ring, Map<Integer, IEventCodec<?>> codecs) {
+            this.bus = bus;
+            this.ring = ring;
+            this.scratch = ByteBuffer.allocate(ring.maxRecord());
+            codecs.forEach(this::attach);
+        }
+
+        private <T extends Event> void attach(int type, IEventCodec<T> codec) {
+            Consumer<T> forwarder = event -> forward(type, codec, event);
+            bus.addListener(EventPriority.LOWEST, codec.eventType(), forwarder);
+            forwarders.add(forwarder);
+        }
+
+        private synchronized <T extends Event> void forward(int type, IEventCodec<T> codec, T event) {
+            if (closed)
+                return;
+            scratch.clear();
+            try {
+                codec.encode(event, scratch);
+            } catch (RuntimeException e) {
+                codecErrors.increment();
+                if (!failureLogged) {
+                    failureLogged = true;
+                    LOGGER.error(EVENTBUS, "编解码器{}无法编码事件{}，之后的失败只计入统计", codec, event, e);
+                }
+                return;
+            }
+            scratch.flip();
+            if (ring.write(type, scratch))
+                forwarded.increment();
+            else
+                dropped.increment();
+        }
+
+        @Override
+        public BridgeStats stats() {
+            return new BridgeStats(forwarded.sum(), dropped.sum(), 0, codecErrors.sum());
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            try {
+                forwarders.forEach(bus::unregister);
+            } catch (IllegalStateException e) {
+                //冻结的总线不能取消监听，关闭后转发器不再转发任何事件
+            }
+        }
+    }
+
+    private static final class Inbound implements IEventBridge, Runnable {
+        private final IEventBus bus;
+        private final Path file;
+        private final Map<Integer, IEventCodec<?>> codecs;
+        private final Thread reader;
+        private final LongAdder received = new LongAdder();
+        private final LongAdder codecErrors = new LongAdder();
+        private boolean failureLogged;
+        private volatile boolean closed;
+
+        private Inbound(IEventBus bus, Path file, Map<Integer, IEventCodec<?>> codecs) {
+            this.bus = bus;
+            this.file = file;
+            this.codecs = codecs;
+            this.reader = new Thread(this, "EventBus-Bridge-" + file.getFileName());
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        @Override
+        public void run() {
+            boolean tracking = EventBus.beginTracking();
+            try {
+                read();
+            } finally {
+                EventBus.endTracking(tracking);
+            }
+        }
+
+        private void read() {
+            MappedRingFile ring = null;
+            int idle = 0;
+            while (!closed) {
+                if (ring == null) {
+                    try {
+                        ring = MappedRingFile.openConsumer(file);
+                    } catch (IOException e) {
+                        logFailure("无法打开共享文件" + file, e);
+                    }
+                    if (ring == null) {
+                        LockSupport.parkNanos(this, 10_000_000L);
+                        continue;
+                    }
+                }
+                int count;
+                try {
+                    count = ring.read(this::receive);
+                } catch (RuntimeException e) {
+                    //文件损坏或被生产者重新初始化，重新打开以校验头部并从文件中的读取位置继续
+                    codecErrors.increment();
+                    logFailure("共享文件" + file + "中的记录无效", e);
+                    ring = null;
+                    LockSupport.parkNanos(this, 10_000_000L);
+                    continue;
+                }
+                if (count > 0) {
+                    idle = 0;
+                } else {
+                    idle++;
+                    LockSupport.parkNanos(this, idle < 100 ? 1_000L : 1_000_000L);
+                }
+            }
+        }
+
+        private void receive(int type, ByteBuffer payload) {
+            IEventCodec<?> codec = codecs.get(type);
+            if (codec == null) {
+                codecErrors.increment();
+                return;
+            }
+            Event event;
+            try {
+                event = codec.decode(payload);
+            } catch (RuntimeException e) {
+                codecErrors.increment();
+                logFailure("编解码器" + codec + "无法解码事件", e);
+                return;
+            }
+            received.increment();
+            try {
+                bus.post(event);
+            } catch (Throwable throwable) {
+                //监听器的异常已由接收方总线的异常处理器报告
+                if (!EventBus.wasReported(throwable))
+                    LOGGER.error(EVENTBUS, "无法发布从共享文件{}收到的事件{}", file, event, throwable);
+            }
+        }
+
+        private void logFailure(String message, Exception e) {
+            if (!failureLogged) {
+                failureLogged = true;
+                LOGGER.error(EVENTBUS, "{}，之后的失败只计入统计", message, e);
+            }
+        }
+
+        @Override
+        public BridgeStats stats() {
+            return new BridgeStats(0, 0, received.sum(), codecErrors.sum());
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            LockSupport.unpark(reader);
+            if (Thread.currentThread() == reader)
+                return;
+            try {
+                reader.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
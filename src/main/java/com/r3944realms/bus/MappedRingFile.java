@@ -0,0 +1,190 @@
+package com.r3944realms.bus;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 内存映射文件中的单生产者单消费者字节环形缓冲区，生产者与消费者可以在不同的进程中。
+ * <p>
+ * 文件由头部与数据区组成。头部的魔数、版本与容量之后，写入位置与读取位置各占一个缓存行，
+ * 两者都是只增不减的字节数，对容量取模即为数据区中的偏移。每条记录以8字节对齐：
+ * 长度(int)、类型(int)、内容；数据区末尾放不下一条记录时写入一个{@link #PADDING}标记，记录从数据区开头继续。
+ * <p>
+ * 生产者写完记录后以release语义推进写入位置，消费者以acquire语义读取它，因此看到新的写入位置时也能看到其之前的所有记录；
+ * 读取位置同理。映射的页面由所有进程共享，这些内存屏障在进程之间同样有效。
+ */
+final class MappedRingFile {
+    static final int MIN_CAPACITY = 4096;
+    private static final int MAGIC = 0x45425246;
+    private static final int VERSION = 1;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int WRITE_OFFSET = 64;
+    private static final int READ_OFFSET = 128;
+    private static final int DATA_OFFSET = 192;
+    private static final int RECORD_HEADER = 8;
+    private static final int PADDING = -1;
+
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final int mask;
+    /**
+     * 生产者：下一条记录的写入位置；消费者：下一条记录的读取位置。只由所属的一方访问
+     */
+    private long position;
+
+    private MappedRingFile(MappedByteBuffer buffer, int capacity, long position) {
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.position = position;
+    }
+
+    /**
+     * 以生产者身份打开文件。文件中已有容量相同的缓冲区时从其写入位置继续，否则重新初始化，此时已打开该文件的消费者需要重新打开
+     */
+    static MappedRingFile openProducer(Path file, int capacity) throws IOException {
+        if (capacity < MIN_CAPACITY || Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException("共享缓冲区的容量必须是不小于" + MIN_CAPACITY + "的2的幂：" + capacity);
+        MappedByteBuffer buffer = map(file, DATA_OFFSET + capacity, true);
+        if ((int) INTS.getAcquire(buffer, MAGIC_OFFSET) == MAGIC
+                && (int) INTS.get(buffer, VERSION_OFFSET) == VERSION
+                && (long) LONGS.get(buffer, CAPACITY_OFFSET) == capacity)
+            return new MappedRingFile(buffer, capacity, (long) LONGS.getAcquire(buffer, WRITE_OFFSET));
+        //先清除魔数，消费者在头部写完之前不会使用这个文件
+        INTS.setRelease(buffer, MAGIC_OFFSET, 0);
+        INTS.set(buffer, VERSION_OFFSET, VERSION);
+        LONGS.set(buffer, CAPACITY_OFFSET, (long) capacity);
+        LONGS.set(buffer, WRITE_OFFSET, 0L);
+        LONGS.set(buffer, READ_OFFSET, 0L);
+        INTS.setRelease(buffer, MAGIC_OFFSET, MAGIC);
+        return new MappedRingFile(buffer, capacity, 0);
+    }
+
+    /**
+     * 以消费者身份打开文件，从文件中记录的读取位置继续
+     * @return 文件不存在或尚未被生产者初始化时为null
+     * @throws IOException 头部中的容量无效或文件小于头部记录的大小
+     */
+    @Nullable
+    static MappedRingFile openConsumer(Path file) throws IOException {
+        if (!Files.exists(file) || Files.size(file) < DATA_OFFSET)
+            return null;
+        MappedByteBuffer header = map(file, DATA_OFFSET, false);
+        if ((int) INTS.getAcquire(header, MAGIC_OFFSET) != MAGIC || (int) INTS.get(header, VERSION_OFFSET) != VERSION)
+            return null;
+        long capacity = (long) LONGS.get(header, CAPACITY_OFFSET);
+        //消费者不创建也不扩展文件：生产者写入头部之前已经映射了整个文件
+        if (capacity < MIN_CAPACITY || capacity > Integer.MAX_VALUE - DATA_OFFSET || Long.bitCount(capacity) != 1)
+            throw new IOException("共享文件" + file + "头部中的容量无效：" + capacity);
+        if (Files.size(file) < DATA_OFFSET + capacity)
+            throw new IOException("共享文件" + file + "小于头部中的容量：" + capacity);
+        MappedByteBuffer buffer = map(file, DATA_OFFSET + (int) capacity, false);
+        return new MappedRingFile(buffer, (int) capacity, (long) LONGS.getAcquire(buffer, READ_OFFSET));
+    }
+
+    private static MappedByteBuffer map(Path file, int size, boolean create) throws IOException {
+        try (FileChannel channel = create
+                ? FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    /**
+     * @return 单条记录内容的最大字节数
+     */
+    int maxRecord() {
+        return capacity / 2 - RECORD_HEADER;
+    }
+
+    /**
+     * 生产者写入一条记录
+     * @param payload 从其当前位置到界限的内容，调用后位置不变
+     * @return 缓冲区剩余空间不足时为false，记录未被写入
+     */
+    boolean write(int type, ByteBuffer payload) {
+        int length = payload.remaining();
+        int size = align(RECORD_HEADER + length);
+        int offset = (int) (position & mask);
+        int tail = capacity - offset;
+        long needed = size <= tail ? size : tail + (long) size;
+        long read = (long) LONGS.getAcquire(buffer, READ_OFFSET);
+        if (capacity - (position - read) < needed)
+            return false;
+        long next = position;
+        if (size > tail) {
+            INTS.set(buffer, DATA_OFFSET + offset, PADDING);
+            next += tail;
+            offset = 0;
+        }
+        INTS.set(buffer, DATA_OFFSET + offset, length);
+        INTS.set(buffer, DATA_OFFSET + offset + 4, type);
+        buffer.put(DATA_OFFSET + offset + RECORD_HEADER, payload, payload.position(), length);
+        position = next + size;
+        LONGS.setRelease(buffer, WRITE_OFFSET, position);
+        return true;
+    }
+
+    interface RecordHandler {
+        void handle(int type, ByteBuffer payload);
+    }
+
+    /**
+     * 消费者读取所有已写入的记录，全部处理后一次性释放它们占用的空间。
+     * <p>
+     * 记录的长度不在合法范围内时，文件已损坏或不是由当前的生产者写入的：丢弃所有已写入的记录后抛出异常，之后从新写入的记录继续读取。
+     * 写入位置落后于读取位置时，生产者已重新初始化文件，消费者需要重新打开它。
+     * @return 读取的记录数
+     * @throws IllegalStateException 如果发现了无效的记录或写入位置
+     */
+    int read(RecordHandler handler) {
+        long write = (long) LONGS.getAcquire(buffer, WRITE_OFFSET);
+        if (write < position)
+            throw new IllegalStateException("共享文件的写入位置" + write + "落后于读取位置" + position + "，生产者已重新初始化文件");
+        long start = position;
+        int count = 0;
+        try {
+            while (position < write) {
+                int offset = (int) (position & mask);
+                int length = (int) INTS.get(buffer, DATA_OFFSET + offset);
+                if (length == PADDING) {
+                    position += capacity - offset;
+                    continue;
+                }
+                if (length < 0 || length > maxRecord() || RECORD_HEADER + length > capacity - offset) {
+                    long invalid = position;
+                    position = write;
+                    throw new IllegalStateException("共享文件在位置" + invalid + "的记录长度" + length + "无效，丢弃了" + (write - invalid) + "字节");
+                }
+                int type = (int) INTS.get(buffer, DATA_OFFSET + offset + 4);
+                //先推进位置，处理失败的记录不会被再次读取
+                position += align(RECORD_HEADER + length);
+                count++;
+                handler.handle(type, buffer.slice(DATA_OFFSET + offset + RECORD_HEADER, length).asReadOnlyBuffer());
+            }
+        } finally {
+            if (position != start)
+                LONGS.setRelease(buffer, READ_OFFSET, position);
+        }
+        return count;
+    }
+
+    private static int align(int size) {
+        return (size + 7) & ~7;
+    }
+}
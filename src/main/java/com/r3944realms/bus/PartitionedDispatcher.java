@@ -0,0 +1,223 @@
+package com.r3944realms.bus;
+
+import com.r3944realms.bus.api.Event;
+import com.r3944realms.bus.api.LaneStats;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 分区分发模式。
+ * <p>
+ * 每个分区有一个有界队列与一个工作线程。发布者按分区键的散列选择分区并入队，工作线程每次取走队列中的所有事件(最多{@link #MAX_BATCH}个)，
+ * 交给{@link EventBus#dispatchQueued(Event[], int)}按顺序分发。同一分区的事件只由一个线程处理，因此不需要任何全局锁。
+ * <p>
+ * 关闭时向每个队列放入{@link #STOP}，工作线程分发完它之前的所有事件后退出；再次启动时为每个分区创建新的工作线程，队列保持不变。
+ * <p>
+ * 分区的监听器向已满的分区发布事件时直接失败而不等待：两个工作线程互相向对方已满的队列发布会永远阻塞，
+ * 在监听器中内联分发又会打乱目标分区的顺序。
+ */
+final class PartitionedDispatcher {
+    private static final int MAX_BATCH = 64;
+    private static final Event STOP = new Event() {};
+    /**
+     * 在任意总线的分区工作线程中为true
+     */
+    private static final ThreadLocal<Boolean> LANE_WORKER = ThreadLocal.withInitial(() -> false);
+
+    private final EventBus bus;
+    private final Lane[] lanes;
+    /**
+     * 仅在持有本对象的锁时修改
+     */
+    private volatile boolean running;
+
+    private final class Lane implements Runnable {
+        private final int index;
+        private final ArrayBlockingQueue<Event> queue;
+        private final AtomicLong enqueued = new AtomicLong();
+        /**
+         * 只由工作线程写入
+         */
+        private volatile long dispatched;
+        private final AtomicLong maxBacklog = new AtomicLong();
+        private final LongAdder producerWaits = new LongAdder();
+        @Nullable
+        private volatile Thread worker;
+
+        private Lane(int index, int capacity) {
+            this.index = index;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        private void enqueue(Event event) {
+            if (!queue.offer(event)) {
+                if (LANE_WORKER.get())
+                    throw new IllegalStateException("分区 " + index + " 的队列已满，不能在分区的监听器中等待分区队列");
+                producerWaits.increment();
+                try {
+                    while (!queue.offer(event, 10, TimeUnit.MILLISECONDS))
+                        checkWorker();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("等待分区 " + index + " 的队列时被中断", e);
+                }
+            }
+            long backlog = enqueued.incrementAndGet() - dispatched;
+            for (long max = maxBacklog.get(); backlog > max; max = maxBacklog.get())
+                if (maxBacklog.compareAndSet(max, backlog))
+                    break;
+        }
+
+        /**
+         * 工作线程被监听器抛出的{@link Error}终止后队列不会再被取走，等待它的发布者与关闭都应停止等待
+         */
+        private void checkWorker() {
+            Thread current = worker;
+            if (current == null || !current.isAlive())
+                throw new IllegalStateException("分区 " + index + " 的工作线程已经停止，无法再发布事件");
+        }
+
+        @Override
+        public void run() {
+            LANE_WORKER.set(true);
+            ArrayList<Event> taken = new ArrayList<>(MAX_BATCH);
+            Event[] batch = new Event[MAX_BATCH];
+            boolean stop = false;
+            while (!stop) {
+                try {
+                    taken.add(queue.take());
+                } catch (InterruptedException e) {
+                    //工作线程只通过STOP或监听器抛出的Error结束
+                    continue;
+                }
+                queue.drainTo(taken, MAX_BATCH - 1);
+                int size = 0;
+                for (Event event : taken) {
+                    if (event == STOP)
+                        stop = true;
+                    else
+                        batch[size++] = event;
+                }
+                taken.clear();
+                bus.dispatchQueued(batch, size);
+                Arrays.fill(batch, 0, size, null);
+                dispatched += size;
+            }
+        }
+
+        private LaneStats stats() {
+            return new LaneStats(index, enqueued.get(), dispatched, maxBacklog.get(), producerWaits.sum());
+        }
+    }
+
+    PartitionedDispatcher(EventBus bus, int laneCount, int laneCapacity) {
+        this.bus = bus;
+        this.lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++)
+            lanes[i] = new Lane(i, laneCapacity);
+    }
+
+    void publish(Event event, @Nullable Object partitionKey) {
+        if (!running)
+            throw new IllegalStateException("总线已关闭，无法再发布分区事件");
+        lanes[laneOf(partitionKey)].enqueue(event);
+    }
+
+    private int laneOf(@Nullable Object partitionKey) {
+        if (partitionKey == null)
+            return 0;
+        int hash = partitionKey.hashCode();
+        return ((hash ^ (hash >>> 16)) & 0x7fffffff) % lanes.length;
+    }
+
+    /**
+     * 为每个分区创建工作线程，已在运行时无效果
+     */
+    synchronized void start() {
+        if (running)
+            return;
+        for (Lane lane : lanes) {
+            Thread worker = new Thread(lane, "EventBus-Lane-" + lane.index);
+            worker.setDaemon(true);
+            lane.worker = worker;
+            worker.start();
+        }
+        running = true;
+    }
+
+    /**
+     * 等待到调用时刻为止进入各分区的事件分发完成
+     */
+    void drain() {
+        for (Lane lane : lanes)
+            if (Thread.currentThread() == lane.worker)
+                throw new IllegalStateException("不能在分区的监听器中等待分区排空");
+        for (Lane lane : lanes) {
+            long target = lane.enqueued.get();
+            for (int spins = 0; lane.dispatched < target; spins++) {
+                Thread worker = lane.worker;
+                if (worker == null || !worker.isAlive())
+                    throw new IllegalStateException("分区 " + lane.index + " 的工作线程没有运行");
+                LockSupport.parkNanos(spins < 100 ? 1_000L : 100_000L);
+            }
+        }
+    }
+
+    /**
+     * 停止接受新事件，等待各分区已入队的事件分发完成后停止工作线程。与{@code close}并发发布的事件可能留在队列中，直到再次启动。
+     * 已经停止的工作线程的队列中剩余的事件同样留在队列中。
+     */
+    synchronized void close() {
+        if (!running)
+            return;
+        for (Lane lane : lanes)
+            if (Thread.currentThread() == lane.worker)
+                throw new IllegalStateException("不能在分区的监听器中关闭分区");
+        running = false;
+        boolean interrupted = false;
+        for (Lane lane : lanes) {
+            while (true) {
+                try {
+                    if (lane.queue.offer(STOP, 10, TimeUnit.MILLISECONDS))
+                        break;
+                    lane.checkWorker();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (IllegalStateException e) {
+                    //工作线程已经停止，不需要再通知它
+                    break;
+                }
+            }
+        }
+        for (Lane lane : lanes) {
+            Thread worker = lane.worker;
+            if (worker == null)
+                continue;
+            while (true) {
+                try {
+                    worker.join();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    List<LaneStats> stats() {
+        List<LaneStats> stats = new ArrayList<>(lanes.length);
+        for (Lane lane : lanes)
+            stats.add(lane.stats());
+        return stats;
+    }
+}
@@ -0,0 +1,59 @@
+package com.r3944realms.bus;
+
+import com.r3944realms.bus.api.Event;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.r3944realms.bus.LogMakers.EVENTBUS;
+
+/**
+ * 调试模式下检测监听器是否在分发结束后仍然持有池化的事件。
+ * <p>
+ * 回收时同时弱引用事件与一个新分配的哨兵对象。哨兵只被弱引用，一旦它被清除就说明发生过垃圾回收；
+ * 此时事件若仍未被清除，说明还有其它地方强引用着它。事件在回收前若已晋升到老年代，年轻代回收可能造成误报，
+ * 因此检测结果只作为提示。
+ */
+final class PooledEventTracker {
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final EventBus bus;
+    private final ReferenceQueue<Event> queue = new ReferenceQueue<>();
+    private final Set<Released> pending = ConcurrentHashMap.newKeySet();
+
+    private static final class Released extends WeakReference<Event> {
+        private final WeakReference<Object> sentinel = new WeakReference<>(new Object());
+        private final Class<?> eventType;
+
+        private Released(Event event, ReferenceQueue<Event> queue) {
+            super(event, queue);
+            this.eventType = event.getClass();
+        }
+    }
+
+    PooledEventTracker(EventBus bus) {
+        this.bus = bus;
+    }
+
+    void released(Event event) {
+        pending.add(new Released(event, queue));
+        check();
+    }
+
+    private void check() {
+        for (var ref = queue.poll(); ref != null; ref = queue.poll())
+            pending.remove(ref);
+        for (Released released : pending) {
+            if (released.sentinel.get() != null || released.get() == null)
+                continue;
+            if (pending.remove(released))
+                LOGGER.warn(EVENTBUS, "池化的{}事件在回收后仍被引用，可能有监听器在分发结束后持有了它。该事件的监听器：{}",
+                        released.eventType.getName(), Arrays.toString(bus.getListeners(released.eventType)));
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.r3944realms.bus;
+
+import com.r3944realms.bus.api.Event;
+import com.r3944realms.bus.api.EventListener;
+import com.r3944realms.bus.api.EventPriority;
+import com.r3944realms.bus.api.IKeyedEvent;
+import com.r3944realms.bus.api.IRegistrationBatch;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * {@link IRegistrationBatch}的实现，注册时的检查与监听器创建仍由{@link EventBus}完成，本类只负责暂存结果
+ */
+final class RegistrationBatch implements IRegistrationBatch {
+    private final EventBus bus;
+    /**
+     * 本事务中注册的对象及其暂存的监听器，结构与{@link EventBus}中的注册表相同
+     */
+    final Map<Object, Map<ListenerList, List<EventListener>>> added = new HashMap<>();
+    /**
+     * 本事务中取消注册的对象
+     */
+    final Set<Object> removed = new HashSet<>();
+    final Map<ListenerList, ListenerList.Changes> changes = new IdentityHashMap<>();
+    private boolean done;
+
+    RegistrationBatch(EventBus bus) {
+        this.bus = bus;
+    }
+
+    /**
+     * @return 对象在提交后是否会处于已注册状态
+     */
+    boolean isRegistered(Object target) {
+        return added.containsKey(target) || (!removed.contains(target) && bus.isRegistered(target));
+    }
+
+    void stage(Object target, ListenerList listenerList, EventPriority priority, @Nullable Object key, EventListener listener) {
+        changes.computeIfAbsent(listenerList, k -> new ListenerList.Changes()).add(priority, key, listener);
+        added.computeIfAbsent(target, k -> new IdentityHashMap<>())
+                .computeIfAbsent(listenerList, k -> new ArrayList<>()).add(listener);
+    }
+
+    @Override
+    public void register(Object target) {
+        checkOpen();
+        bus.register(target, this);
+    }
+
+    @Override
+    public <T extends Event> void addListener(Class<T> eventType, Consumer<T> consumer) {
+        addListener(EventPriority.NORMAL, false, eventType, consumer);
+    }
+
+    @Override
+    public <T extends Event> void addListener(EventPriority priority, Class<T> eventType, Consumer<T> consumer) {
+        addListener(priority, false, eventType, consumer);
+    }
+
+    @Override
+    public <T extends Event> void addListener(EventPriority priority, boolean receiveCanceled, Class<T> eventType, Consumer<T> consumer) {
+        checkOpen();
+        bus.addListener(priority, receiveCanceled, eventType, null, consumer, this);
+    }
+
+    @Override
+    public <T extends Event & IKeyedEvent> void addListener(EventPriority priority, boolean receiveCanceled, Class<T> eventType, Object key, Consumer<T> consumer) {
+        checkOpen();
+        bus.addListener(priority, receiveCanceled, eventType, key, consumer, this);
+    }
+
+    @Override
+    public <T> void addInterfaceListener(EventPriority priority, boolean receiveCanceled, Class<T> eventInterface, Consumer<T> consumer) {
+        checkOpen();
+        bus.addInterfaceListener(priority, receiveCanceled, eventInterface, consumer, this);
+    }
+
+    @Override
+    public void unregister(Object target) {
+        checkOpen();
+        Map<ListenerList, List<EventListener>> staged = added.remove(target);
+        if (staged != null)
+            staged.forEach((listenerList, listeners) -> changes.get(listenerList).discard(listeners));
+        removed.add(target);
+    }
+
+    @Override
+    public void commit() {
+        checkOpen();
+        done = true;
+        bus.commit(this);
+    }
+
+    @Override
+    public void close() {
+        done = true;
+    }
+
+    private void checkOpen() {
+        if (done)
+            throw new IllegalStateException("该注册事务已经提交或关闭");
+    }
+}
@@ -0,0 +1,197 @@
+package com.r3944realms.bus;
+
+import com.r3944realms.bus.api.Event;
+import com.r3944realms.bus.api.ProducerType;
+import com.r3944realms.bus.api.WaitStrategy;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 环形缓冲区发布模式。
+ * <p>
+ * 槽位数组在创建时分配，之后不再分配。生产者申请序号(单生产者为普通自增，多生产者为一次原子自增)、写入槽位并发布序号；
+ * 唯一的消费线程每次取走所有已发布的连续序号，按顺序分发后一次性推进消费序号，为生产者腾出槽位。
+ * <p>
+ * 多生产者模式下序号的发布顺序与申请顺序可能不同，因此每个槽位记录自己被发布时的圈数，消费线程只处理连续可用的槽位。
+ */
+final class RingBufferDispatcher {
+    private final EventBus bus;
+    private final Event[] slots;
+    private final int mask;
+    private final int indexShift;
+    private final ProducerType producerType;
+    private final WaitStrategy waitStrategy;
+    /**
+     * 最后一个被申请的序号
+     */
+    private final AtomicLong claimed = new AtomicLong(-1);
+    /**
+     * 单生产者模式下最后一个被发布的序号
+     */
+    private final AtomicLong published = new AtomicLong(-1);
+    /**
+     * 多生产者模式下每个槽位最后一次被发布时的圈数
+     */
+    private final AtomicIntegerArray available;
+    /**
+     * 最后一个被消费线程取走的序号，其之前的槽位可以被生产者重新写入
+     */
+    private final AtomicLong consumed = new AtomicLong(-1);
+    /**
+     * 最后一个被分发完成的序号。槽位在分发前就已释放，因此它可能落后于{@link #consumed}
+     */
+    private volatile long dispatched = -1;
+    private final Thread consumer;
+    private volatile boolean consumerParked;
+    private volatile boolean closed;
+
+    RingBufferDispatcher(EventBus bus, int capacity, ProducerType producerType, WaitStrategy waitStrategy) {
+        this.bus = bus;
+        this.slots = new Event[capacity];
+        this.mask = capacity - 1;
+        this.indexShift = Integer.numberOfTrailingZeros(capacity);
+        this.producerType = producerType;
+        this.waitStrategy = waitStrategy;
+        if (producerType == ProducerType.MULTI) {
+            available = new AtomicIntegerArray(capacity);
+            for (int i = 0; i < capacity; i++)
+                available.set(i, -1);
+        } else {
+            available = null;
+        }
+        consumer = new Thread(this::consume, "EventBus-RingBuffer");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    void publish(Event event) {
+        if (closed)
+            throw new IllegalStateException("总线已关闭，无法再发布事件");
+        long sequence = producerType == ProducerType.MULTI ? claimed.incrementAndGet() : claimed.get() + 1;
+        if (producerType == ProducerType.SINGLE)
+            claimed.lazySet(sequence);
+        long wrapPoint = sequence - slots.length;
+        //缓冲区已满时无论等待策略如何都只短暂自旋，避免生产者与消费线程争抢CPU
+        for (int spins = 0; wrapPoint > consumed.get(); spins++) {
+            if (spins < 100) {
+                Thread.onSpinWait();
+            } else {
+                //消费线程被监听器的Error终止或已随关闭退出时，缓冲区不会再腾出槽位
+                if (!consumer.isAlive())
+                    throw new IllegalStateException("环形缓冲区的消费线程已经停止，无法再发布事件");
+                if (Thread.currentThread() == consumer)
+                    throw new IllegalStateException("环形缓冲区已满，不能在监听器中等待消费线程腾出槽位");
+                LockSupport.parkNanos(1L);
+            }
+        }
+
+        int index = (int) sequence & mask;
+        slots[index] = event;
+        if (producerType == ProducerType.MULTI)
+            available.lazySet(index, (int) (sequence >>> indexShift));
+        else
+            published.lazySet(sequence);
+        if (consumerParked)
+            LockSupport.unpark(consumer);
+    }
+
+    private boolean isAvailable(long sequence) {
+        return available.get((int) sequence & mask) == (int) (sequence >>> indexShift);
+    }
+
+    /**
+     * @return 从{@code from}开始连续可用的最大序号，没有可用的序号时返回{@code from - 1}
+     */
+    private long highestPublished(long from) {
+        if (producerType == ProducerType.SINGLE)
+            return published.get();
+        long limit = claimed.get();
+        long sequence = from;
+        while (sequence <= limit && isAvailable(sequence))
+            sequence++;
+        return sequence - 1;
+    }
+
+    private void consume() {
+        Event[] batch = new Event[slots.length];
+        long next = 0;
+        int idle = 0;
+        while (true) {
+            long highest = highestPublished(next);
+            if (highest < next) {
+                if (closed && claimed.get() < next)
+                    return;
+                if (waitStrategy == WaitStrategy.PARK && idle > 100) {
+                    consumerParked = true;
+                    //挂起前再检查一次，避免错过在设置标志之前发布的事件；
+                    //生产者以延迟写发布，极少数情况下仍可能错过唤醒，因此挂起有超时
+                    if (highestPublished(next) < next && !closed)
+                        LockSupport.parkNanos(this, 1_000_000L);
+                    consumerParked = false;
+                } else {
+                    await(idle);
+                }
+                idle++;
+                continue;
+            }
+            idle = 0;
+            int size = (int) (highest - next + 1);
+            for (int i = 0; i < size; i++) {
+                int index = (int) (next + i) & mask;
+                batch[i] = slots[index];
+                slots[index] = null;
+            }
+            //先释放槽位再分发，生产者可以在分发期间继续写入
+            consumed.lazySet(highest);
+            bus.dispatchQueued(batch, size);
+            Arrays.fill(batch, 0, size, null);
+            dispatched = highest;
+            next = highest + 1;
+        }
+    }
+
+    private void await(int spins) {
+        switch (waitStrategy) {
+            case BUSY_SPIN -> Thread.onSpinWait();
+            case YIELD -> Thread.yield();
+            case PARK -> {
+                if (spins < 100)
+                    Thread.onSpinWait();
+                else
+                    LockSupport.parkNanos(10_000L);
+            }
+        }
+    }
+
+    /**
+     * 等待到调用时刻为止发布的所有事件分发完成
+     */
+    void drain() {
+        if (Thread.currentThread() == consumer)
+            throw new IllegalStateException("不能在监听器中等待环形缓冲区排空");
+        long target = claimed.get();
+        for (int spins = 0; dispatched < target; spins++) {
+            if (!consumer.isAlive())
+                throw new IllegalStateException("环形缓冲区的消费线程已经停止");
+            LockSupport.parkNanos(spins < 100 ? 1_000L : 100_000L);
+        }
+    }
+
+    /**
+     * 停止接受新事件，等待已发布的事件分发完成后停止消费线程。与{@code close}并发发布的事件可能被丢弃。
+     */
+    void close() {
+        closed = true;
+        LockSupport.unpark(consumer);
+        if (Thread.currentThread() == consumer)
+            return;
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.r3944realms.bus;
+
+import com.r3944realms.bus.api.Event;
+import com.r3944realms.bus.api.EventListener;
+import com.r3944realms.bus.api.IEventBus;
+import com.r3944realms.bus.api.ISlowListenerHandler;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+
+import static com.r3944realms.bus.LogMakers.EVENTBUS;
+
+/**
+ * 把监听器单次调用的耗时与其预算比较，并报告超时的调用。
+ * <p>
+ * 事件类型的预算在首次发布时沿父类链解析一次并缓存，之后每次分发只做一次{@link ClassValue}查找；
+ * 每次调用只需一次比较，只有超时时才会调用报告回调。
+ */
+final class SlowListenerWatchdog {
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final IEventBus bus;
+    private final ISlowListenerHandler handler;
+    private final long defaultBudget;
+    private final Map<Class<? extends Event>, Long> budgets;
+    private final ClassValue<Long> resolved = new ClassValue<>() {
+        @Override
+        protected Long computeValue(Class<?> eventClass) {
+            for (Class<?> type = eventClass; type != null; type = type.getSuperclass()) {
+                Long budget = budgets.get(type);
+                if (budget != null)
+                    return budget;
+            }
+            return defaultBudget;
+        }
+    };
+
+    SlowListenerWatchdog(IEventBus bus, @Nullable ISlowListenerHandler handler, long defaultBudget, Map<Class<? extends Event>, Long> budgets) {
+        this.bus = bus;
+        this.handler = handler == null ? SlowListenerWatchdog::logSlowListener : handler;
+        this.defaultBudget = defaultBudget;
+        this.budgets = Map.copyOf(budgets);
+    }
+
+    /**
+     * @return 该事件类型的监听器的预算，为0时不限制
+     */
+    long budget(Class<? extends Event> eventClass) {
+        return resolved.get(eventClass);
+    }
+
+    /**
+     * @param eventBudget {@link #budget(Class)}的返回值，{@link com.r3944realms.bus.api.SubscribeEvent#budgetNanos()}优先
+     */
+    void check(Event event, EventListener listener, long eventBudget, long elapsedNanos) {
+        long budget = listener instanceof SubscribeEventListener subscriber && subscriber.getBudgetNanos() > 0
+                ? subscriber.getBudgetNanos() : eventBudget;
+        if (budget <= 0 || elapsedNanos <= budget)
+            return;
+        try {
+            handler.onSlowListener(bus, event, listener, elapsedNanos, budget);
+        } catch (Throwable throwable) {
+            LOGGER.error(EVENTBUS, "慢监听器的报告回调抛出了异常", throwable);
+        }
+    }
+
+    private static void logSlowListener(IEventBus bus, Event event, EventListener listener, long elapsedNanos, long budgetNanos) {
+        LOGGER.warn(EVENTBUS, "监听器 {} 处理 {} 耗时 {}μs，超过预算 {}μs",
+                listener, event.getClass().getName(), elapsedNanos / 1000, budgetNanos / 1000);
+    }
+}
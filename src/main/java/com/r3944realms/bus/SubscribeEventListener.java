@@ -2,6 +2,8 @@ package com.r3944realms.bus;
 
 import com.r3944realms.bus.api.*;
 
+import org.jetbrains.annotations.Nullable;
+
 import java.lang.reflect.Method;
 
 import static org.objectweb.asm.Type.getMethodDescriptor;
@@ -11,20 +13,65 @@ import static org.objectweb.asm.Type.getMethodDescriptor;
  */
 public final class SubscribeEventListener extends EventListener implements IWrapperListener {
     private final EventListener handler;
-    private final SubscribeEvent subInfo;
-    private String readable;
+    private final EventPriority priority;
+    private final boolean receiveCanceled;
+    @Nullable
+    private final Object key;
+    private final long budgetNanos;
+    private final String readable;
     public SubscribeEventListener(Object target, Method method) {
-        handler = EventListenerFactory.create(method, target);
+        this(method, EventListenerFactory.create(method, target), "@SubscribeEvent: " + target + " " + method.getName() + getMethodDescriptor(method));
+    }
+
+    /**
+     * 不持有对象的监听器，用于{@link com.r3944realms.bus.api.IEventBus#registerWeak(Object)}
+     */
+    SubscribeEventListener(WeakTarget target, Method method) {
+        this(method, new WeakEventListener(target, method), "@SubscribeEvent(弱引用): " + target + " " + method.getName() + getMethodDescriptor(method));
+    }
+
+    private SubscribeEventListener(Method method, EventListener handler, String readable) {
+        this.handler = handler;
 
-        subInfo = method.getAnnotation(SubscribeEvent.class);
-        readable = "@SubscribeEvent: " + target + " " + method.getName() + getMethodDescriptor(method);
+        SubscribeEvent subscribeEvent = method.getAnnotation(SubscribeEvent.class);
+        priority = subscribeEvent.priority();
+        receiveCanceled = subscribeEvent.receiveCancelled();
+        Class<?> typeArgument = GenericTypes.resolveTypeArgument(method.getGenericParameterTypes()[0]);
+        if (typeArgument != null && !subscribeEvent.key().isEmpty())
+            throw new IllegalArgumentException("""
+                    方法 %s 订阅了参数化的泛型事件，其类型参数即为键，
+                    不能再通过@SubscribeEvent指定键 %s
+                    """.formatted(method, subscribeEvent.key()));
+        key = typeArgument != null ? typeArgument : subscribeEvent.key().isEmpty() ? null : subscribeEvent.key();
+        budgetNanos = subscribeEvent.budgetNanos();
+        this.readable = readable;
+        describeHandler();
+    }
+
+    /**
+     * 使用编译期生成的{@link ISubscriberIndex 绑定表}中的元数据与直接调用的监听器
+     */
+    SubscribeEventListener(Object target, ISubscriberIndex.SubscriberMethod method, EventListener handler) {
+        this.handler = handler;
+
+        priority = method.priority();
+        receiveCanceled = method.receiveCancelled();
+        key = method.key();
+        budgetNanos = method.budgetNanos();
+        readable = "@SubscribeEvent: " + target + " " + method.name() + method.descriptor();
+        describeHandler();
+    }
+
+    private void describeHandler() {
+        if (handler instanceof GeneratedEventListener generated)
+            generated.describe(readable);
     }
 
     @Override
     public void invoke(Event event) {
         if (handler != null)
-            //因为如果这个事件是不可取消的，那么检查将会被移除，所以这个转型是安全的
-            if(!((ICancellableEvent)event).isCanceled())
+            //不可取消事件的列表通常会移除此检查，但启用了统计或监视的总线保留包装以报告监听器，因此仍需判断类型
+            if(receiveCanceled || !(event instanceof ICancellableEvent cancellable) || !cancellable.isCanceled())
                 handler.invoke(event);
     }
 
@@ -32,8 +79,28 @@ public final class SubscribeEventListener extends EventListener implements IWrap
     public EventListener getWithoutCheck() {
         return handler;
     }
+    @Override
+    public boolean receivesCanceled() {
+        return receiveCanceled;
+    }
+
     public EventPriority getPriority() {
-        return subInfo.priority();
+        return priority;
+    }
+
+    /**
+     * @return 参数化{@link GenericEvent}的类型参数，或{@link SubscribeEvent#key()}，都没有时为null
+     */
+    @Nullable
+    public Object getKey() {
+        return key;
+    }
+
+    /**
+     * @return {@link SubscribeEvent#budgetNanos()}，为0时使用总线的预算
+     */
+    public long getBudgetNanos() {
+        return budgetNanos;
     }
 
     @Override
@@ -0,0 +1,46 @@
+package com.r3944realms.bus;
+
+import com.r3944realms.bus.api.ISubscriberIndex;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
+
+import static com.r3944realms.bus.LogMakers.EVENTBUS;
+
+/**
+ * 查找并缓存编译期生成的{@link ISubscriberIndex}
+ */
+final class SubscriberIndexes {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final ClassValue<ISubscriberIndex> INDEXES = new ClassValue<>() {
+        @Override
+        protected ISubscriberIndex computeValue(Class<?> type) {
+            Class<?> indexClass;
+            try {
+                indexClass = Class.forName(type.getName() + ISubscriberIndex.CLASS_SUFFIX, true, type.getClassLoader());
+            } catch (ClassNotFoundException e) {
+                return null;
+            } catch (LinkageError e) {
+                LOGGER.warn(EVENTBUS, "无法加载生成的监听器绑定表，退回到反射扫描{}", type, e);
+                return null;
+            }
+            try {
+                return (ISubscriberIndex) indexClass.getConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError | ClassCastException e) {
+                //绑定表只是优化，损坏或与监听器类不匹配时按未生成处理
+                LOGGER.warn(EVENTBUS, "无法实例化生成的监听器绑定表{}，退回到反射扫描{}", indexClass, type, e);
+                return null;
+            }
+        }
+    };
+
+    private SubscriberIndexes() {}
+
+    /**
+     * @return 监听器类的绑定表，若编译时未生成或无法实例化则返回null
+     */
+    @Nullable
+    static ISubscriberIndex find(Class<?> listenerClass) {
+        return INDEXES.get(listenerClass);
+    }
+}
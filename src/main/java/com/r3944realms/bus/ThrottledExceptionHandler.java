@@ -0,0 +1,160 @@
+package com.r3944realms.bus;
+
+import com.r3944realms.bus.api.Event;
+import com.r3944realms.bus.api.EventListener;
+import com.r3944realms.bus.api.IEventBus;
+import com.r3944realms.bus.api.IEventExceptionHandler;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.r3944realms.bus.LogMakers.EVENTBUS;
+
+/**
+ * 按监听器与异常类型对监听器异常去重并限流的异常处理器。
+ * <p>
+ * 每种失败(同一个监听器、同一异常类型)第一次出现时交给被包装的处理器完整报告，并记下异常栈顶的抛出位置，之后只计数；
+ * 被抑制的次数在窗口结束时由共享的定时线程汇总，每种失败一行日志，失败停止后最后一个窗口的计数也会被记录。
+ * 与上次出现相隔超过一个窗口的失败重新完整报告，汇总时遗忘这样的失败。记录的失败种类不超过{@link #MAX_FINGERPRINTS}，超出的失败只计入总数。
+ * <p>
+ * 被抑制的失败只做一次映射表查找与计数，不读取异常栈，因此无论失败多频繁，分配、内存与日志量都是有界的，且只在日志级别启用时才格式化。
+ * <p>
+ * 失败不按栈顶的抛出位置区分：区分位置需要读取每个异常的栈，而这正是被抑制的失败要避免的开销。
+ * 同一监听器在不同位置抛出的同类异常因此归为同一种失败，汇总中的位置是这种失败最近一次被完整报告时的位置。
+ */
+final class ThrottledExceptionHandler implements IEventExceptionHandler {
+    private static final Logger LOGGER = LogManager.getLogger();
+    static final int MAX_FINGERPRINTS = 1024;
+
+    /**
+     * 所有限流处理器共享的汇总线程，只在有失败被抑制时才有任务
+     */
+    private static final class SummaryTimer {
+        private static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "EventBus-ExceptionSummary");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private record Fingerprint(@Nullable EventListener listener, Class<? extends Throwable> type) {
+        static Fingerprint of(EventListener[] listeners, int index, Throwable throwable) {
+            return new Fingerprint(index >= 0 && index < listeners.length ? listeners[index] : null, throwable.getClass());
+        }
+    }
+
+    private static final class Failure {
+        private final LongAdder suppressed = new LongAdder();
+        /**
+         * 最近一次完整报告时异常栈顶的帧，异常没有栈时为null
+         */
+        @Nullable
+        private volatile StackTraceElement site;
+        private volatile long lastSeen;
+
+        private Failure(Throwable throwable, long now) {
+            this.site = site(throwable);
+            this.lastSeen = now;
+        }
+
+        @Nullable
+        private static StackTraceElement site(Throwable throwable) {
+            StackTraceElement[] trace = throwable.getStackTrace();
+            return trace.length == 0 ? null : trace[0];
+        }
+    }
+
+    private final IEventExceptionHandler delegate;
+    private final long windowNanos;
+    private final ConcurrentHashMap<Fingerprint, Failure> failures = new ConcurrentHashMap<>();
+    /**
+     * 因失败种类过多而未能归类的次数
+     */
+    private final LongAdder overflow = new LongAdder();
+    private final AtomicLong nextSummary;
+    private final AtomicBoolean summaryScheduled = new AtomicBoolean();
+
+    ThrottledExceptionHandler(IEventExceptionHandler delegate, long windowNanos) {
+        this.delegate = delegate;
+        this.windowNanos = windowNanos;
+        this.nextSummary = new AtomicLong(System.nanoTime() + windowNanos);
+    }
+
+    @Override
+    public void handleException(IEventBus bus, Event event, EventListener[] listeners, int index, Throwable throwable) {
+        long now = System.nanoTime();
+        long next = nextSummary.get();
+        if (now - next >= 0 && nextSummary.compareAndSet(next, now + windowNanos))
+            summarize();
+        Fingerprint fingerprint = Fingerprint.of(listeners, index, throwable);
+        Failure failure = failures.get(fingerprint);
+        if (failure == null) {
+            if (failures.size() >= MAX_FINGERPRINTS) {
+                overflow.increment();
+                scheduleSummary(now);
+                return;
+            }
+            failure = failures.putIfAbsent(fingerprint, new Failure(throwable, now));
+            if (failure == null) {
+                delegate.handleException(bus, event, listeners, index, throwable);
+                return;
+            }
+        }
+        long lastSeen = failure.lastSeen;
+        failure.lastSeen = now;
+        if (now - lastSeen > windowNanos) {
+            //完整报告本来就要格式化异常栈，顺便更新位置
+            failure.site = Failure.site(throwable);
+            delegate.handleException(bus, event, listeners, index, throwable);
+        } else {
+            failure.suppressed.increment();
+            scheduleSummary(now);
+        }
+    }
+
+    /**
+     * 在当前窗口结束时汇总被抑制的失败，已有待执行的汇总时什么也不做
+     */
+    private void scheduleSummary(long now) {
+        if (summaryScheduled.get() || !summaryScheduled.compareAndSet(false, true))
+            return;
+        SummaryTimer.INSTANCE.schedule(() -> {
+            summaryScheduled.set(false);
+            nextSummary.set(System.nanoTime() + windowNanos);
+            summarize();
+        }, Math.max(nextSummary.get() - now, 0), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录自上次汇总以来被抑制的失败，并遗忘超过一个窗口没有再出现的失败。由汇总线程、窗口结束后的第一次失败与{@link EventBus#close()}调用
+     */
+    void summarize() {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<Fingerprint, Failure>> iterator = failures.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Fingerprint, Failure> entry = iterator.next();
+            Failure failure = entry.getValue();
+            long count = failure.suppressed.sumThenReset();
+            if (count > 0) {
+                Fingerprint fingerprint = entry.getKey();
+                LOGGER.warn(EVENTBUS, "监听器 {} 又抛出了 {} 次 {}，最近报告的位置：{}",
+                        fingerprint.listener(), count, fingerprint.type().getName(), failure.site);
+            } else if (now - failure.lastSeen > windowNanos) {
+                iterator.remove();
+            }
+        }
+        long dropped = overflow.sumThenReset();
+        if (dropped > 0)
+            LOGGER.warn(EVENTBUS, "另有 {} 次监听器异常因失败种类超过 {} 种而未被单独报告", dropped, MAX_FINGERPRINTS);
+    }
+}
@@ -0,0 +1,42 @@
+package com.r3944realms.bus;
+
+import com.r3944realms.bus.api.Event;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Method;
+
+/**
+ * 弱引用注册的{@link com.r3944realms.bus.api.SubscribeEvent}方法的调用器。
+ * <p>
+ * 与{@link EventListenerFactory}生成的类不同，它不持有对象本身：每次调用时从弱引用取出对象，
+ * 对象已被回收时什么也不做，直到总线在下一次注册或取消注册时把它从监听器列表中移除。
+ */
+final class WeakEventListener extends GeneratedEventListener {
+    private final WeakTarget target;
+    private final MethodHandle handler;
+
+    WeakEventListener(WeakTarget target, Method method) {
+        this.target = target;
+        this.handler = EventListenerFactory.getInvoker(method);
+    }
+
+    @Override
+    public void invoke(Event event) {
+        Object instance = target.get();
+        if (instance == null)
+            return;
+        try {
+            handler.invokeExact(instance, event);
+        } catch (Throwable throwable) {
+            throw WeakEventListener.<RuntimeException>rethrow(throwable);
+        }
+    }
+
+    /**
+     * 原样抛出监听器的异常，使异常处理器看到的与生成的监听器一致
+     */
+    @SuppressWarnings("unchecked")
+    private static <E extends Throwable> E rethrow(Throwable throwable) throws E {
+        throw (E) throwable;
+    }
+}
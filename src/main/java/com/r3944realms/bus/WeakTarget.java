@@ -0,0 +1,48 @@
+package com.r3944realms.bus;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+/**
+ * 弱引用注册的对象在{@link EventBus}的注册表中的键。
+ * <p>
+ * 按对象的身份而不是{@link Object#equals(Object)}比较，对象被回收后只与自身相等，
+ * 因此从{@link ReferenceQueue}中取出的键仍能在注册表中找到对应的监听器。
+ */
+final class WeakTarget extends WeakReference<Object> {
+    private final int hash;
+
+    WeakTarget(Object target, @Nullable ReferenceQueue<Object> queue) {
+        super(target, queue);
+        this.hash = System.identityHashCode(target);
+    }
+
+    /**
+     * @return 用于在注册表中查找{@code target}的弱引用注册的临时键
+     */
+    static WeakTarget lookup(Object target) {
+        return new WeakTarget(target, null);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof WeakTarget other))
+            return false;
+        Object target = get();
+        return target != null && target == other.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(get());
+    }
+}
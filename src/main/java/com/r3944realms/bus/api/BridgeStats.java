@@ -0,0 +1,16 @@
+package com.r3944realms.bus.api;
+
+/**
+ * 进程间事件桥的统计快照
+ * @param forwarded 写入共享文件的事件数(发送方)
+ * @param dropped 因共享文件已满而丢弃的事件数(发送方)
+ * @param received 从共享文件读出并重新发布的事件数(接收方)
+ * @param codecErrors 编码或解码失败、或者类型未知而跳过的事件数，以及接收方在共享文件中发现无效记录的次数
+ * @see IEventBridge#stats()
+ */
+public record BridgeStats(long forwarded, long dropped, long received, long codecErrors) {
+    @Override
+    public String toString() {
+        return forwarded + " 已转发, " + dropped + " 已丢弃, " + received + " 已接收, " + codecErrors + " 编解码失败";
+    }
+}
@@ -2,6 +2,10 @@ package com.r3944realms.bus.api;
 
 import com.r3944realms.bus.BusBuilderImpl;
 
+import java.util.concurrent.Executor;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
 /**
  * 这是总线构造类 返回一个实现
  */
@@ -10,6 +14,22 @@ public interface BusBuilder {
         return new BusBuilderImpl();
     }
     BusBuilder setExceptionHandler(IEventExceptionHandler handler);
+
+    /**
+     * 对监听器异常去重并限流。
+     * <p>
+     * 同一个监听器抛出的同类异常只有第一次交给{@link #setExceptionHandler(IEventExceptionHandler) 异常处理器}完整报告，
+     * 之后在窗口结束时由后台线程汇总记录一次次数，避免热点事件上一个出错的监听器在每次发布时都输出完整的监听器列表与异常栈。
+     * 一整个窗口都没有再出现的失败会被遗忘，再次出现时重新完整报告。异常本身仍会向发布者传播。
+     * @param windowNanos 汇总的时间窗口(纳秒)
+     */
+    BusBuilder rateLimitExceptions(long windowNanos);
+
+    /**
+     * 设置慢监听器的报告回调并启用慢监听器监视。未设置时超时的监听器以警告记录到日志。
+     * @see #listenerBudget(long)
+     */
+    BusBuilder setSlowListenerHandler(ISlowListenerHandler handler);
     BusBuilder startShutdown();
     BusBuilder checkTypesOnDispatch();
     BusBuilder classChecker(IEventCLassChecker checker);
@@ -18,6 +38,105 @@ public interface BusBuilder {
      * 允许调用 {@link IEventBus post(EventPriority, Event)}
      */
     BusBuilder allowPerPhasePost();
+
+    /**
+     * 设置{@link IEventBus#postAsync(Event)}使用的执行器。<br/>
+     * 未设置时，在支持虚拟线程的运行时上每个事件使用一个虚拟线程，否则使用{@link java.util.concurrent.ForkJoinPool#commonPool()}
+     */
+    BusBuilder asyncExecutor(Executor executor);
+
+    /**
+     * 启用分发统计：记录每个监听器的调用次数、累计耗时与耗时直方图，以及每个事件类型的发布次数。
+     * @see IEventBus#getMetrics()
+     */
+    BusBuilder enableMetrics();
+
+    /**
+     * 启用编译分发：为每个事件类型的监听器快照生成一个隐藏类，以直线字节码依次调用所有监听器。
+     * <p>
+     * 分发器在事件类型首次发布时生成，此后由注册与取消注册的线程在快照变化时重新生成。
+     * 监听器过多、无法生成，或启用了分发统计时，退回到普通的数组循环。
+     */
+    BusBuilder compiledDispatch();
+
+    /**
+     * 启用分发统计，并以{@code com.r3944realms.bus:type=EventBus,name=<name>}注册到平台MBean服务器。
+     * {@link IEventBus#close()}时注销，再次{@link IEventBus#start() 启动}时重新注册
+     * @param name 用于区分总线的名称
+     */
+    BusBuilder exposeMetricsToJmx(String name);
+
+    /**
+     * 检测监听器是否在分发结束后仍然持有{@link IEventPool 池化的事件}。
+     * <p>
+     * 启用后事件池不再复用事件，而是在回收时弱引用事件，若垃圾回收后事件仍未被回收则记录警告。
+     * 检测依赖垃圾回收的时机，只应在开发与测试中启用。
+     */
+    BusBuilder debugEventPools();
+
+    /**
+     * 使用预分配的环形缓冲区发布事件。
+     * <p>
+     * 启用后{@link IEventBus#post(Event)}、{@link IEventBus#postAll(java.util.Collection)}与{@link IEventBus#postBatch}只把事件写入缓冲区后立即返回，
+     * 由总线自己的消费线程按发布顺序批量分发，生产者不再承担监听器的开销；监听器对事件的修改(例如取消)在返回时还不可见。
+     * 缓冲区已满时生产者等待消费线程腾出槽位；消费线程已被监听器抛出的{@link Error}终止时，生产者抛出{@link IllegalStateException}而不是永远等待。
+     * 其它发布方法仍然同步分发。
+     * @param capacity 缓冲区的槽位数量，必须是2的幂
+     * @param producerType 生产者模式
+     * @param waitStrategy 等待策略
+     * @see IEventBus#drain()
+     * @see IEventBus#close()
+     */
+    BusBuilder ringBuffer(int capacity, ProducerType producerType, WaitStrategy waitStrategy);
+
+    /**
+     * 按分区键把{@link IPartitionedEvent}分配到多个分区并行分发。
+     * <p>
+     * 每个分区有一个有界队列与一个工作线程，同一分区内的事件按入队顺序经由普通的监听器列表依次分发，不同分区互不阻塞。
+     * 启用后{@link IEventBus#post(Event)}、{@link IEventBus#postAll(java.util.Collection)}与{@link IEventBus#postBatch}对分区事件只负责入队，
+     * 队列已满时发布者等待；其它事件与其它发布方法不受影响。分区的监听器向已满的分区发布时不等待，而是抛出{@link IllegalStateException}。
+     * <p>
+     * 工作线程随{@link IEventBus#start()}启动，{@link #startShutdown()}的总线在启动前不会创建线程。
+     * @param lanes 分区数量
+     * @param laneCapacity 每个分区队列的容量
+     * @see IEventBus#drain()
+     * @see IEventBus#close()
+     * @see IEventBus#getLaneStats()
+     */
+    BusBuilder partitioned(int lanes, int laneCapacity);
+
+    /**
+     * 启用慢监听器监视，并设置监听器单次调用的默认时间预算。
+     * <p>
+     * 启用后每次监听器调用都会被计时，超过预算的调用报告给{@link #setSlowListenerHandler(ISlowListenerHandler) 报告回调}。
+     * 预算按以下顺序确定：{@link SubscribeEvent#budgetNanos()}，{@link #listenerBudget(Class, long) 为事件类型或其最近的父类配置的预算}，默认预算。
+     * 为0表示不限制。与{@link #enableMetrics()}一样，启用后编译分发不再生效；未启用时分发路径没有任何额外开销。
+     * @param budgetNanos 默认预算(纳秒)
+     */
+    BusBuilder listenerBudget(long budgetNanos);
+
+    /**
+     * 启用慢监听器监视，并为某一事件类型及其子类设置监听器单次调用的时间预算
+     * @param eventType 事件类型
+     * @param budgetNanos 预算(纳秒)，为0表示不限制
+     * @see #listenerBudget(long)
+     */
+    BusBuilder listenerBudget(Class<? extends Event> eventType, long budgetNanos);
+
+    /**
+     * 为某一事件类型及其子类启用合并。
+     * <p>
+     * 这些事件在{@link IEventBus#post(Event)}、{@link IEventBus#postAll(java.util.Collection)}、{@link IEventBus#postBatch}时不立即分发，而是按合并键暂存：
+     * 同一窗口内键相同的事件依次经{@code merge(先到的, 后到的)}合并，窗口结束时只分发合并的结果，顺序为各键首次出现的顺序。
+     * 与环形缓冲区一样，监听器对事件的修改在发布返回时还不可见。窗口由总线的定时线程结束，也可由{@link IEventBus#flush()}提前结束。
+     * 其它发布方法不经过合并阶段。
+     * @param eventType 事件类型
+     * @param keyFunction 计算事件的合并键，键相等(按{@link Object#equals(Object)})的事件会被合并
+     * @param merge 合并同一键的两个事件，不能返回null
+     * @param windowNanos 从窗口内第一个事件起到分发的时间(纳秒)，为0时只在{@link IEventBus#flush()}时分发
+     * @see IEventBus#getCoalescingStats()
+     */
+    <T extends Event> BusBuilder coalesce(Class<T> eventType, Function<? super T, ?> keyFunction, BinaryOperator<T> merge, long windowNanos);
     IEventBus build();
 
 }
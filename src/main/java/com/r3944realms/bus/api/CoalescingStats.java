@@ -0,0 +1,24 @@
+package com.r3944realms.bus.api;
+
+/**
+ * 合并阶段中某一事件类型的统计快照
+ * @param eventType 配置合并的事件类型(包括其子类)
+ * @param received 进入合并阶段的事件数
+ * @param dispatched 合并后实际分发的事件数
+ * @param pending 正在等待窗口结束的事件数(每个合并键一个)
+ * @see IEventBus#getCoalescingStats()
+ */
+public record CoalescingStats(Class<? extends Event> eventType, long received, long dispatched, long pending) {
+    /**
+     * @return 被合并掉而没有单独分发的事件占收到事件的比例，没有收到事件时为0
+     */
+    public double mergeRatio() {
+        return received == 0 ? 0 : Math.max(received - dispatched - pending, 0) / (double) received;
+    }
+
+    @Override
+    public String toString() {
+        return eventType.getName() + ": " + received + " 收到, " + dispatched + " 已分发, " + pending + " 等待中, 合并比例 "
+                + String.format("%.1f%%", mergeRatio() * 100);
+    }
+}
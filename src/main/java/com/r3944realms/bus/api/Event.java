@@ -4,4 +4,13 @@ public abstract class Event {
     boolean isCancelled = false;
 
     protected Event() {}
+
+    /**
+     * 将事件恢复到刚创建时的状态，由{@link IEventPool}在回收事件时调用。
+     * <p>
+     * 会被池化的事件应覆盖此方法清除自己的字段，并调用{@code super.reset()}以清除取消状态。
+     */
+    public void reset() {
+        isCancelled = false;
+    }
 }
@@ -0,0 +1,31 @@
+package com.r3944realms.bus.api;
+
+/**
+ * 带有运行时类型参数的事件，例如某种载荷类型的事件。
+ * <p>
+ * 类型参数作为事件的{@link IKeyedEvent#key() 键}，因此为某个参数化类型注册的监听器按{@code (事件类型, 类型参数)}索引，
+ * 发布时只调用原始类型(或通配符)的监听器以及该类型参数的监听器，而不需要每个监听器在运行时检查类型。
+ * <ul>
+ *     <li>{@link SubscribeEvent}方法：参数类型为{@code FooEvent<String>}时只接收类型参数为{@code String}的事件，
+ *     为原始类型或{@code FooEvent<?>}时接收所有事件</li>
+ *     <li>Lambda监听器：参数化类型在运行时被擦除，需使用{@link IEventBus#addGenericListener(Class, java.util.function.Consumer)}指定类型参数</li>
+ * </ul>
+ * 类型参数按类精确匹配，不考虑其子类。
+ * @param <T> 类型参数
+ */
+public class GenericEvent<T> extends Event implements IKeyedEvent {
+    private final Class<T> type;
+
+    public GenericEvent(Class<T> type) {
+        this.type = type;
+    }
+
+    public Class<T> getGenericType() {
+        return type;
+    }
+
+    @Override
+    public final Object key() {
+        return type;
+    }
+}
@@ -0,0 +1,51 @@
+package com.r3944realms.bus.api;
+
+import com.r3944realms.bus.MappedEventBridge;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * 通过内存映射的共享文件在同一主机的进程之间单向转发事件。
+ * <p>
+ * 发送方在本地总线上以{@link EventPriority#LOWEST 最低优先级}监听选定的事件类型，把本地分发后未被取消的事件编码后写入共享文件中的环形缓冲区；
+ * 接收方的后台线程读取并解码，在自己的总线上重新{@link IEventBus#post(Event) 发布}。事件不经过网络与套接字，只在共享内存中复制一次。
+ * <p>
+ * 每个文件只能有一个发送方和一个接收方，双向转发需要两个文件。接收方没有及时读取导致缓冲区已满时，发送方丢弃事件而不是阻塞发布者，
+ * 并计入{@link BridgeStats#dropped()}。接收方记录自己的读取位置，重启后从上次的位置继续。
+ */
+public interface IEventBridge extends AutoCloseable {
+    /**
+     * 创建发送方。文件不存在或容量不同时会被创建并初始化，否则从文件中的写入位置继续写入。
+     * <p>
+     * 必须在总线{@link IEventBus#freeze() 冻结}之前调用。
+     * @param bus 转发其事件的总线
+     * @param file 共享文件
+     * @param capacity 环形缓冲区的字节数，必须是2的幂且不小于4096
+     * @param codecs 要转发的事件类型的编解码器
+     */
+    static IEventBridge outbound(IEventBus bus, Path file, int capacity, List<? extends IEventCodec<?>> codecs) throws IOException {
+        return MappedEventBridge.outbound(bus, file, capacity, codecs);
+    }
+
+    /**
+     * 创建接收方并启动其后台线程。文件尚未由发送方初始化时，后台线程等待其初始化。
+     * @param bus 重新发布事件的总线
+     * @param file 共享文件
+     * @param codecs 接收的事件类型的编解码器，类型未知的事件被跳过并计入{@link BridgeStats#codecErrors()}
+     */
+    static IEventBridge inbound(IEventBus bus, Path file, List<? extends IEventCodec<?>> codecs) {
+        return MappedEventBridge.inbound(bus, file, codecs);
+    }
+
+    BridgeStats stats();
+
+    /**
+     * 停止转发：发送方取消在总线上的监听，接收方停止后台线程。共享文件保留，映射在垃圾回收时释放。
+     * <p>
+     * 总线已经{@link IEventBus#freeze() 冻结}时发送方的监听器无法取消，它们保留在总线上但不再转发任何事件。
+     */
+    @Override
+    void close();
+}
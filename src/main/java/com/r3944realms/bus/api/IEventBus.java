@@ -1,6 +1,13 @@
 package com.r3944realms.bus.api;
 
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * 事件总系API
@@ -26,6 +33,17 @@ public interface IEventBus {
      */
     void register(Object target);
 
+    /**
+     * 与{@link #register(Object)}相同地扫描对象的非静态{@link SubscribeEvent}方法并添加监听器，但总线只弱引用该对象。
+     * <p>
+     * 对象不再被其它地方引用时可以被回收，无需调用{@link #unregister(Object)}；
+     * 被回收后其监听器在发布时什么也不做，并在之后的下一次注册、添加监听器或取消注册时被批量移除，发布路径不承担任何清理工作。
+     * 弱引用注册总是通过反射扫描方法，不使用编译期生成的绑定表，每次调用多一次弱引用读取。
+     * 已经注册(无论是否弱引用)的对象再次注册时什么也不做。
+     * @param target 要注册的对象，不能是{@link Class 类}
+     */
+    void registerWeak(Object target);
+
     /**
      * 添加一个{@link EventPriority#NORMAL 普通优先级}且不可取消事件的无返回的监听器。
      * @param consumer 当接收到一个匹配的事件将回调调用
@@ -88,6 +106,57 @@ public interface IEventBus {
      */
     <T extends Event> void addListener(boolean receiveCanceled, Class<T> eventType, Consumer<T> consumer);
 
+    /**
+     * 添加一个只接收指定类型参数的{@link GenericEvent 泛型事件}的监听器。事件类型由Lambda表达式解析。
+     * @param genericClassFilter 类型参数
+     * @param consumer 当接收到一个匹配的事件将回调调用
+     */
+    <T extends GenericEvent<? extends F>, F> void addGenericListener(Class<F> genericClassFilter, Consumer<T> consumer);
+
+    /**
+     * 添加一个明确{@link EventPriority 优先级}、只接收指定类型参数的{@link GenericEvent 泛型事件}的监听器。
+     * @param genericClassFilter 类型参数
+     * @param priority 此监听器的{@link EventPriority 优先级}
+     * @param receiveCanceled 此监视器是否应接收已{@link ICancellableEvent}取消的事件
+     * @param eventType 所订阅具体的{@link GenericEvent 泛型事件}子类
+     * @param consumer 当接收到一个匹配的事件将回调调用
+     */
+    <T extends GenericEvent<? extends F>, F> void addGenericListener(Class<F> genericClassFilter, EventPriority priority, boolean receiveCanceled, Class<T> eventType, Consumer<T> consumer);
+
+    /**
+     * 添加一个订阅接口的监听器，所有实现该接口的事件都会被分发给此监听器。
+     * @param eventInterface 所订阅的接口，例如{@link ICancellableEvent}或自定义的标记接口
+     * @param consumer 当接收到一个匹配的事件将回调调用
+     */
+    <T> void addInterfaceListener(Class<T> eventInterface, Consumer<T> consumer);
+
+    /**
+     * 添加一个明确{@link EventPriority 优先级}、订阅接口的监听器，所有实现该接口的事件都会被分发给此监听器。
+     * @param priority 此监听器的{@link EventPriority 优先级}
+     * @param receiveCanceled 此监视器是否应接收已{@link ICancellableEvent}取消的事件
+     * @param eventInterface 所订阅的接口，例如{@link ICancellableEvent}或自定义的标记接口
+     * @param consumer 当接收到一个匹配的事件将回调调用
+     */
+    <T> void addInterfaceListener(EventPriority priority, boolean receiveCanceled, Class<T> eventInterface, Consumer<T> consumer);
+
+    /**
+     * 添加一个只接收指定键的事件的监听器。
+     * @param eventType 所订阅具体的{@link Event 事件}子类，必须实现{@link IKeyedEvent}
+     * @param key 只有{@link IKeyedEvent#key()}与之相等的事件才会被分发给此监听器
+     * @param consumer 当接收到一个匹配的事件将回调调用
+     */
+    <T extends Event & IKeyedEvent> void addListener(Class<T> eventType, Object key, Consumer<T> consumer);
+
+    /**
+     * 添加一个明确{@link EventPriority 优先级}、只接收指定键的事件的监听器。
+     * @param priority 此监听器的{@link EventPriority 优先级}
+     * @param receiveCanceled 此监视器是否应接收已{@link ICancellableEvent}取消的事件
+     * @param eventType 所订阅具体的{@link Event 事件}子类，必须实现{@link IKeyedEvent}
+     * @param key 只有{@link IKeyedEvent#key()}与之相等的事件才会被分发给此监听器
+     * @param consumer 当接收到一个匹配的事件将回调调用
+     */
+    <T extends Event & IKeyedEvent> void addListener(EventPriority priority, boolean receiveCanceled, Class<T> eventType, Object key, Consumer<T> consumer);
+
     /**
      * 从事件总线里取消注册提供的监听器。从事件里移除所有的监听器。
      * <p>
@@ -96,6 +165,15 @@ public interface IEventBus {
      */
     void unregister(Object target);
 
+    /**
+     * 开始一个批量注册事务。
+     * <p>
+     * 一次性注册大量监听器对象(例如加载插件)时，逐个注册会让同一个监听器列表及其所有子列表反复重建；
+     * 在事务内注册并统一提交，每个受影响的列表只重建一次。
+     * @return 新的事务，需要调用{@link IRegistrationBatch#commit()}发布修改
+     */
+    IRegistrationBatch batchRegister();
+
     /**
      * 将事件提分发给合适的监听器。
      * <p>
@@ -117,5 +195,110 @@ public interface IEventBus {
      * @see BusBuilder#allowPerPhasePost()
      */
     <T extends Event> T post(EventPriority priority, T event);
+
+    /**
+     * 在总线的异步执行器上将事件分发给合适的监听器。
+     * <p>
+     * 监听器数组在调用线程上获取，随后整条监听器链在同一个执行器任务中执行，
+     * 因此{@link EventPriority 优先级}顺序与取消语义均与{@link #post(Event)}一致。
+     * <p>
+     * 如果此总线尚未启动，则返回已完成的Future，事件不被调度。
+     * @param event 将分配给监听器的事件
+     * @return 所有监听器执行完后以传入的事件完成的Future；监听器抛出异常时以该异常完成
+     * @see BusBuilder#asyncExecutor(Executor)
+     */
+    <T extends Event> CompletableFuture<T> postAsync(T event);
+
+    /**
+     * 按顺序发布一批事件。
+     * <p>
+     * 连续的同类事件被视为一段：每段只做一次总线状态检查与监听器数组查找，随后按顺序把每个事件分发给所有监听器，
+     * 结果与逐个调用{@link #post(Event)}相同：监听器抛出异常时，之前的事件已到达所有监听器，之后的事件不被分发。
+     * 每个事件的取消状态与异常报告仍然是独立的。{@link IKeyedEvent 带键的事件}逐个查找监听器，
+     * 经{@link BusBuilder#ringBuffer 环形缓冲区}、{@link BusBuilder#partitioned 分区}或{@link BusBuilder#coalesce 合并阶段}
+     * 异步分发的事件逐个交给它们。
+     * <p>
+     * 如果此总线尚未启动，则事件将不被调度。
+     * @param events 将分配给监听器的事件
+     */
+    <T extends Event> void postAll(Collection<? extends T> events);
+
+    /**
+     * 发布一批类型完全相同的事件，语义与{@link #postAll(Collection)}相同，但只需一次监听器数组查找。
+     * <p>
+     * 如果此总线尚未启动，则事件将返回而不被调度，也不检查其类型。
+     * @param eventType 所有事件的具体类型
+     * @param events 将分配给监听器的事件
+     * @return 传入的事件数组
+     * @throws IllegalArgumentException 如果某个事件的类型不是{@code eventType}
+     */
+    <T extends Event> T[] postBatch(Class<T> eventType, T[] events);
+
+    /**
+     * 冻结总线。适用于在启动时完成所有注册、之后监听器不再变化的总线。
+     * <p>
+     * 冻结后本总线与返回的视图上的{@link #register(Object)}、{@code addListener}、{@link #unregister(Object)}
+     * 与{@link #batchRegister()}都会抛出{@link IllegalStateException}。返回视图的{@link #post(Event)}
+     * 在每个事件类型首次发布时固定其监听器与分发方式(包括类型检查)，之后每次发布只读取总线的关闭状态，
+     * 不再检查监听器是否变化，分发退化为固定的调用序列；是否使用{@link BusBuilder#compiledDispatch() 编译分发}与冻结前相同。
+     * 其它方法与原总线相同。
+     * <p>
+     * 应在所有注册完成后调用；与冻结并发进行的注册可能不会被冻结视图看到。重复调用返回同一视图。
+     * @return 冻结后的总线视图
+     * @throws IllegalStateException 如果总线尚未启动
+     */
+    IEventBus freeze();
+
+    /**
+     * 立即结束合并阶段的当前窗口：在调用线程上分发所有暂存的合并结果。未配置合并时什么也不做。
+     * <p>
+     * 以逻辑帧为边界的调用方应在每帧结束时调用，窗口为0的类型只在此时分发。
+     * @see BusBuilder#coalesce(Class, java.util.function.Function, java.util.function.BinaryOperator, long)
+     */
+    void flush();
+
+    /**
+     * 等待到调用时刻为止发布的所有事件分发完成，合并阶段暂存的事件会先被{@link #flush() 分发}。同步分发的总线上立即返回。
+     * @throws IllegalStateException 如果在总线的消费线程或分区工作线程(即监听器)中调用
+     * @see BusBuilder#ringBuffer(int, ProducerType, WaitStrategy)
+     * @see BusBuilder#partitioned(int, int)
+     */
+    void drain();
+
+    /**
+     * 关闭总线：之后发布的事件将被忽略，直到再次调用{@link #start()}。
+     * 分发合并阶段暂存的事件，等待已发布的事件分发完成，释放总线的后台线程并注销统计MBean。分区的工作线程会在{@link #start()}时重新创建，环形缓冲区关闭后则不能再使用。
+     */
+    void close();
+
+    /**
+     * @return 每个分区的统计快照，未启用{@link BusBuilder#partitioned(int, int) 分区分发}时为空列表
+     */
+    List<LaneStats> getLaneStats();
+
+    /**
+     * @return 每个配置了合并的事件类型的统计快照，包括合并比例，未配置合并时为空列表
+     * @see BusBuilder#coalesce(Class, java.util.function.Function, java.util.function.BinaryOperator, long)
+     */
+    List<CoalescingStats> getCoalescingStats();
+
+    /**
+     * 为某一事件类型创建对象池，池化的事件通过本总线发布。
+     * <p>
+     * 池化的事件在{@link IEventPool#post(Event)}返回后立即被回收，因此只能同步分发：
+     * 经{@link BusBuilder#ringBuffer 环形缓冲区}、{@link BusBuilder#partitioned 分区}或{@link BusBuilder#coalesce 合并}异步分发的事件类型不能池化。
+     * @param eventType 池中事件的具体类型
+     * @param factory 池为空时用于创建新事件
+     * @return 新的事件池
+     * @throws IllegalArgumentException 如果该事件类型是抽象的，或者在本总线上异步分发
+     */
+    <T extends Event> IEventPool<T> pool(Class<T> eventType, Supplier<T> factory);
+
+    /**
+     * @return 此总线的分发统计，如果构建总线时未启用统计则返回null
+     * @see BusBuilder#enableMetrics()
+     */
+    @Nullable
+    IEventBusMetrics getMetrics();
     void start();
 }
@@ -0,0 +1,31 @@
+package com.r3944realms.bus.api;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 事件总线的分发统计查询接口
+ * @see BusBuilder#enableMetrics()
+ */
+public interface IEventBusMetrics {
+    /**
+     * @param eventType 具体的{@link Event 事件}子类
+     * @return 该事件类型被发布的次数
+     */
+    long getPostCount(Class<? extends Event> eventType);
+
+    /**
+     * @return 所有被发布过的事件类型及其发布次数
+     */
+    Map<Class<? extends Event>, Long> getPostCounts();
+
+    /**
+     * @return 仍然注册且被调用过的监听器的统计快照，取消注册的监听器的统计随之移除
+     */
+    List<ListenerStats> getListenerStats();
+
+    /**
+     * 清空所有统计数据
+     */
+    void reset();
+}
@@ -4,6 +4,7 @@ package com.r3944realms.bus.api;
 public interface IEventCLassChecker {
     /**
      * 仅在事件不能被总线接收时抛出异常 {@link IllegalArgumentException}.
+     * 注册订阅接口的监听器时传入的是该接口本身。
      * @throws IllegalArgumentException 事件类无效
      */
     void check(Class<? extends Event> eventClass) throws IllegalArgumentException;
@@ -0,0 +1,27 @@
+package com.r3944realms.bus.api;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 事件与字节之间的转换，用于在进程之间转发事件与记录事件日志。
+ * <p>
+ * 发送方与接收方必须为同一事件类型使用兼容的编解码器；两侧以{@link #eventType()}的类名识别事件类型，因此不依赖注册顺序。
+ * @param <T> 事件类型，其子类的事件也会以此类型编码
+ * @see IEventBridge
+ * @see IEventJournal
+ */
+public interface IEventCodec<T extends Event> {
+    Class<T> eventType();
+
+    /**
+     * 把事件写入缓冲区的当前位置
+     * @throws java.nio.BufferOverflowException 如果编码后的事件超过了单条记录的最大长度，该事件不会被转发
+     */
+    void encode(T event, ByteBuffer buffer);
+
+    /**
+     * @param buffer 只包含一条记录的只读缓冲区，仅在本次调用期间有效
+     * @return 解码得到的新事件
+     */
+    T decode(ByteBuffer buffer);
+}
@@ -0,0 +1,64 @@
+package com.r3944realms.bus.api;
+
+import com.r3944realms.bus.EventJournal;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * 把选定类型的事件记录到只追加的日志中，用于崩溃恢复与重现生产环境的负载。
+ * <p>
+ * 日志是目录中按序号命名的一组内存映射的日志段，写满后创建下一个。每条记录包含事件类型、记录时刻(纪元纳秒)与{@link IEventCodec 编码}后的内容。
+ * 发布者的线程只负责编码(因此记录的是事件在记录时刻的状态，之后对事件的修改与事件池的复用都不影响日志)并放入有界队列；
+ * 写入由日志自己的后台线程批量完成，发布者不进行任何I/O，只有队列已满时才会等待。
+ * <p>
+ * 记录写入映射的页面后即使进程崩溃也会保留；操作系统崩溃时只有{@link #flush()}或{@link #close()}之前的记录是持久的。
+ */
+public interface IEventJournal extends AutoCloseable {
+    /**
+     * 开始记录。每次打开都创建新的日志段，不会修改目录中已有的日志段。
+     * <p>
+     * 必须在总线{@link IEventBus#freeze() 冻结}之前调用。
+     * @param bus 记录其事件的总线
+     * @param directory 日志目录，不存在时会被创建
+     * @param beforeDispatch 为true时以{@link EventPriority#HIGHEST 最高优先级}记录所有发布的事件，在本优先级中先于之后注册的监听器；
+     *                       为false时以{@link EventPriority#LOWEST 最低优先级}记录分发后未被取消的事件
+     * @param segmentSize 每个日志段的字节数，不小于1 MiB
+     * @param codecs 要记录的事件类型的编解码器，编码失败或编码后超过64 KiB的事件不被记录，计入{@link JournalStats#codecErrors()}
+     */
+    static IEventJournal record(IEventBus bus, Path directory, boolean beforeDispatch, int segmentSize, List<? extends IEventCodec<?>> codecs) throws IOException {
+        return EventJournal.record(bus, directory, beforeDispatch, segmentSize, codecs);
+    }
+
+    /**
+     * 在调用线程上把目录中的日志按记录的顺序重新发布到总线上。
+     * <p>
+     * 类型未知或解码失败的记录被跳过；监听器抛出的异常由总线的异常处理器报告，不会中断重放。
+     * 其它失败(例如发布前的类型检查)与{@link Error}向调用方抛出。
+     * 不要重放到正在向同一目录记录的总线上。
+     * @param directory 日志目录
+     * @param bus 发布事件的总线
+     * @param codecs 事件类型的编解码器
+     * @param pace 发布的节奏
+     * @return 重新发布的事件数
+     */
+    static long replay(Path directory, IEventBus bus, List<? extends IEventCodec<?>> codecs, ReplayPace pace) throws IOException {
+        return EventJournal.replay(directory, bus, codecs, pace);
+    }
+
+    /**
+     * 等待调用时刻之前记录的事件全部写入，并把日志段强制写回存储设备
+     * @throws IllegalStateException 如果在日志的写入线程中调用
+     */
+    void flush();
+
+    JournalStats stats();
+
+    /**
+     * 停止记录：写入队列中剩余的事件并强制写回存储设备，然后取消在总线上的监听。
+     * 总线已经{@link IEventBus#freeze() 冻结}时监听器无法取消，它们保留在总线上但不再记录任何事件。
+     */
+    @Override
+    void close();
+}
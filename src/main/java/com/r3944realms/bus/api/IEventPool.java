@@ -0,0 +1,34 @@
+package com.r3944realms.bus.api;
+
+import java.util.function.Supplier;
+
+/**
+ * 某一事件类型的对象池，由{@link IEventBus#pool(Class, Supplier)}创建。
+ * <p>
+ * 高频发布的事件可以从池中{@link #acquire() 获取}实例，填充字段后{@link #post(Event) 发布}，
+ * 发布结束后事件被{@link Event#reset() 重置}并放回池中，以避免每次发布都分配新对象。
+ * 池按线程划分，获取与回收都不需要同步。
+ * <p>
+ * 被回收的事件会被再次使用，因此监听器不能在分发结束后继续持有池化的事件。
+ * @see BusBuilder#debugEventPools()
+ */
+public interface IEventPool<T extends Event> {
+    /**
+     * @return 池中的空闲事件，池为空时创建一个新的事件
+     */
+    T acquire();
+
+    /**
+     * 将事件发布到总线，随后回收事件。即使监听器抛出异常，事件也会被回收。
+     * <p>
+     * 需要在发布后读取事件状态(例如取消状态)时，请使用{@link IEventBus#post(Event)}并在读取后调用{@link #release(Event)}。
+     * @param event 从本池获取的事件
+     */
+    void post(T event);
+
+    /**
+     * 重置事件并放回池中，调用后不能再使用该事件
+     * @param event 从本池获取的事件
+     */
+    void release(T event);
+}
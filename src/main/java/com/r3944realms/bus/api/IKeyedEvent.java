@@ -0,0 +1,20 @@
+package com.r3944realms.bus.api;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * 带有路由键的事件，例如某个实体或会话的事件。
+ * <p>
+ * 发布时只调用全局监听器以及为该键注册的监听器，而不是让每个键的监听器都订阅同一事件类型后自行过滤。
+ * 同一优先级内，全局监听器先于按键注册的监听器被调用。
+ * @see IEventBus#addListener(Class, Object, java.util.function.Consumer)
+ * @see SubscribeEvent#key()
+ */
+public interface IKeyedEvent {
+    /**
+     * 键按{@link Object#equals(Object)}与{@link Object#hashCode()}匹配。同一事件在分发期间应始终返回同一个键。
+     * @return 事件的键，为null时只调用全局监听器
+     */
+    @Nullable
+    Object key();
+}
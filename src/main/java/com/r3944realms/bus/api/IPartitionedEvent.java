@@ -0,0 +1,19 @@
+package com.r3944realms.bus.api;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * 带有分区键的事件，例如某个实体或会话的事件。
+ * <p>
+ * 在启用了{@link BusBuilder#partitioned(int, int) 分区分发}的总线上，{@link IEventBus#post(Event)}按分区键的散列把事件交给固定的一个分区：
+ * 同一分区内的事件按进入队列的顺序、由该分区唯一的工作线程逐个分发，不同分区的事件并行分发。
+ * 因此同一个键的事件不会被并发处理，也不会乱序。
+ */
+public interface IPartitionedEvent {
+    /**
+     * 键按{@link Object#hashCode()}散列。同一事件在发布期间应始终返回同一个键。
+     * @return 事件的分区键，为null时总是进入第一个分区
+     */
+    @Nullable
+    Object partitionKey();
+}
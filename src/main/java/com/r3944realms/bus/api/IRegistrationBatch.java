@@ -0,0 +1,67 @@
+package com.r3944realms.bus.api;
+
+import java.util.function.Consumer;
+
+/**
+ * 批量注册事务，由{@link IEventBus#batchRegister()}创建。
+ * <p>
+ * 事务内的注册与取消注册只会被暂存，直到{@link #commit()}时才一次性发布：
+ * 每个受影响的监听器列表只重建一次，发布事件的线程只会看到提交前或提交后的完整监听器集合。
+ * 未提交就{@link #close() 关闭}的事务会丢弃所有暂存的修改。
+ * <p>
+ * 事务本身不是线程安全的，应只在创建它的线程中使用。
+ * <pre>{@code
+ * try (IRegistrationBatch batch = bus.batchRegister()) {
+ *     plugins.forEach(batch::register);
+ *     batch.commit();
+ * }
+ * }</pre>
+ */
+public interface IRegistrationBatch extends AutoCloseable {
+    /**
+     * 暂存一次{@link IEventBus#register(Object)}
+     */
+    void register(Object target);
+
+    /**
+     * 暂存一次{@link IEventBus#addListener(Class, Consumer)}
+     */
+    <T extends Event> void addListener(Class<T> eventType, Consumer<T> consumer);
+
+    /**
+     * 暂存一次{@link IEventBus#addListener(EventPriority, Class, Consumer)}
+     */
+    <T extends Event> void addListener(EventPriority priority, Class<T> eventType, Consumer<T> consumer);
+
+    /**
+     * 暂存一次{@link IEventBus#addListener(EventPriority, boolean, Class, Consumer)}
+     */
+    <T extends Event> void addListener(EventPriority priority, boolean receiveCanceled, Class<T> eventType, Consumer<T> consumer);
+
+    /**
+     * 暂存一次{@link IEventBus#addListener(EventPriority, boolean, Class, Object, Consumer)}
+     */
+    <T extends Event & IKeyedEvent> void addListener(EventPriority priority, boolean receiveCanceled, Class<T> eventType, Object key, Consumer<T> consumer);
+
+    /**
+     * 暂存一次{@link IEventBus#addInterfaceListener(EventPriority, boolean, Class, Consumer)}
+     */
+    <T> void addInterfaceListener(EventPriority priority, boolean receiveCanceled, Class<T> eventInterface, Consumer<T> consumer);
+
+    /**
+     * 暂存一次{@link IEventBus#unregister(Object)}，也可以撤销本事务中暂存的注册
+     */
+    void unregister(Object target);
+
+    /**
+     * 发布所有暂存的修改
+     * @throws IllegalStateException 如果事务已经提交或关闭
+     */
+    void commit();
+
+    /**
+     * 结束事务，未提交的修改将被丢弃
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,20 @@
+package com.r3944realms.bus.api;
+
+/**
+ * 慢监听器的报告回调，与{@link IEventExceptionHandler}并列配置。
+ * @see BusBuilder#setSlowListenerHandler(ISlowListenerHandler)
+ */
+@FunctionalInterface
+public interface ISlowListenerHandler {
+    /**
+     * 当监听器的单次调用耗时超过其预算时触发，在分发线程上、该监听器返回后立即调用。
+     * <p>
+     * 此方法抛出的异常会被记录并忽略，不影响后续监听器的分发。
+     * @param bus 所触发事件所在的总线
+     * @param event 触发的事件
+     * @param listener 超时的监听器，{@link SubscribeEvent}方法的监听器的{@code toString()}包含目标对象与方法签名
+     * @param elapsedNanos 本次调用的耗时(纳秒)
+     * @param budgetNanos 该监听器的预算(纳秒)
+     */
+    void onSlowListener(IEventBus bus, Event event, EventListener listener, long elapsedNanos, long budgetNanos);
+}
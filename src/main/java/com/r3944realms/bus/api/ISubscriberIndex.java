@@ -0,0 +1,51 @@
+package com.r3944realms.bus.api;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * 由{@code processor}模块中的注解处理器在编译期为带有{@link SubscribeEvent}方法的类生成的绑定表。
+ * <p>
+ * 生成的类与监听器类位于同一包中，名为监听器类的二进制名加上{@link #CLASS_SUFFIX}。
+ * {@link IEventBus#register(Object)}找到绑定表时直接使用其中的元数据与直接调用的监听器，
+ * 不再需要反射扫描方法和生成隐藏类；找不到时退回反射路径。
+ */
+public interface ISubscriberIndex {
+    String CLASS_SUFFIX = "$$SubscriberIndex";
+
+    /**
+     * @return 监听器类中所有带{@link SubscribeEvent}注解的方法，顺序与{@link #createListener(int, Object)}的索引对应
+     */
+    List<SubscriberMethod> methods();
+
+    /**
+     * 为第{@code index}个方法创建一个直接调用该方法的监听器
+     * @param target 静态方法时为null，否则为被注册的对象
+     */
+    EventListener createListener(int index, @Nullable Object target);
+
+    /**
+     * 一个订阅方法的编译期元数据
+     * @param name 方法名
+     * @param descriptor 方法的JVM描述符
+     * @param isStatic 是否为静态方法
+     * @param eventType 方法唯一参数的类型
+     * @param priority {@link SubscribeEvent#priority()}
+     * @param receiveCancelled {@link SubscribeEvent#receiveCancelled()}
+     * @param key {@link SubscribeEvent#key()}或参数化{@link GenericEvent}的类型参数，都没有时为null
+     * @param budgetNanos {@link SubscribeEvent#budgetNanos()}
+     */
+    record SubscriberMethod(String name, String descriptor, boolean isStatic, Class<?> eventType,
+                            EventPriority priority, boolean receiveCancelled, @Nullable Object key, long budgetNanos) {
+        public SubscriberMethod(String name, String descriptor, boolean isStatic, Class<?> eventType,
+                                EventPriority priority, boolean receiveCancelled) {
+            this(name, descriptor, isStatic, eventType, priority, receiveCancelled, null);
+        }
+
+        public SubscriberMethod(String name, String descriptor, boolean isStatic, Class<?> eventType,
+                                EventPriority priority, boolean receiveCancelled, @Nullable Object key) {
+            this(name, descriptor, isStatic, eventType, priority, receiveCancelled, key, 0);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.r3944realms.bus.api;
+
+/**
+ * 事件日志的统计快照
+ * @param recorded 被记录(已编码并进入写入队列)的事件数
+ * @param written 已写入日志文件的事件数
+ * @param segments 本次打开后创建的日志段数
+ * @param producerWaits 发布者因写入队列已满而等待的次数
+ * @param codecErrors 编码失败而没有记录的事件数
+ * @see IEventJournal#stats()
+ */
+public record JournalStats(long recorded, long written, int segments, long producerWaits, long codecErrors) {
+    /**
+     * @return 尚未写入文件的事件数
+     */
+    public long backlog() {
+        return Math.max(recorded - written, 0);
+    }
+
+    @Override
+    public String toString() {
+        return recorded + " 已记录, " + written + " 已写入, 积压 " + backlog() + ", " + segments + " 个日志段, 发布者等待 "
+                + producerWaits + " 次, " + codecErrors + " 编码失败";
+    }
+}
@@ -0,0 +1,25 @@
+package com.r3944realms.bus.api;
+
+/**
+ * 分区分发中单个分区的统计快照
+ * @param lane 分区序号
+ * @param enqueued 进入该分区队列的事件数
+ * @param dispatched 该分区已分发完成的事件数
+ * @param maxBacklog 观察到的最大积压(已入队但未分发完成的事件数)
+ * @param producerWaits 发布者因队列已满而等待的次数
+ * @see IEventBus#getLaneStats()
+ */
+public record LaneStats(int lane, long enqueued, long dispatched, long maxBacklog, long producerWaits) {
+    /**
+     * @return 当前积压的事件数
+     */
+    public long backlog() {
+        return Math.max(enqueued - dispatched, 0);
+    }
+
+    @Override
+    public String toString() {
+        return "分区 " + lane + ": " + enqueued + " 入队, " + dispatched + " 已分发, 积压 " + backlog()
+                + " (最大 " + maxBacklog + "), 发布者等待 " + producerWaits + " 次";
+    }
+}
@@ -0,0 +1,28 @@
+package com.r3944realms.bus.api;
+
+/**
+ * 单个{@link EventListener}的分发统计快照
+ * @param listener 被统计的监听器
+ * @param invocations 调用次数
+ * @param totalNanos 累计耗时(纳秒)
+ * @param histogram 耗时直方图，第{@code i}个桶统计耗时小于{@link #bucketUpperBoundNanos(int) 2^i}纳秒且不小于上一个桶上界的调用次数，最后一个桶无上界
+ */
+public record ListenerStats(EventListener listener, long invocations, long totalNanos, long[] histogram) {
+    public static final int BUCKETS = 40;
+
+    /**
+     * @return 第{@code bucket}个桶的(不含)上界纳秒数，最后一个桶返回{@link Long#MAX_VALUE}
+     */
+    public static long bucketUpperBoundNanos(int bucket) {
+        return bucket >= BUCKETS - 1 ? Long.MAX_VALUE : 1L << bucket;
+    }
+
+    public double averageNanos() {
+        return invocations == 0 ? 0 : (double) totalNanos / invocations;
+    }
+
+    @Override
+    public String toString() {
+        return listener + ": " + invocations + " 次调用, 平均 " + (long) averageNanos() + "ns";
+    }
+}
@@ -0,0 +1,16 @@
+package com.r3944realms.bus.api;
+
+/**
+ * 环形缓冲区的生产者模式
+ * @see BusBuilder#ringBuffer(int, ProducerType, WaitStrategy)
+ */
+public enum ProducerType {
+    /**
+     * 只有一个线程发布事件，申请槽位不需要原子操作。多个线程同时发布会破坏缓冲区。
+     */
+    SINGLE,
+    /**
+     * 任意线程都可以发布事件，每次申请槽位需要一次原子自增
+     */
+    MULTI
+}
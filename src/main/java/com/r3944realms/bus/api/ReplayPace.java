@@ -0,0 +1,18 @@
+package com.r3944realms.bus.api;
+
+/**
+ * 重放日志时发布事件的节奏
+ * @see IEventJournal#replay(java.nio.file.Path, IEventBus, java.util.List, ReplayPace)
+ */
+public enum ReplayPace {
+    /**
+     * 不等待，逐个发布所有事件
+     */
+    FULL_SPEED,
+    /**
+     * 按记录时的间隔发布，第一个事件立即发布。
+     * <p>
+     * 每次打开日志是一个会话，会话之间的停机时间不计入间隔：每个会话的第一个事件在上一个会话的最后一个事件之后立即发布
+     */
+    ORIGINAL_TIMING
+}
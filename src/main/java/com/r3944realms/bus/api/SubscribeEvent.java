@@ -7,7 +7,7 @@ import java.lang.annotation.Target;
 
 /**
  * 这是将方法订阅到Event的注解。<br/>
- * 该注解只能应用于单参数方法，其中单参数方法是{@link Event}的子类。<br/>
+ * 该注解只能应用于单参数方法，其中单参数方法是{@link Event}的子类，或是事件所实现的接口(此时实现该接口的所有事件都会被分发给该方法)。<br/>
  * 使用{@link IEventBus}。<br/>
  * <code>register (Object)</code>将Object实例或Class提交到事件总线进行扫描，已生成回调的{@link EventListener}包装器<br/>
  * 事件总线系统生成一个ASM包装器，将其分派给标记方法。
@@ -18,4 +18,17 @@ public @interface SubscribeEvent {
     EventPriority priority() default EventPriority.NORMAL;
 
     boolean receiveCancelled() default false;
+
+    /**
+     * 只接收{@link IKeyedEvent#key()}等于该字符串的事件，为空时接收所有事件。
+     * 非空时参数类型必须实现{@link IKeyedEvent}。
+     */
+    String key() default "";
+
+    /**
+     * 单次调用的时间预算(纳秒)，超过时报告给总线的{@link ISlowListenerHandler}。
+     * 为0时使用总线为事件类型配置的预算；只在启用了慢监听器监视的总线上生效。
+     * @see BusBuilder#listenerBudget(long)
+     */
+    long budgetNanos() default 0;
 }
@@ -0,0 +1,20 @@
+package com.r3944realms.bus.api;
+
+/**
+ * 环形缓冲区的消费线程在没有事件时的等待方式。生产者在缓冲区已满时总是短暂自旋后挂起。
+ * @see BusBuilder#ringBuffer(int, ProducerType, WaitStrategy)
+ */
+public enum WaitStrategy {
+    /**
+     * 自旋等待，延迟最低，但会一直占用一个CPU核心
+     */
+    BUSY_SPIN,
+    /**
+     * 自旋并让出CPU，延迟与CPU占用介于两者之间
+     */
+    YIELD,
+    /**
+     * 挂起线程，空闲时不占用CPU，生产者需要在消费线程挂起时唤醒它
+     */
+    PARK
+}
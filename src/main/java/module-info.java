@@ -3,6 +3,8 @@ module com.r3944realms.bus {
     requires org.apache.logging.log4j;
     requires static org.jetbrains.annotations;
     requires org.objectweb.asm.commons;
+    requires java.management;
+    requires jdk.jfr;
     requires jdk.unsupported; // required for typetools
 
     exports com.r3944realms.bus;
@@ -0,0 +1,83 @@
+package com.r3944realms.bus.test;
+
+import com.r3944realms.bus.api.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncPostTest {
+    public static class AsyncEvent extends Event implements ICancellableEvent {
+        final List<String> calls = new CopyOnWriteArrayList<>();
+    }
+
+    private static final IEventExceptionHandler QUIET = (bus, event, listeners, index, throwable) -> {};
+
+    @Test
+    public void listenersRunOnTheExecutorInPriorityOrder() throws Exception {
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        IEventBus bus = BusBuilder.builder().asyncExecutor(tasks::add).build();
+        bus.addListener(EventPriority.LOW, true, AsyncEvent.class, event -> event.calls.add("low"));
+        bus.addListener(EventPriority.NORMAL, AsyncEvent.class, event -> event.calls.add("skipped"));
+        bus.addListener(EventPriority.HIGH, AsyncEvent.class, event -> {
+            event.calls.add("high");
+            event.setCanceled(true);
+        });
+        AsyncEvent event = new AsyncEvent();
+        CompletableFuture<AsyncEvent> future = bus.postAsync(event);
+        //整条监听器链作为执行器上的一个任务
+        assertEquals(1, tasks.size());
+        assertFalse(future.isDone());
+        assertTrue(event.calls.isEmpty());
+        tasks.poll().run();
+        assertSame(event, future.getNow(null));
+        assertEquals(List.of("high", "low"), event.calls);
+    }
+
+    @Test
+    public void listenersAreCapturedWhenPosting() {
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        IEventBus bus = BusBuilder.builder().asyncExecutor(tasks::add).build();
+        bus.addListener(AsyncEvent.class, event -> event.calls.add("before"));
+        CompletableFuture<AsyncEvent> future = bus.postAsync(new AsyncEvent());
+        bus.addListener(AsyncEvent.class, event -> event.calls.add("after"));
+        tasks.poll().run();
+        assertEquals(List.of("before"), future.join().calls);
+    }
+
+    @Test
+    public void listenerFailuresCompleteTheFutureExceptionally() {
+        IEventBus bus = BusBuilder.builder().asyncExecutor(Runnable::run).setExceptionHandler(QUIET).build();
+        bus.addListener(AsyncEvent.class, event -> {
+            throw new IllegalStateException("listener failure");
+        });
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> bus.postAsync(new AsyncEvent()).get());
+        assertTrue(failure.getCause() instanceof IllegalStateException, failure::toString);
+    }
+
+    @Test
+    public void stoppedBusCompletesWithoutDispatching() {
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        IEventBus bus = BusBuilder.builder().asyncExecutor(tasks::add).startShutdown().build();
+        bus.addListener(AsyncEvent.class, event -> event.calls.add("listener"));
+        AsyncEvent event = new AsyncEvent();
+        assertSame(event, bus.postAsync(event).getNow(null));
+        assertTrue(tasks.isEmpty());
+        assertTrue(event.calls.isEmpty());
+    }
+
+    @Test
+    public void defaultExecutorDispatchesOffTheCallingThread() throws Exception {
+        IEventBus bus = BusBuilder.builder().build();
+        Thread caller = Thread.currentThread();
+        bus.addListener(AsyncEvent.class, event -> event.calls.add(Thread.currentThread() == caller ? "caller" : "executor"));
+        assertEquals(List.of("executor"), bus.postAsync(new AsyncEvent()).get(10, TimeUnit.SECONDS).calls);
+    }
+}
@@ -0,0 +1,135 @@
+package com.r3944realms.bus.test;
+
+import com.r3944realms.bus.api.*;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchPostTest {
+    public static class NumberedEvent extends Event {
+        final int number;
+
+        NumberedEvent(int number) {
+            this.number = number;
+        }
+    }
+
+    public static class PartitionedNumberedEvent extends NumberedEvent implements IPartitionedEvent {
+        PartitionedNumberedEvent(int number) {
+            super(number);
+        }
+
+        @Override
+        public @Nullable Object partitionKey() {
+            return number;
+        }
+    }
+
+    public static class CoalescedEvent extends NumberedEvent {
+        CoalescedEvent(int number) {
+            super(number);
+        }
+    }
+
+    private static NumberedEvent[] numbered(int count) {
+        NumberedEvent[] events = new NumberedEvent[count];
+        Arrays.setAll(events, NumberedEvent::new);
+        return events;
+    }
+
+    /**
+     * 注册两个监听器，第二个在编号为{@code failAt}的事件上抛出异常，返回两者的调用记录
+     */
+    private static List<String> trace(IEventBus bus, int failAt) {
+        List<String> trace = new ArrayList<>();
+        bus.addListener(EventPriority.HIGH, NumberedEvent.class, event -> trace.add("first " + event.number));
+        bus.addListener(EventPriority.LOW, NumberedEvent.class, event -> {
+            trace.add("second " + event.number);
+            if (event.number == failAt)
+                throw new IllegalStateException("fail at " + failAt);
+        });
+        return trace;
+    }
+
+    private static List<String> sequential(int count, int failAt) {
+        IEventBus bus = BusBuilder.builder().setExceptionHandler((b, event, listeners, index, throwable) -> {}).build();
+        List<String> trace = trace(bus, failAt);
+        try {
+            for (NumberedEvent event : numbered(count))
+                bus.post(event);
+        } catch (IllegalStateException ignored) {
+        }
+        return trace;
+    }
+
+    @Test
+    public void batchesDispatchInTheSameOrderAsSequentialPosts() {
+        IEventBus bus = BusBuilder.builder().build();
+        List<String> trace = trace(bus, -1);
+        bus.postBatch(NumberedEvent.class, numbered(4));
+        bus.postAll(List.of(numbered(4)));
+        List<String> expected = new ArrayList<>(sequential(4, -1));
+        expected.addAll(sequential(4, -1));
+        assertEquals(expected, trace);
+    }
+
+    @Test
+    public void failureStopsTheBatchWhereSequentialPostsWouldStop() {
+        IEventBus bus = BusBuilder.builder().setExceptionHandler((b, event, listeners, index, throwable) -> {}).build();
+        List<String> trace = trace(bus, 2);
+        assertThrows(IllegalStateException.class, () -> bus.postBatch(NumberedEvent.class, numbered(4)));
+        List<String> expected = sequential(4, 2);
+        assertEquals(List.of("first 0", "second 0", "first 1", "second 1", "first 2", "second 2"), expected);
+        assertEquals(expected, trace);
+        trace.clear();
+        assertThrows(IllegalStateException.class, () -> bus.postAll(List.of(numbered(4))));
+        assertEquals(expected, trace);
+    }
+
+    @Test
+    public void postBatchOnAStoppedBusReturnsBeforeCheckingTypes() {
+        IEventBus bus = BusBuilder.builder().startShutdown().build();
+        List<String> trace = trace(bus, -1);
+        NumberedEvent[] events = {new NumberedEvent(0), new CoalescedEvent(1)};
+        assertSame(events, bus.postBatch(NumberedEvent.class, events));
+        assertTrue(trace.isEmpty());
+        bus.start();
+        assertThrows(IllegalArgumentException.class, () -> bus.postBatch(NumberedEvent.class, events));
+        assertTrue(trace.isEmpty());
+    }
+
+    @Test
+    public void postBatchHonoursPartitionsAndCoalescing() {
+        IEventBus bus = BusBuilder.builder()
+                .partitioned(2, 64)
+                .coalesce(CoalescedEvent.class, event -> 0, (first, second) -> second, 0)
+                .build();
+        try {
+            List<String> threads = new CopyOnWriteArrayList<>();
+            bus.addListener(PartitionedNumberedEvent.class, event -> threads.add(Thread.currentThread().getName()));
+            PartitionedNumberedEvent[] partitioned = new PartitionedNumberedEvent[8];
+            Arrays.setAll(partitioned, PartitionedNumberedEvent::new);
+            bus.postBatch(PartitionedNumberedEvent.class, partitioned);
+            bus.drain();
+            assertEquals(8, threads.size());
+            assertTrue(threads.stream().allMatch(name -> name.startsWith("EventBus-Lane-")), threads::toString);
+
+            List<Integer> coalesced = new ArrayList<>();
+            bus.addListener(CoalescedEvent.class, event -> coalesced.add(event.number));
+            CoalescedEvent[] events = new CoalescedEvent[5];
+            Arrays.setAll(events, CoalescedEvent::new);
+            bus.postBatch(CoalescedEvent.class, events);
+            assertTrue(coalesced.isEmpty());
+            bus.flush();
+            assertEquals(List.of(4), coalesced);
+        } finally {
+            bus.close();
+        }
+    }
+}
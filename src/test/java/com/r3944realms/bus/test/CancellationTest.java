@@ -0,0 +1,79 @@
+package com.r3944realms.bus.test;
+
+import com.r3944realms.bus.api.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CancellationTest {
+    public static class CancelableEvent extends Event implements ICancellableEvent {
+        final List<String> calls = new ArrayList<>();
+    }
+
+    public static class Subscriber {
+        @SubscribeEvent
+        public void skipped(CancelableEvent event) {
+            event.calls.add("skipped subscriber");
+        }
+
+        @SubscribeEvent(receiveCancelled = true)
+        public void received(CancelableEvent event) {
+            event.calls.add("receiving subscriber");
+        }
+    }
+
+    /**
+     * 各种分发方式：快照中的跳转索引、编译的分发器、保留包装的统计以及按阶段分发的列表
+     */
+    private static final List<Supplier<BusBuilder>> BUILDERS = List.of(
+            BusBuilder::builder,
+            () -> BusBuilder.builder().compiledDispatch(),
+            () -> BusBuilder.builder().enableMetrics(),
+            () -> BusBuilder.builder().allowPerPhasePost()
+    );
+
+    private static void listen(IEventBus bus) {
+        bus.addListener(EventPriority.HIGHEST, CancelableEvent.class, event -> {
+            event.calls.add("cancel");
+            event.setCanceled(true);
+        });
+        bus.addListener(EventPriority.HIGH, CancelableEvent.class, event -> event.calls.add("skipped high"));
+        bus.addListener(EventPriority.HIGH, true, CancelableEvent.class, event -> event.calls.add("receiving high"));
+        bus.register(new Subscriber());
+        bus.addListener(EventPriority.LOW, true, CancelableEvent.class, event -> {
+            event.calls.add("resume");
+            event.setCanceled(false);
+        });
+        bus.addListener(EventPriority.LOWEST, CancelableEvent.class, event -> event.calls.add("after resume"));
+    }
+
+    @Test
+    public void canceledEventsSkipOnlyListenersThatDoNotReceiveThem() {
+        for (Supplier<BusBuilder> builder : BUILDERS) {
+            IEventBus bus = builder.get().build();
+            listen(bus);
+            CancelableEvent event = bus.post(new CancelableEvent());
+            assertEquals(List.of("cancel", "receiving high", "receiving subscriber", "resume", "after resume"), event.calls);
+            assertFalse(event.isCanceled());
+        }
+    }
+
+    @Test
+    public void eventsCanceledBeforePostingReachOnlyReceivingListeners() {
+        for (Supplier<BusBuilder> builder : BUILDERS) {
+            IEventBus bus = builder.get().build();
+            bus.addListener(EventPriority.HIGHEST, CancelableEvent.class, event -> event.calls.add("skipped highest"));
+            bus.register(new Subscriber());
+            bus.addListener(EventPriority.LOWEST, true, CancelableEvent.class, event -> event.calls.add("receiving lowest"));
+            CancelableEvent event = new CancelableEvent();
+            event.setCanceled(true);
+            bus.post(event);
+            assertEquals(List.of("receiving subscriber", "receiving lowest"), event.calls);
+            assertTrue(event.isCanceled());
+        }
+    }
+}
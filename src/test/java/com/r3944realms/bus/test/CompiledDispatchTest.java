@@ -0,0 +1,87 @@
+package com.r3944realms.bus.test;
+
+import com.r3944realms.bus.api.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompiledDispatchTest {
+    public static class CompiledEvent extends Event {
+        final List<String> calls = new ArrayList<>();
+    }
+
+    public static class CancelableCompiledEvent extends CompiledEvent implements ICancellableEvent {
+    }
+
+    @Test
+    public void compiledDispatchFollowsListenerChanges() {
+        IEventBus bus = BusBuilder.builder().compiledDispatch().build();
+        Consumer<CompiledEvent> first = event -> event.calls.add("first");
+        bus.addListener(EventPriority.HIGH, CompiledEvent.class, first);
+        assertEquals(List.of("first"), bus.post(new CompiledEvent()).calls);
+        bus.addListener(CompiledEvent.class, event -> event.calls.add("second"));
+        assertEquals(List.of("first", "second"), bus.post(new CompiledEvent()).calls);
+        bus.unregister(first);
+        assertEquals(List.of("second"), bus.post(new CompiledEvent()).calls);
+    }
+
+    @Test
+    public void canceledEventsSkipListenersInCompiledDispatch() {
+        IEventBus bus = BusBuilder.builder().compiledDispatch().build();
+        bus.addListener(EventPriority.HIGH, CancelableCompiledEvent.class, event -> {
+            event.calls.add("cancel");
+            event.setCanceled(true);
+        });
+        bus.addListener(EventPriority.NORMAL, CancelableCompiledEvent.class, event -> event.calls.add("skipped"));
+        bus.addListener(EventPriority.LOW, true, CancelableCompiledEvent.class, event -> event.calls.add("receiver"));
+        assertEquals(List.of("cancel", "receiver"), bus.post(new CancelableCompiledEvent()).calls);
+    }
+
+    @Test
+    public void tooManyListenersFallBackToTheArrayLoop() {
+        IEventBus bus = BusBuilder.builder().compiledDispatch().build();
+        LongAdder hits = new LongAdder();
+        for (int i = 0; i < 100; i++)
+            bus.addListener(CompiledEvent.class, event -> hits.increment());
+        bus.post(new CompiledEvent());
+        assertEquals(100, hits.sum());
+    }
+
+    @Test
+    public void postersSeeEveryStableListenerDuringChurn() throws InterruptedException {
+        IEventBus bus = BusBuilder.builder().compiledDispatch().build();
+        LongAdder stableHits = new LongAdder();
+        bus.addListener(EventPriority.HIGHEST, CompiledEvent.class, event -> stableHits.increment());
+        AtomicBoolean running = new AtomicBoolean(true);
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        Thread churner = new Thread(() -> {
+            try {
+                while (running.get()) {
+                    Consumer<CompiledEvent> consumer = event -> {};
+                    bus.addListener(CompiledEvent.class, consumer);
+                    bus.unregister(consumer);
+                }
+            } catch (Throwable e) {
+                failures.add(e);
+            }
+        });
+        churner.start();
+        int posts = 50_000;
+        try {
+            for (int i = 0; i < posts; i++)
+                bus.post(new CompiledEvent());
+        } finally {
+            running.set(false);
+            churner.join();
+        }
+        assertTrue(failures.isEmpty(), () -> "注册线程抛出了异常：" + failures);
+        assertEquals(posts, stableHits.sum());
+    }
+}
@@ -0,0 +1,60 @@
+package com.r3944realms.bus.test;
+
+import com.r3944realms.bus.ConcurrentLookup;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentLookupTest {
+    @Test
+    public void factoriesMayLookUpOtherKeys() {
+        ConcurrentLookup<Integer, String> lookup = new ConcurrentLookup<>();
+        //与父列表的递归查找相同：创建值时查找另一个键
+        String value = lookup.computeIfAbsent(3, new Function<>() {
+            @Override
+            public String apply(Integer key) {
+                return key == 0 ? "0" : lookup.computeIfAbsent(key - 1, this) + key;
+            }
+        });
+        assertEquals("0123", value);
+        assertTrue(lookup.containsKey(0));
+        assertEquals("01", lookup.get(1));
+    }
+
+    @Test
+    public void finalizerRunsOncePerKeyUnderContention() throws InterruptedException {
+        ConcurrentLookup<Integer, Object> lookup = new ConcurrentLookup<>();
+        AtomicInteger finalized = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Object> results = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                results.add(lookup.computeIfAbsent(42, key -> new Object(), intermediate -> {
+                    finalized.incrementAndGet();
+                    return intermediate;
+                }));
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads)
+            thread.join();
+        assertEquals(1, finalized.get());
+        assertEquals(8, results.size());
+        assertTrue(results.stream().allMatch(result -> result == lookup.get(42)));
+    }
+}
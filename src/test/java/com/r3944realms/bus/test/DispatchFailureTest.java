@@ -0,0 +1,136 @@
+package com.r3944realms.bus.test;
+
+import com.r3944realms.bus.api.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DispatchFailureTest {
+    public static class FailingEvent extends Event {
+        final int value;
+
+        FailingEvent(int value) {
+            this.value = value;
+        }
+    }
+
+    public static class FailingCodec implements IEventCodec<FailingEvent> {
+        @Override
+        public Class<FailingEvent> eventType() {
+            return FailingEvent.class;
+        }
+
+        @Override
+        public void encode(FailingEvent event, ByteBuffer buffer) {
+            buffer.putInt(event.value);
+        }
+
+        @Override
+        public FailingEvent decode(ByteBuffer buffer) {
+            return new FailingEvent(buffer.getInt());
+        }
+    }
+
+    private static final IEventExceptionHandler QUIET = (bus, event, listeners, index, throwable) -> {};
+
+    @Test
+    public void consumerSurvivesListenerExceptionsAndProducersFailFastAfterErrors() {
+        IEventBus bus = BusBuilder.builder().ringBuffer(64, ProducerType.MULTI, WaitStrategy.PARK).setExceptionHandler(QUIET).build();
+        AtomicInteger received = new AtomicInteger();
+        bus.addListener(FailingEvent.class, event -> {
+            received.incrementAndGet();
+            if (event.value == 1)
+                throw new IllegalStateException("listener failure");
+            if (event.value == 2)
+                throw new Error("fatal");
+        });
+        try {
+            bus.post(new FailingEvent(1));
+            bus.post(new FailingEvent(0));
+            bus.drain();
+            assertEquals(2, received.get());
+            bus.post(new FailingEvent(2));
+            assertThrows(IllegalStateException.class, bus::drain);
+            //缓冲区被填满后生产者不应永远等待已经停止的消费线程
+            assertThrows(IllegalStateException.class, () -> {
+                for (int i = 0; i < 1000; i++)
+                    bus.post(new FailingEvent(0));
+            });
+        } finally {
+            bus.close();
+        }
+    }
+
+    @Test
+    public void coalescerRethrowsErrorsOnly() {
+        IEventBus bus = BusBuilder.builder()
+                .coalesce(FailingEvent.class, event -> event.value, (first, second) -> second, 0)
+                .setExceptionHandler(QUIET)
+                .build();
+        List<Integer> received = new ArrayList<>();
+        bus.addListener(FailingEvent.class, event -> {
+            received.add(event.value);
+            if (event.value == 1)
+                throw new IllegalStateException("listener failure");
+            if (event.value == 2)
+                throw new Error("fatal");
+        });
+        bus.post(new FailingEvent(1));
+        bus.post(new FailingEvent(0));
+        assertDoesNotThrow(bus::flush);
+        assertEquals(List.of(1, 0), received);
+        bus.post(new FailingEvent(2));
+        Error error = assertThrows(Error.class, bus::flush);
+        assertEquals("fatal", error.getMessage());
+        bus.close();
+    }
+
+    @Test
+    public void syncPostsDoNotRetainReportedExceptions() throws Exception {
+        IEventBus bus = BusBuilder.builder().setExceptionHandler(QUIET).build();
+        bus.addListener(FailingEvent.class, event -> {
+            throw new IllegalStateException("listener failure");
+        });
+        assertThrows(IllegalStateException.class, () -> bus.post(new FailingEvent(0)));
+        //保留的异常会让监听器所属的类加载器无法卸载
+        Field reported = Class.forName("com.r3944realms.bus.EventBus").getDeclaredField("REPORTED");
+        reported.setAccessible(true);
+        assertNull(((ThreadLocal<?>) reported.get(null)).get());
+    }
+
+    @Test
+    public void replayContinuesAfterListenerFailuresAndStopsOnOtherFailures(@TempDir Path dir) throws Exception {
+        List<FailingCodec> codecs = List.of(new FailingCodec());
+        IEventBus recorded = BusBuilder.builder().build();
+        try (IEventJournal journal = IEventJournal.record(recorded, dir, false, 1 << 20, codecs)) {
+            for (int i = 0; i < 3; i++)
+                recorded.post(new FailingEvent(i));
+        }
+
+        IEventBus bus = BusBuilder.builder().setExceptionHandler(QUIET).build();
+        List<Integer> received = new ArrayList<>();
+        bus.addListener(FailingEvent.class, event -> {
+            received.add(event.value);
+            if (event.value == 0)
+                throw new IllegalStateException("listener failure");
+        });
+        assertEquals(3, IEventJournal.replay(dir, bus, codecs, ReplayPace.FULL_SPEED));
+        assertEquals(List.of(0, 1, 2), received);
+
+        IEventBus rejecting = BusBuilder.builder()
+                .checkTypesOnDispatch()
+                .classChecker(eventClass -> {
+                    throw new IllegalArgumentException("rejected");
+                })
+                .build();
+        assertThrows(IllegalArgumentException.class, () -> IEventJournal.replay(dir, rejecting, codecs, ReplayPace.FULL_SPEED));
+    }
+}
@@ -0,0 +1,114 @@
+package com.r3944realms.bus.test;
+
+import com.r3944realms.bus.api.*;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DispatchMetricsTest {
+    public static class MeasuredEvent extends Event {
+    }
+
+    public static class Subscriber {
+        @SubscribeEvent
+        public void onEvent(MeasuredEvent event) {
+        }
+    }
+
+    @Test
+    public void unregisterDropsListenerStats() {
+        IEventBus bus = BusBuilder.builder().enableMetrics().build();
+        Subscriber subscriber = new Subscriber();
+        Consumer<MeasuredEvent> consumer = event -> {};
+        bus.register(subscriber);
+        bus.addListener(MeasuredEvent.class, consumer);
+        bus.post(new MeasuredEvent());
+        assertEquals(2, bus.getMetrics().getListenerStats().size());
+
+        bus.unregister(subscriber);
+        assertEquals(1, bus.getMetrics().getListenerStats().size());
+        bus.unregister(consumer);
+        assertTrue(bus.getMetrics().getListenerStats().isEmpty());
+        bus.post(new MeasuredEvent());
+        assertTrue(bus.getMetrics().getListenerStats().isEmpty());
+        assertEquals(2, bus.getMetrics().getPostCount(MeasuredEvent.class));
+    }
+
+    @Test
+    public void resetKeepsTrackingRegisteredListeners() {
+        IEventBus bus = BusBuilder.builder().enableMetrics().build();
+        bus.register(new Subscriber());
+        bus.post(new MeasuredEvent());
+        bus.getMetrics().reset();
+        assertTrue(bus.getMetrics().getListenerStats().isEmpty());
+        bus.post(new MeasuredEvent());
+        assertEquals(1, bus.getMetrics().getListenerStats().size());
+        assertEquals(1, bus.getMetrics().getListenerStats().get(0).invocations());
+    }
+
+    @Test
+    public void metricsDoNotRetainWeakTargets() throws InterruptedException {
+        IEventBus bus = BusBuilder.builder().enableMetrics().build();
+        Subscriber subscriber = new Subscriber();
+        WeakReference<Subscriber> reference = new WeakReference<>(subscriber);
+        bus.registerWeak(subscriber);
+        bus.post(new MeasuredEvent());
+        assertEquals(1, bus.getMetrics().getListenerStats().size());
+
+        subscriber = null;
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(reference.get(), "统计使弱引用注册的对象无法被回收");
+        //被回收对象的监听器在下一次注册或取消注册时移除
+        bus.unregister(new Object());
+        assertTrue(bus.getMetrics().getListenerStats().isEmpty());
+    }
+
+    @Test
+    public void addingListenersPurgesCollectedTargets() throws InterruptedException {
+        IEventBus bus = BusBuilder.builder().enableMetrics().build();
+        Subscriber subscriber = new Subscriber();
+        WeakReference<Subscriber> reference = new WeakReference<>(subscriber);
+        bus.registerWeak(subscriber);
+        bus.post(new MeasuredEvent());
+        assertEquals(1, bus.getMetrics().getListenerStats().size());
+
+        subscriber = null;
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(reference.get());
+        //只添加监听器而从不注册或取消注册对象的总线也要移除被回收对象的监听器
+        Consumer<MeasuredEvent> consumer = event -> {};
+        bus.addListener(MeasuredEvent.class, consumer);
+        assertTrue(bus.getMetrics().getListenerStats().isEmpty());
+        bus.post(new MeasuredEvent());
+        assertEquals(1, bus.getMetrics().getListenerStats().size());
+    }
+
+    @Test
+    public void closeUnregistersTheMBean() throws Exception {
+        ObjectName name = new ObjectName("com.r3944realms.bus:type=EventBus,name=" + ObjectName.quote("closeUnregistersTheMBean"));
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        IEventBus bus = BusBuilder.builder().exposeMetricsToJmx("closeUnregistersTheMBean").build();
+        assertTrue(server.isRegistered(name));
+        bus.close();
+        assertFalse(server.isRegistered(name));
+        bus.start();
+        assertTrue(server.isRegistered(name));
+        bus.close();
+        bus.close();
+        assertFalse(server.isRegistered(name));
+        //注销后同名的总线可以再次注册
+        BusBuilder.builder().exposeMetricsToJmx("closeUnregistersTheMBean").build().close();
+    }
+}
@@ -0,0 +1,173 @@
+package com.r3944realms.bus.test;
+
+import com.r3944realms.bus.api.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventBridgeTest {
+    private static final int CAPACITY = 1 << 16;
+
+    public static class PingEvent extends Event {
+        final int value;
+
+        PingEvent(int value) {
+            this.value = value;
+        }
+    }
+
+    public static class PingCodec implements IEventCodec<PingEvent> {
+        @Override
+        public Class<PingEvent> eventType() {
+            return PingEvent.class;
+        }
+
+        @Override
+        public void encode(PingEvent event, ByteBuffer buffer) {
+            buffer.putInt(event.value);
+        }
+
+        @Override
+        public PingEvent decode(ByteBuffer buffer) {
+            return new PingEvent(buffer.getInt());
+        }
+    }
+
+    /**
+     * 在另一个JVM中运行：把从第一个文件收到的事件经第二个文件原样发回，标准输入关闭时退出
+     */
+    public static class EchoPeer {
+        public static void main(String[] args) throws IOException {
+            IEventBus bus = BusBuilder.builder().build();
+            List<PingCodec> codecs = List.of(new PingCodec());
+            try (IEventBridge outbound = IEventBridge.outbound(bus, Path.of(args[1]), CAPACITY, codecs);
+                 IEventBridge inbound = IEventBridge.inbound(bus, Path.of(args[0]), codecs)) {
+                System.out.println("ready");
+                System.out.flush();
+                while (System.in.read() != -1) {
+                }
+            }
+        }
+    }
+
+    @Test
+    public void eventsRoundTripThroughAnotherProcess(@TempDir Path dir) throws Exception {
+        Path request = dir.resolve("request.ring");
+        Path reply = dir.resolve("reply.ring");
+        List<PingCodec> codecs = List.of(new PingCodec());
+        IEventBus sender = BusBuilder.builder().build();
+        IEventBus receiver = BusBuilder.builder().build();
+        BlockingQueue<Integer> replies = new LinkedBlockingQueue<>();
+        receiver.addListener(PingEvent.class, event -> replies.add(event.value));
+        Process peer = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"),
+                EchoPeer.class.getName(), request.toString(), reply.toString()
+        ).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        try (IEventBridge outbound = IEventBridge.outbound(sender, request, CAPACITY, codecs);
+             IEventBridge inbound = IEventBridge.inbound(receiver, reply, codecs)) {
+            BufferedReader output = new BufferedReader(new InputStreamReader(peer.getInputStream(), StandardCharsets.UTF_8));
+            assertEquals("ready", output.readLine());
+            int count = 1000;
+            for (int i = 0; i < count; i++)
+                sender.post(new PingEvent(i));
+            List<Integer> values = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                Integer value = replies.poll(30, TimeUnit.SECONDS);
+                assertNotNull(value, () -> "只收到了" + values.size() + "个回复，" + outbound.stats());
+                values.add(value);
+            }
+            for (int i = 0; i < count; i++)
+                assertEquals(i, values.get(i));
+            assertEquals(count, outbound.stats().forwarded());
+            assertEquals(count, inbound.stats().received());
+        } finally {
+            peer.getOutputStream().close();
+            if (!peer.waitFor(10, TimeUnit.SECONDS))
+                peer.destroyForcibly();
+        }
+        assertEquals(0, peer.exitValue());
+    }
+
+    @Test
+    public void corruptedRecordIsSkippedAndReadingContinues(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("corrupted.ring");
+        List<PingCodec> codecs = List.of(new PingCodec());
+        IEventBridge.outbound(BusBuilder.builder().build(), file, CAPACITY, codecs).close();
+        //伪造一条长度超出范围的记录：写入位置位于头部偏移64，数据区从192开始
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(8).order(ByteOrder.nativeOrder());
+            channel.write(header.putInt(0, Integer.MAX_VALUE).putInt(4, 1), 192);
+            channel.write(ByteBuffer.allocate(8).order(ByteOrder.nativeOrder()).putLong(0, 8L), 64);
+        }
+        IEventBus receiver = BusBuilder.builder().build();
+        BlockingQueue<Integer> received = new LinkedBlockingQueue<>();
+        receiver.addListener(PingEvent.class, event -> received.add(event.value));
+        try (IEventBridge inbound = IEventBridge.inbound(receiver, file, codecs)) {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (inbound.stats().codecErrors() == 0 && System.nanoTime() < deadline)
+                Thread.sleep(1);
+            assertEquals(1, inbound.stats().codecErrors());
+            IEventBus sender = BusBuilder.builder().build();
+            try (IEventBridge outbound = IEventBridge.outbound(sender, file, CAPACITY, codecs)) {
+                sender.post(new PingEvent(42));
+                assertEquals(42, received.poll(10, TimeUnit.SECONDS));
+            }
+        }
+    }
+
+    @Test
+    public void invalidCapacityInHeaderIsRejected(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("invalid.ring");
+        List<PingCodec> codecs = List.of(new PingCodec());
+        IEventBridge.outbound(BusBuilder.builder().build(), file, CAPACITY, codecs).close();
+        long size = Files.size(file);
+        //头部偏移8处的容量不是2的幂，按其映射会扩展文件并得到错误的掩码
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(8).order(ByteOrder.nativeOrder()).putLong(0, CAPACITY * 3L), 8);
+        }
+        IEventBus receiver = BusBuilder.builder().build();
+        BlockingQueue<Integer> received = new LinkedBlockingQueue<>();
+        receiver.addListener(PingEvent.class, event -> received.add(event.value));
+        try (IEventBridge inbound = IEventBridge.inbound(receiver, file, codecs)) {
+            Thread.sleep(50);
+            assertEquals(size, Files.size(file));
+            //发送方重新初始化文件后接收方可以正常读取
+            IEventBus sender = BusBuilder.builder().build();
+            try (IEventBridge outbound = IEventBridge.outbound(sender, file, CAPACITY, codecs)) {
+                sender.post(new PingEvent(7));
+                assertEquals(7, received.poll(10, TimeUnit.SECONDS));
+            }
+        }
+    }
+
+    @Test
+    public void outboundClosesOnFrozenBus(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("frozen.ring");
+        List<PingCodec> codecs = List.of(new PingCodec());
+        IEventBus bus = BusBuilder.builder().build();
+        IEventBridge outbound = IEventBridge.outbound(bus, file, CAPACITY, codecs);
+        IEventBus frozen = bus.freeze();
+        frozen.post(new PingEvent(1));
+        assertDoesNotThrow(outbound::close);
+        frozen.post(new PingEvent(2));
+        assertEquals(1, outbound.stats().forwarded());
+    }
+}
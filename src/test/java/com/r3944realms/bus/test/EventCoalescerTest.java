@@ -0,0 +1,97 @@
+package com.r3944realms.bus.test;
+
+import com.r3944realms.bus.api.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventCoalescerTest {
+    public static class MoveEvent extends Event {
+        final int entity;
+        final int distance;
+
+        MoveEvent(int entity, int distance) {
+            this.entity = entity;
+            this.distance = distance;
+        }
+    }
+
+    private static IEventBus bus(long windowNanos) {
+        return BusBuilder.builder()
+                .coalesce(MoveEvent.class, event -> event.entity,
+                        (first, second) -> new MoveEvent(first.entity, first.distance + second.distance), windowNanos)
+                .build();
+    }
+
+    private static void await(List<?> received, int size) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (received.size() < size && System.nanoTime() < deadline)
+            Thread.sleep(1);
+    }
+
+    @Test
+    public void timeWindowDispatchesMergedEventsOnTheTimer() throws InterruptedException {
+        IEventBus bus = bus(TimeUnit.MILLISECONDS.toNanos(50));
+        List<String> received = new CopyOnWriteArrayList<>();
+        bus.addListener(MoveEvent.class, event ->
+                received.add(event.entity + ":" + event.distance + "@" + Thread.currentThread().getName()));
+        try {
+            for (int i = 0; i < 30; i++)
+                bus.post(new MoveEvent(i % 3, 1));
+            assertTrue(received.isEmpty());
+            await(received, 3);
+            assertEquals(List.of("0:10@EventBus-Coalescer", "1:10@EventBus-Coalescer", "2:10@EventBus-Coalescer"), received);
+
+            //上一个窗口结束后的事件开启新的窗口
+            received.clear();
+            bus.post(new MoveEvent(7, 5));
+            await(received, 1);
+            assertEquals(List.of("7:5@EventBus-Coalescer"), received);
+        } finally {
+            bus.close();
+        }
+    }
+
+    @Test
+    public void statsReportTheMergeRatio() {
+        IEventBus bus = bus(0);
+        List<Integer> received = new CopyOnWriteArrayList<>();
+        bus.addListener(MoveEvent.class, event -> received.add(event.distance));
+        for (int i = 0; i < 10; i++)
+            bus.post(new MoveEvent(i % 2, 1));
+        CoalescingStats pending = bus.getCoalescingStats().get(0);
+        assertEquals(MoveEvent.class, pending.eventType());
+        assertEquals(10, pending.received());
+        assertEquals(0, pending.dispatched());
+        assertEquals(2, pending.pending());
+        assertEquals(0.8, pending.mergeRatio(), 1e-9);
+
+        bus.flush();
+        assertEquals(List.of(5, 5), received);
+        CoalescingStats flushed = bus.getCoalescingStats().get(0);
+        assertEquals(2, flushed.dispatched());
+        assertEquals(0, flushed.pending());
+        assertEquals(0.8, flushed.mergeRatio(), 1e-9);
+    }
+
+    @Test
+    public void windowsResumeAfterRestart() throws InterruptedException {
+        IEventBus bus = bus(TimeUnit.MILLISECONDS.toNanos(20));
+        List<Integer> received = new CopyOnWriteArrayList<>();
+        bus.addListener(MoveEvent.class, event -> received.add(event.distance));
+        bus.post(new MoveEvent(0, 1));
+        //关闭时分发暂存的事件，关闭期间的事件被忽略
+        bus.close();
+        assertEquals(List.of(1), received);
+        bus.post(new MoveEvent(0, 2));
+        bus.start();
+        bus.post(new MoveEvent(0, 3));
+        await(received, 2);
+        assertEquals(List.of(1, 3), received);
+        bus.close();
+    }
+}
@@ -0,0 +1,165 @@
+package com.r3944realms.bus.test;
+
+import com.r3944realms.bus.api.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongUnaryOperator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventJournalTest {
+    private static final int SEGMENT_SIZE = 1 << 20;
+    /**
+     * 日志段的头部大小与记录头部大小，见{@code EventJournal}
+     */
+    private static final int DATA_OFFSET = 64;
+    private static final int RECORD_HEADER = 16;
+
+    public static class TickEvent extends Event {
+        final int value;
+
+        TickEvent(int value) {
+            this.value = value;
+        }
+    }
+
+    public static class TickCodec implements IEventCodec<TickEvent> {
+        @Override
+        public Class<TickEvent> eventType() {
+            return TickEvent.class;
+        }
+
+        @Override
+        public void encode(TickEvent event, ByteBuffer buffer) {
+            buffer.putInt(event.value);
+        }
+
+        @Override
+        public TickEvent decode(ByteBuffer buffer) {
+            return new TickEvent(buffer.getInt());
+        }
+    }
+
+    private static final List<TickCodec> CODECS = List.of(new TickCodec());
+
+    /**
+     * 在一个会话中记录给定的事件，相邻事件之间等待{@code gapMillis}毫秒
+     */
+    private static void session(Path dir, int from, int to, long gapMillis) throws IOException, InterruptedException {
+        IEventBus bus = BusBuilder.builder().build();
+        try (IEventJournal journal = IEventJournal.record(bus, dir, false, SEGMENT_SIZE, CODECS)) {
+            for (int i = from; i < to; i++) {
+                if (i > from && gapMillis > 0)
+                    Thread.sleep(gapMillis);
+                bus.post(new TickEvent(i));
+            }
+            journal.flush();
+            assertEquals(to - from, journal.stats().written());
+        }
+    }
+
+    private static List<Path> segments(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.toString().endsWith(".journal")).sorted().toList();
+        }
+    }
+
+    /**
+     * 依次访问日志段中的记录，返回日志末尾的偏移
+     */
+    private static int forEachRecord(MappedByteBuffer segment, LongUnaryOperator timestamps) {
+        int offset = DATA_OFFSET;
+        while (offset + RECORD_HEADER <= segment.capacity()) {
+            int length = segment.getInt(offset);
+            if (length <= 0)
+                break;
+            segment.putLong(offset + 8, timestamps.applyAsLong(segment.getLong(offset + 8)));
+            offset += (RECORD_HEADER + length + 7) & ~7;
+        }
+        return offset;
+    }
+
+    private static MappedByteBuffer map(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return (MappedByteBuffer) channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    private static List<Integer> replay(Path dir, ReplayPace pace) throws IOException {
+        IEventBus bus = BusBuilder.builder().build();
+        List<Integer> values = new ArrayList<>();
+        bus.addListener(TickEvent.class, event -> values.add(event.value));
+        long replayed = IEventJournal.replay(dir, bus, CODECS, pace);
+        assertEquals(values.size(), replayed);
+        return values;
+    }
+
+    @Test
+    public void replayStopsAtTornTailAndContinuesWithNextSession(@TempDir Path dir) throws Exception {
+        session(dir, 0, 50, 0);
+        //模拟写入时崩溃：除长度外记录已写完，长度仍为0
+        Path first = segments(dir).get(0);
+        MappedByteBuffer segment = map(first);
+        int end = forEachRecord(segment, timestamp -> timestamp);
+        segment.putInt(end + 4, CODECS.get(0).eventType().getName().hashCode());
+        segment.putLong(end + 8, System.nanoTime());
+        segment.putInt(end + RECORD_HEADER, 999);
+        segment.force();
+        Thread.sleep(5);
+        session(dir, 50, 100, 0);
+        assertEquals(2, segments(dir).size());
+
+        List<Integer> values = replay(dir, ReplayPace.FULL_SPEED);
+        assertEquals(100, values.size());
+        for (int i = 0; i < 100; i++)
+            assertEquals(i, values.get(i));
+    }
+
+    @Test
+    public void originalTimingSkipsDowntimeBetweenSessions(@TempDir Path dir) throws Exception {
+        session(dir, 0, 2, 0);
+        //第一个会话发生在一小时之前
+        long hour = TimeUnit.HOURS.toNanos(1);
+        MappedByteBuffer segment = map(segments(dir).get(0));
+        forEachRecord(segment, timestamp -> timestamp - hour);
+        segment.force();
+        Thread.sleep(5);
+        session(dir, 2, 4, 200);
+
+        long start = System.nanoTime();
+        List<Integer> values = replay(dir, ReplayPace.ORIGINAL_TIMING);
+        long elapsed = System.nanoTime() - start;
+        assertEquals(List.of(0, 1, 2, 3), values);
+        assertTrue(elapsed >= TimeUnit.MILLISECONDS.toNanos(150), () -> "会话内的间隔没有保留：" + elapsed);
+        assertTrue(elapsed < TimeUnit.SECONDS.toNanos(10), () -> "重放等待了会话之间的停机时间：" + elapsed);
+    }
+
+    @Test
+    public void closeOnFrozenBusStopsTheWriter(@TempDir Path dir) throws Exception {
+        IEventBus bus = BusBuilder.builder().build();
+        IEventJournal journal = IEventJournal.record(bus, dir, false, SEGMENT_SIZE, CODECS);
+        IEventBus frozen = bus.freeze();
+        frozen.post(new TickEvent(1));
+        assertDoesNotThrow(journal::close);
+        assertDoesNotThrow(journal::close);
+        assertTrue(Thread.getAllStackTraces().keySet().stream()
+                .noneMatch(thread -> thread.getName().equals("EventBus-Journal-" + dir.getFileName())), "写入线程没有停止");
+        //关闭后保留在冻结总线上的记录器不再记录
+        frozen.post(new TickEvent(2));
+        assertEquals(1, journal.stats().recorded());
+        assertEquals(List.of(1), replay(dir, ReplayPace.FULL_SPEED));
+    }
+}
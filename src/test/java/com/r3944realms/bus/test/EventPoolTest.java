@@ -0,0 +1,162 @@
+package com.r3944realms.bus.test;
+
+import com.r3944realms.bus.api.*;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventPoolTest {
+    public static class PayloadEvent extends Event {
+        long id;
+        long check;
+
+        void fill(long id) {
+            this.id = id;
+            this.check = ~id;
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            id = 0;
+            check = 0;
+        }
+    }
+
+    public static class CancelablePayloadEvent extends PayloadEvent implements ICancellableEvent {
+    }
+
+    public static class PartitionedPayloadEvent extends PayloadEvent implements IPartitionedEvent {
+        @Override
+        public @Nullable Object partitionKey() {
+            return id;
+        }
+    }
+
+    @Test
+    public void pooledEventsArriveIntact() throws InterruptedException {
+        IEventBus bus = BusBuilder.builder().build();
+        IEventPool<PayloadEvent> pool = bus.pool(PayloadEvent.class, PayloadEvent::new);
+        AtomicLong received = new AtomicLong();
+        AtomicLong corrupted = new AtomicLong();
+        bus.addListener(PayloadEvent.class, event -> {
+            received.incrementAndGet();
+            if (event.id == 0 || event.check != ~event.id)
+                corrupted.incrementAndGet();
+        });
+        int threads = 4;
+        int perThread = 20_000;
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long base = (long) t * perThread;
+            Thread producer = new Thread(() -> {
+                for (long i = 1; i <= perThread; i++) {
+                    PayloadEvent event = pool.acquire();
+                    event.fill(base + i);
+                    pool.post(event);
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+        for (Thread producer : producers)
+            producer.join();
+        assertEquals((long) threads * perThread, received.get());
+        assertEquals(0, corrupted.get());
+    }
+
+    @Test
+    public void releasedEventsAreResetAndReused() {
+        IEventBus bus = BusBuilder.builder().setExceptionHandler((b, event, listeners, index, throwable) -> {}).build();
+        IEventPool<CancelablePayloadEvent> pool = bus.pool(CancelablePayloadEvent.class, CancelablePayloadEvent::new);
+        bus.addListener(CancelablePayloadEvent.class, event -> {
+            event.setCanceled(true);
+            if (event.id == 2)
+                throw new IllegalStateException("listener failure");
+        });
+        CancelablePayloadEvent event = pool.acquire();
+        event.fill(1);
+        pool.post(event);
+        assertEquals(0, event.id);
+        assertFalse(event.isCanceled());
+        assertSame(event, pool.acquire());
+
+        //监听器抛出异常时事件同样被回收
+        event.fill(2);
+        assertThrows(IllegalStateException.class, () -> pool.post(event));
+        assertEquals(0, event.id);
+        assertSame(event, pool.acquire());
+
+        //需要读取发布后的状态时手动回收
+        event.fill(3);
+        assertTrue(bus.post(event).isCanceled());
+        pool.release(event);
+        assertFalse(event.isCanceled());
+        assertSame(event, pool.acquire());
+    }
+
+    @Test
+    public void debugPoolsDoNotReuseEvents() {
+        IEventBus bus = BusBuilder.builder().debugEventPools().build();
+        IEventPool<PayloadEvent> pool = bus.pool(PayloadEvent.class, PayloadEvent::new);
+        PayloadEvent event = pool.acquire();
+        event.fill(1);
+        pool.post(event);
+        assertEquals(0, event.id);
+        assertNotSame(event, pool.acquire());
+    }
+
+    @Test
+    public void factoriesMustCreateTheExactType() {
+        IEventBus bus = BusBuilder.builder().build();
+        IEventPool<PayloadEvent> pool = bus.pool(PayloadEvent.class, CancelablePayloadEvent::new);
+        assertThrows(IllegalStateException.class, pool::acquire);
+    }
+
+    @Test
+    public void ringBufferRejectsPools() {
+        IEventBus bus = BusBuilder.builder().ringBuffer(1024, ProducerType.MULTI, WaitStrategy.PARK).build();
+        try {
+            assertThrows(IllegalArgumentException.class, () -> bus.pool(PayloadEvent.class, PayloadEvent::new));
+            assertThrows(IllegalArgumentException.class, () -> bus.freeze().pool(PayloadEvent.class, PayloadEvent::new));
+        } finally {
+            bus.close();
+        }
+    }
+
+    @Test
+    public void asyncRoutedTypesRejectPools() {
+        IEventBus bus = BusBuilder.builder()
+                .partitioned(2, 64)
+                .coalesce(PayloadEvent.class, event -> event.id, (first, second) -> second, 0)
+                .build();
+        try {
+            assertThrows(IllegalArgumentException.class, () -> bus.pool(PartitionedPayloadEvent.class, PartitionedPayloadEvent::new));
+            assertThrows(IllegalArgumentException.class, () -> bus.pool(PayloadEvent.class, PayloadEvent::new));
+        } finally {
+            bus.close();
+        }
+        IEventBus partitioned = BusBuilder.builder().partitioned(2, 64).build();
+        try {
+            AtomicLong received = new AtomicLong();
+            partitioned.addListener(PayloadEvent.class, event -> {
+                if (event.check == ~event.id)
+                    received.incrementAndGet();
+            });
+            IEventPool<PayloadEvent> pool = partitioned.pool(PayloadEvent.class, PayloadEvent::new);
+            for (long i = 1; i <= 100; i++) {
+                PayloadEvent event = pool.acquire();
+                event.fill(i);
+                pool.post(event);
+            }
+            assertEquals(100, received.get());
+        } finally {
+            partitioned.close();
+        }
+    }
+}
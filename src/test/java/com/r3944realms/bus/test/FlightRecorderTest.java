@@ -0,0 +1,105 @@
+package com.r3944realms.bus.test;
+
+import com.r3944realms.bus.api.*;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FlightRecorderTest {
+    private static final String PREFIX = "com.r3944realms.bus.";
+
+    public static class RecordedPostEvent extends Event implements ICancellableEvent {
+    }
+
+    /**
+     * 录制{@code action}期间的总线事件，所有事件的阈值为0
+     * @param listenerInvocations 是否启用默认禁用的监听器调用事件
+     */
+    private static List<RecordedEvent> record(Path dir, boolean listenerInvocations, Runnable action) throws Exception {
+        Path file = dir.resolve("bus.jfr");
+        try (Recording recording = new Recording()) {
+            for (String name : List.of("Post", "Registration", "Unregistration", "RegistrationCommit", "ListenerListRebuild"))
+                recording.enable(PREFIX + name).withThreshold(Duration.ZERO);
+            if (listenerInvocations)
+                recording.enable(PREFIX + "ListenerInvocation").withThreshold(Duration.ZERO);
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        return RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().startsWith(PREFIX))
+                .toList();
+    }
+
+    private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+        return events.stream().filter(event -> event.getEventType().getName().equals(PREFIX + name)).toList();
+    }
+
+    private static String eventClass(RecordedEvent event, String field) {
+        RecordedClass recordedClass = event.getValue(field);
+        return recordedClass == null ? null : recordedClass.getName();
+    }
+
+    @Test
+    public void postsAndRegistrationsAreRecorded(@TempDir Path dir) throws Exception {
+        IEventBus bus = BusBuilder.builder().build();
+        Consumer<RecordedPostEvent> canceling = event -> event.setCanceled(true);
+        List<RecordedEvent> events = record(dir, false, () -> {
+            bus.addListener(EventPriority.HIGH, RecordedPostEvent.class, canceling);
+            bus.addListener(true, RecordedPostEvent.class, event -> {});
+            bus.post(new RecordedPostEvent());
+            bus.postBatch(RecordedPostEvent.class, new RecordedPostEvent[]{new RecordedPostEvent(), new RecordedPostEvent()});
+            bus.unregister(canceling);
+        });
+
+        List<RecordedEvent> registrations = named(events, "Registration");
+        assertEquals(2, registrations.size(), events.toString());
+        assertEquals("HIGH", registrations.get(0).getString("priority"));
+        assertEquals(RecordedPostEvent.class.getName(), eventClass(registrations.get(0), "eventClass"));
+
+        List<RecordedEvent> posts = named(events, "Post");
+        assertEquals(2, posts.size(), events.toString());
+        for (RecordedEvent post : posts) {
+            assertEquals(RecordedPostEvent.class.getName(), eventClass(post, "eventClass"));
+            assertEquals(2, post.getInt("listenerCount"));
+            assertTrue(post.getBoolean("canceled"));
+        }
+        assertEquals(List.of(1, 2), posts.stream().map(post -> post.getInt("batchSize")).toList());
+
+        List<RecordedEvent> unregistrations = named(events, "Unregistration");
+        assertEquals(1, unregistrations.size(), events.toString());
+        assertEquals(1, unregistrations.get(0).getInt("listenerLists"));
+        //默认禁用的监听器调用事件不会被录制
+        assertTrue(named(events, "ListenerInvocation").isEmpty());
+    }
+
+    @Test
+    public void listenerInvocationsAreRecordedWhenEnabled(@TempDir Path dir) throws Exception {
+        IEventBus bus = BusBuilder.builder().compiledDispatch().build();
+        bus.addListener(RecordedPostEvent.class, event -> {});
+        bus.addListener(RecordedPostEvent.class, event -> {});
+        bus.post(new RecordedPostEvent());
+        List<RecordedEvent> events = record(dir, true, () -> bus.post(new RecordedPostEvent()));
+        //录制监听器调用时编译分发器被绕过，每个监听器单独计时
+        List<RecordedEvent> invocations = named(events, "ListenerInvocation");
+        assertEquals(2, invocations.size(), events.toString());
+        for (RecordedEvent invocation : invocations) {
+            assertEquals(RecordedPostEvent.class.getName(), eventClass(invocation, "eventClass"));
+            assertNotNull(invocation.getString("listener"));
+        }
+        //之后未启用监听器调用的录制中不再有调用事件
+        List<RecordedEvent> after = record(dir, false, () -> bus.post(new RecordedPostEvent()));
+        assertTrue(named(after, "ListenerInvocation").isEmpty());
+    }
+}
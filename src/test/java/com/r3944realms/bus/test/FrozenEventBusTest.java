@@ -0,0 +1,56 @@
+package com.r3944realms.bus.test;
+
+import com.r3944realms.bus.api.BusBuilder;
+import com.r3944realms.bus.api.Event;
+import com.r3944realms.bus.api.IEventBus;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FrozenEventBusTest {
+    public static class FrozenEvent extends Event {
+    }
+
+    @Test
+    public void closedFrozenViewIgnoresPostsUntilStarted() {
+        IEventBus bus = BusBuilder.builder().compiledDispatch().build();
+        AtomicInteger calls = new AtomicInteger();
+        bus.addListener(FrozenEvent.class, event -> calls.incrementAndGet());
+        IEventBus frozen = bus.freeze();
+        frozen.post(new FrozenEvent());
+        assertEquals(1, calls.get());
+
+        frozen.close();
+        frozen.post(new FrozenEvent());
+        bus.post(new FrozenEvent());
+        assertEquals(1, calls.get(), "关闭后发布的事件应被忽略");
+
+        frozen.start();
+        frozen.post(new FrozenEvent());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void frozenViewRejectsRegistration() {
+        IEventBus frozen = BusBuilder.builder().build().freeze();
+        assertThrows(IllegalStateException.class, () -> frozen.addListener(FrozenEvent.class, event -> {}));
+        assertThrows(IllegalStateException.class, () -> frozen.register(new Object()));
+    }
+
+    @Test
+    public void frozenViewKeepsTheDispatchMode() {
+        for (boolean compiled : new boolean[]{false, true}) {
+            BusBuilder builder = BusBuilder.builder();
+            IEventBus bus = (compiled ? builder.compiledDispatch() : builder).build();
+            AtomicBoolean viaCompiled = new AtomicBoolean();
+            bus.addListener(FrozenEvent.class, event -> viaCompiled.set(Arrays.stream(Thread.currentThread().getStackTrace())
+                    .anyMatch(frame -> frame.getMethodName().equals("dispatchCompiled"))));
+            bus.freeze().post(new FrozenEvent());
+            assertEquals(compiled, viaCompiled.get());
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.r3944realms.bus.test;
+
+import com.r3944realms.bus.api.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GenericEventTest {
+    /**
+     * 类型参数经过重新排列的中间泛型类传给{@link GenericEvent}
+     */
+    public static class Payload<A, B> extends GenericEvent<B> {
+        public Payload(Class<B> type) {
+            super(type);
+        }
+    }
+
+    public static class Named<N> extends Payload<String, N> {
+        public Named(Class<N> type) {
+            super(type);
+        }
+    }
+
+    /**
+     * 以原始类型继承{@link GenericEvent}，自己的类型参数与事件的类型参数无关
+     */
+    @SuppressWarnings("rawtypes")
+    public static class Loose<X> extends GenericEvent {
+        @SuppressWarnings("unchecked")
+        public Loose(Class<?> type) {
+            super(type);
+        }
+    }
+
+    public static class Subscriber {
+        final List<String> received = new ArrayList<>();
+
+        @SubscribeEvent
+        public void onString(GenericEvent<String> event) {
+            received.add("string " + event.getGenericType().getSimpleName());
+        }
+
+        @SubscribeEvent
+        public void onAny(GenericEvent<?> event) {
+            received.add("any " + event.getGenericType().getSimpleName());
+        }
+
+        @SubscribeEvent
+        public void onNamedInteger(Named<Integer> event) {
+            received.add("named integer " + event.getGenericType().getSimpleName());
+        }
+
+        @SubscribeEvent
+        public void onListPayload(Payload<Integer, List<String>> event) {
+            received.add("payload list " + event.getGenericType().getSimpleName());
+        }
+
+        @SubscribeEvent
+        public <T> void onVariable(Named<T> event) {
+            received.add("named variable " + event.getGenericType().getSimpleName());
+        }
+
+        @SubscribeEvent
+        public void onLoose(Loose<String> event) {
+            received.add("loose " + event.getGenericType().getSimpleName());
+        }
+    }
+
+    private static List<String> post(Event event) {
+        IEventBus bus = BusBuilder.builder().build();
+        Subscriber subscriber = new Subscriber();
+        bus.register(subscriber);
+        bus.post(event);
+        subscriber.received.sort(null);
+        return subscriber.received;
+    }
+
+    @Test
+    public void directTypeArgumentsSelectListeners() {
+        assertEquals(List.of("any String", "string String"), post(new GenericEvent<>(String.class)));
+        assertEquals(List.of("any Integer"), post(new GenericEvent<>(Integer.class)));
+    }
+
+    @Test
+    public void typeArgumentsAreResolvedThroughIntermediateSubclasses() {
+        assertEquals(List.of("any Integer", "named integer Integer", "named variable Integer"), post(new Named<>(Integer.class)));
+        //Payload<Integer, String>的类型参数是第二个参数
+        assertEquals(List.of("any String", "string String"), post(new Payload<Integer, String>(String.class)));
+        //参数化类型按原始类型作为键
+        @SuppressWarnings("unchecked")
+        Class<List<String>> list = (Class<List<String>>) (Class<?>) List.class;
+        assertEquals(List.of("any List", "payload list List"), post(new Payload<Integer, List<String>>(list)));
+    }
+
+    @Test
+    public void unresolvedTypeArgumentsReceiveEveryEvent() {
+        //方法的类型变量与以原始类型继承的父类都无法解析类型参数
+        assertEquals(List.of("any Double", "named variable Double"), post(new Named<>(Double.class)));
+        assertEquals(List.of("any Double", "loose Double"), post(new Loose<Object>(Double.class)));
+    }
+
+    @Test
+    public void lambdaListenersTakeTheTypeArgumentExplicitly() {
+        IEventBus bus = BusBuilder.builder().build();
+        List<String> received = new ArrayList<>();
+        bus.<Named<Integer>, Integer>addGenericListener(Integer.class, EventPriority.NORMAL, false, castNamed(),
+                event -> received.add("integer " + event.getGenericType().getSimpleName()));
+        bus.post(new Named<>(String.class));
+        bus.post(new Named<>(Integer.class));
+        assertEquals(List.of("integer Integer"), received);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Class<Named<T>> castNamed() {
+        return (Class<Named<T>>) (Class<?>) Named.class;
+    }
+}
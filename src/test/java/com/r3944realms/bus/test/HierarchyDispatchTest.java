@@ -0,0 +1,80 @@
+package com.r3944realms.bus.test;
+
+import com.r3944realms.bus.api.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HierarchyDispatchTest {
+    public static class Level0 extends Event {
+        final List<String> calls = new ArrayList<>();
+    }
+
+    public static class Level1 extends Level0 {
+    }
+
+    public static class Level2 extends Level1 {
+    }
+
+    public static class Level3 extends Level2 {
+    }
+
+    public static class Level4 extends Level3 {
+    }
+
+    public static class Level5 extends Level4 {
+    }
+
+    public static class Level6 extends Level5 {
+    }
+
+    public static class Level7 extends Level6 {
+    }
+
+    public static class Subscriber {
+        int hits;
+
+        @SubscribeEvent
+        public void onLevel0(Level0 event) {
+            hits++;
+            event.calls.add("subscriber 0");
+        }
+
+        @SubscribeEvent(priority = EventPriority.HIGH)
+        public void onLevel7(Level7 event) {
+            hits++;
+            event.calls.add("subscriber 7");
+        }
+    }
+
+    @Test
+    public void postsAtTheBottomOfADeepChainReachEveryLevel() {
+        //未设置类型检查器的总线也能注册监听器
+        IEventBus bus = BusBuilder.builder().build();
+        List<Class<? extends Level0>> levels = List.of(Level0.class, Level1.class, Level2.class, Level3.class,
+                Level4.class, Level5.class, Level6.class, Level7.class);
+        for (Class<? extends Level0> level : levels)
+            bus.addListener(level, event -> event.calls.add(level.getSimpleName()));
+        //自下而上的首次发布会依次创建各层的列表，之后的变化会重建整条链
+        assertEquals(List.of("Level7", "Level6", "Level5", "Level4", "Level3", "Level2", "Level1", "Level0"),
+                bus.post(new Level7()).calls);
+        bus.addListener(EventPriority.HIGHEST, Level0.class, event -> event.calls.add("first"));
+        assertEquals(List.of("first", "Level3", "Level2", "Level1", "Level0"), bus.post(new Level3()).calls);
+    }
+
+    @Test
+    public void instanceSubscribersSurviveRepeatedRegistration() {
+        IEventBus bus = BusBuilder.builder().build();
+        Subscriber subscriber = new Subscriber();
+        for (int i = 0; i < 3; i++) {
+            bus.register(subscriber);
+            assertEquals(List.of("subscriber 7", "subscriber 0"), bus.post(new Level7()).calls);
+            bus.unregister(subscriber);
+            assertTrue(bus.post(new Level7()).calls.isEmpty());
+        }
+        assertEquals(6, subscriber.hits);
+    }
+}
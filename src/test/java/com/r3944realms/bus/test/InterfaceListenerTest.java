@@ -0,0 +1,112 @@
+package com.r3944realms.bus.test;
+
+import com.r3944realms.bus.api.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InterfaceListenerTest {
+    public interface Tracked {
+        List<String> calls();
+    }
+
+    public interface Moving extends Tracked {
+    }
+
+    public interface Damaging extends Tracked {
+    }
+
+    public static abstract class BaseEvent extends Event implements Tracked {
+        private final List<String> calls = new ArrayList<>();
+
+        @Override
+        public List<String> calls() {
+            return calls;
+        }
+    }
+
+    /**
+     * 经父类、{@link Moving}与{@link Damaging}三条路径继承{@link Tracked}
+     */
+    public static class ProjectileEvent extends BaseEvent implements Moving, Damaging {
+    }
+
+    public static class ConcreteEvent extends Event {
+    }
+
+    public static abstract class AbstractOnConcreteEvent extends ConcreteEvent {
+    }
+
+    public static class Subscriber {
+        @SubscribeEvent
+        public void onMoving(Moving event) {
+            event.calls().add("subscriber");
+        }
+    }
+
+    @Test
+    public void interfaceListenersFollowPriorityThenLineageOrder() {
+        IEventBus bus = BusBuilder.builder().build();
+        bus.addInterfaceListener(EventPriority.NORMAL, false, Tracked.class, event -> event.calls().add("tracked"));
+        bus.addInterfaceListener(EventPriority.NORMAL, false, Moving.class, event -> event.calls().add("moving"));
+        bus.addListener(EventPriority.NORMAL, BaseEvent.class, event -> event.calls().add("base"));
+        bus.addListener(EventPriority.NORMAL, ProjectileEvent.class, event -> event.calls().add("projectile"));
+        bus.addInterfaceListener(EventPriority.HIGH, false, Damaging.class, event -> event.calls().add("damaging"));
+        //同一优先级内先是事件类本身，再是父类的祖先(包括父类实现的接口)，最后是事件类直接实现的接口
+        assertEquals(List.of("damaging", "projectile", "base", "tracked", "moving"), bus.post(new ProjectileEvent()).calls());
+    }
+
+    @Test
+    public void diamondAncestorIsCalledOnce() {
+        IEventBus bus = BusBuilder.builder().build();
+        bus.addInterfaceListener(Tracked.class, event -> event.calls().add("tracked"));
+        assertEquals(List.of("tracked"), bus.post(new ProjectileEvent()).calls());
+        //接口的列表在子类的列表之后修改，子类的快照同样更新
+        bus.addInterfaceListener(Damaging.class, event -> event.calls().add("damaging"));
+        assertEquals(List.of("tracked", "damaging"), bus.post(new ProjectileEvent()).calls());
+    }
+
+    @Test
+    public void batchedInterfaceListenersWaitForCommit() {
+        IEventBus bus = BusBuilder.builder().build();
+        try (IRegistrationBatch batch = bus.batchRegister()) {
+            batch.addInterfaceListener(EventPriority.NORMAL, false, Damaging.class, event -> event.calls().add("damaging"));
+            batch.register(new Subscriber());
+            assertEquals(List.of(), bus.post(new ProjectileEvent()).calls());
+            batch.commit();
+        }
+        assertEquals(List.of("subscriber", "damaging"), bus.post(new ProjectileEvent()).calls());
+    }
+
+    @Test
+    public void classCheckerSeesInterfaces() {
+        List<Class<?>> checked = new ArrayList<>();
+        IEventBus bus = BusBuilder.builder()
+                .classChecker(eventClass -> {
+                    checked.add(eventClass);
+                    if ((Class<?>) eventClass == Damaging.class)
+                        throw new IllegalArgumentException("rejected");
+                })
+                .build();
+        bus.addInterfaceListener(Moving.class, event -> {});
+        assertThrows(IllegalArgumentException.class, () -> bus.addInterfaceListener(Damaging.class, event -> {}));
+        assertThrows(IllegalArgumentException.class, () -> bus.register(new Object() {
+            @SubscribeEvent
+            public void onDamaging(Damaging event) {
+            }
+        }));
+        assertEquals(List.of(Moving.class, Damaging.class, Damaging.class), checked);
+        assertThrows(IllegalArgumentException.class, () -> bus.addInterfaceListener(ConcreteEvent.class, event -> {}));
+    }
+
+    @Test
+    public void abstractEventsMustOnlyExtendAbstractEvents() {
+        IEventBus bus = BusBuilder.builder().build();
+        assertThrows(IllegalArgumentException.class, () -> bus.addListener(AbstractOnConcreteEvent.class, event -> {}));
+        bus.addListener(BaseEvent.class, event -> event.calls().add("base"));
+        assertEquals(List.of("base"), bus.post(new ProjectileEvent()).calls());
+    }
+}
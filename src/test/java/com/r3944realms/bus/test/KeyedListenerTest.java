@@ -0,0 +1,134 @@
+package com.r3944realms.bus.test;
+
+import com.r3944realms.bus.api.*;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KeyedListenerTest {
+    public static class KeyedEvent extends Event implements IKeyedEvent {
+        private final String key;
+
+        public KeyedEvent(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public @Nullable Object key() {
+            return key;
+        }
+    }
+
+    public static class ChildKeyedEvent extends KeyedEvent {
+        public ChildKeyedEvent(String key) {
+            super(key);
+        }
+    }
+
+    @Test
+    public void keyedSnapshotsFollowGlobalChanges() {
+        IEventBus bus = BusBuilder.builder().build();
+        List<String> calls = new ArrayList<>();
+        bus.addListener(KeyedEvent.class, "a", event -> calls.add("a"));
+        bus.addListener(KeyedEvent.class, "b", event -> calls.add("b"));
+        bus.post(new KeyedEvent("a"));
+        assertEquals(List.of("a"), calls);
+
+        Consumer<KeyedEvent> global = event -> calls.add("global");
+        bus.addListener(EventPriority.HIGH, KeyedEvent.class, global);
+        calls.clear();
+        bus.post(new KeyedEvent("a"));
+        assertEquals(List.of("global", "a"), calls);
+
+        bus.unregister(global);
+        calls.clear();
+        bus.post(new KeyedEvent("b"));
+        bus.post(new KeyedEvent("c"));
+        assertEquals(List.of("b"), calls);
+    }
+
+    @Test
+    public void childListsInheritKeyedListeners() {
+        IEventBus bus = BusBuilder.builder().build();
+        List<String> calls = new ArrayList<>();
+        Consumer<KeyedEvent> parent = event -> calls.add("parent");
+        bus.addListener(KeyedEvent.class, "a", parent);
+        //子类的列表在此之后才创建
+        bus.post(new ChildKeyedEvent("a"));
+        assertEquals(List.of("parent"), calls);
+
+        bus.addListener(ChildKeyedEvent.class, "a", event -> calls.add("child"));
+        calls.clear();
+        bus.post(new ChildKeyedEvent("a"));
+        assertEquals(List.of("child", "parent"), calls);
+
+        bus.unregister(parent);
+        calls.clear();
+        bus.post(new ChildKeyedEvent("a"));
+        bus.post(new KeyedEvent("a"));
+        assertEquals(List.of("child"), calls);
+    }
+
+    @Test
+    public void keyedPostsSeeEveryEventDuringGlobalChurn() throws InterruptedException {
+        IEventBus bus = BusBuilder.builder().build();
+        LongAdder keyedHits = new LongAdder();
+        bus.addListener(KeyedEvent.class, "hot", event -> keyedHits.increment());
+        AtomicBoolean running = new AtomicBoolean(true);
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        Thread churner = new Thread(() -> {
+            try {
+                while (running.get()) {
+                    Consumer<KeyedEvent> consumer = event -> {};
+                    bus.addListener(KeyedEvent.class, consumer);
+                    bus.unregister(consumer);
+                }
+            } catch (Throwable e) {
+                failures.add(e);
+            }
+        });
+        churner.start();
+        int posts = 200_000;
+        try {
+            for (int i = 0; i < posts; i++)
+                bus.post(new KeyedEvent("hot"));
+        } finally {
+            running.set(false);
+            churner.join();
+        }
+        assertTrue(failures.isEmpty(), () -> "注册线程抛出了异常：" + failures);
+        assertEquals(posts, keyedHits.sum());
+    }
+
+    @Test
+    public void globalChangesReachEveryKey() {
+        IEventBus bus = BusBuilder.builder().build();
+        int keys = 1000;
+        int[] keyedHits = new int[keys];
+        for (int i = 0; i < keys; i++) {
+            int index = i;
+            bus.addListener(KeyedEvent.class, "key" + i, event -> keyedHits[index]++);
+        }
+        LongAdder globalHits = new LongAdder();
+        Consumer<KeyedEvent> global = event -> globalHits.increment();
+        bus.addListener(KeyedEvent.class, global);
+        for (int i = 0; i < keys; i++)
+            bus.post(new KeyedEvent("key" + i));
+        assertEquals(keys, globalHits.sum());
+
+        bus.unregister(global);
+        for (int i = 0; i < keys; i++)
+            bus.post(new KeyedEvent("key" + i));
+        assertEquals(keys, globalHits.sum());
+        for (int i = 0; i < keys; i++)
+            assertEquals(2, keyedHits[i]);
+    }
+}
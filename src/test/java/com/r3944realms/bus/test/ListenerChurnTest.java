@@ -0,0 +1,122 @@
+package com.r3944realms.bus.test;
+
+import com.r3944realms.bus.api.BusBuilder;
+import com.r3944realms.bus.api.Event;
+import com.r3944realms.bus.api.EventPriority;
+import com.r3944realms.bus.api.IEventBus;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 发布线程在其它线程不断注册/取消注册监听器的同时发布事件，结束后核对监听器数量
+ */
+public class ListenerChurnTest {
+    private static final int BASE_LISTENERS = 20;
+    private static final int POSTERS = 3;
+    private static final int CHURNERS = 3;
+    private static final int CHURN_ROUNDS = 5_000;
+    private static final int OWNED_PER_CHURNER = 16;
+
+    public static class ChurnEvent extends Event {
+    }
+
+    @Test
+    public void concurrentRegistrationKeepsListenerCount() throws InterruptedException {
+        IEventBus bus = BusBuilder.builder().build();
+        ChurnEvent probe = new ChurnEvent();
+        LongAdder probeHits = new LongAdder();
+        AtomicLong expectedListeners = new AtomicLong();
+        LongAdder posted = new LongAdder();
+        LongAdder stableHits = new LongAdder();
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+
+        //始终注册的监听器必须看到每一次发布
+        bus.addListener(EventPriority.HIGHEST, ChurnEvent.class, e -> {
+            if (e != probe)
+                stableHits.increment();
+        });
+        for (int i = 0; i < BASE_LISTENERS; i++) {
+            bus.addListener(EventPriority.values()[i % EventPriority.values().length], ChurnEvent.class, counting(probe, probeHits));
+            expectedListeners.incrementAndGet();
+        }
+
+        AtomicBoolean churning = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < POSTERS; t++) {
+            threads.add(new Thread(() -> {
+                await(start);
+                try {
+                    while (churning.get()) {
+                        bus.post(new ChurnEvent());
+                        posted.increment();
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }));
+        }
+        List<Thread> churners = new ArrayList<>();
+        for (int t = 0; t < CHURNERS; t++) {
+            int index = t;
+            churners.add(new Thread(() -> {
+                await(start);
+                ArrayDeque<Consumer<ChurnEvent>> owned = new ArrayDeque<>();
+                try {
+                    for (int round = 0; round < CHURN_ROUNDS; round++) {
+                        Consumer<ChurnEvent> consumer = counting(probe, probeHits);
+                        bus.addListener(EventPriority.values()[(round + index) % EventPriority.values().length], ChurnEvent.class, consumer);
+                        expectedListeners.incrementAndGet();
+                        owned.addLast(consumer);
+                        if (owned.size() > OWNED_PER_CHURNER) {
+                            bus.unregister(owned.removeFirst());
+                            expectedListeners.decrementAndGet();
+                        }
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }));
+        }
+        threads.addAll(churners);
+        threads.forEach(Thread::start);
+        start.countDown();
+        for (Thread churner : churners)
+            churner.join();
+        churning.set(false);
+        for (Thread thread : threads)
+            thread.join();
+
+        assertTrue(failures.isEmpty(), () -> "并发注册期间抛出了异常：" + failures);
+        assertEquals(posted.sum(), stableHits.sum(), "始终注册的监听器漏掉了发布");
+        assertEquals(BASE_LISTENERS + (long) CHURNERS * OWNED_PER_CHURNER, expectedListeners.get());
+        bus.post(probe);
+        assertEquals(expectedListeners.get(), probeHits.sum(), "监听器数量不一致");
+    }
+
+    private static Consumer<ChurnEvent> counting(ChurnEvent probe, LongAdder hits) {
+        return e -> {
+            if (e == probe)
+                hits.increment();
+        };
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.r3944realms.bus.test;
+
+import com.r3944realms.bus.api.*;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PartitionedDispatchTest {
+    public static class LaneEvent extends Event implements IPartitionedEvent {
+        final int lane;
+        final boolean bounce;
+
+        LaneEvent(int lane, boolean bounce) {
+            this.lane = lane;
+            this.bounce = bounce;
+        }
+
+        @Override
+        public @Nullable Object partitionKey() {
+            return lane;
+        }
+    }
+
+    @Test
+    public void workersPostingIntoEachOthersFullLanesFailFast() throws InterruptedException {
+        AtomicInteger rejected = new AtomicInteger();
+        IEventBus bus = BusBuilder.builder()
+                .partitioned(2, 1)
+                .setExceptionHandler((b, event, listeners, index, throwable) -> {
+                    if (throwable instanceof IllegalStateException)
+                        rejected.incrementAndGet();
+                })
+                .build();
+        CountDownLatch bouncing = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(2);
+        bus.addListener(LaneEvent.class, event -> {
+            if (!event.bounce)
+                return;
+            try {
+                bouncing.countDown();
+                release.await();
+                //两个分区的队列都已被填满，互相发布时不应永远阻塞
+                bus.post(new LaneEvent(1 - event.lane, false));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                finished.countDown();
+            }
+        });
+        try {
+            bus.post(new LaneEvent(0, true));
+            bus.post(new LaneEvent(1, true));
+            assertTrue(bouncing.await(5, TimeUnit.SECONDS));
+            bus.post(new LaneEvent(0, false));
+            bus.post(new LaneEvent(1, false));
+            release.countDown();
+            assertTrue(finished.await(5, TimeUnit.SECONDS), "分区工作线程互相阻塞");
+            bus.drain();
+            //先失败的工作线程继续取走自己的队列后，另一个工作线程的发布可能成功
+            assertTrue(rejected.get() >= 1);
+        } finally {
+            release.countDown();
+            bus.close();
+        }
+    }
+
+    @Test
+    public void workersWaitOnlyWhenTargetLaneHasRoom() {
+        IEventBus bus = BusBuilder.builder().partitioned(2, 64).build();
+        AtomicInteger received = new AtomicInteger();
+        bus.addListener(LaneEvent.class, event -> {
+            received.incrementAndGet();
+            if (event.bounce)
+                bus.post(new LaneEvent(1 - event.lane, false));
+        });
+        try {
+            for (int i = 0; i < 10; i++)
+                bus.post(new LaneEvent(i & 1, true));
+            bus.drain();
+            bus.drain();
+            assertEquals(20, received.get());
+        } finally {
+            bus.close();
+        }
+    }
+
+    @Test
+    public void deadWorkerFailsPostersAndDoesNotBlockClose() throws InterruptedException {
+        IEventBus bus = BusBuilder.builder()
+                .partitioned(1, 1)
+                .setExceptionHandler((b, event, listeners, index, throwable) -> {})
+                .build();
+        bus.addListener(LaneEvent.class, event -> {
+            if (event.bounce)
+                throw new Error("fatal");
+        });
+        bus.post(new LaneEvent(0, true));
+        assertThrows(IllegalStateException.class, bus::drain);
+        //队列容量为1，第二次发布起就需要等待已经停止的工作线程
+        assertThrows(IllegalStateException.class, () -> {
+            for (int i = 0; i < 10; i++)
+                bus.post(new LaneEvent(0, false));
+        });
+        Thread closer = new Thread(bus::close);
+        closer.start();
+        closer.join(5_000);
+        assertFalse(closer.isAlive(), "关闭在已满的队列上永远等待");
+    }
+}
@@ -0,0 +1,156 @@
+package com.r3944realms.bus.test;
+
+import com.r3944realms.bus.api.*;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RegistrationBatchTest {
+    public static class BatchEvent extends Event implements IKeyedEvent {
+        final List<String> calls = new ArrayList<>();
+        private final String key;
+
+        public BatchEvent(@Nullable String key) {
+            this.key = key;
+        }
+
+        @Override
+        public @Nullable Object key() {
+            return key;
+        }
+    }
+
+    public static class Subscriber {
+        @SubscribeEvent
+        public void onEvent(BatchEvent event) {
+            event.calls.add("subscriber");
+        }
+    }
+
+    private static List<String> post(IEventBus bus, @Nullable String key) {
+        return bus.post(new BatchEvent(key)).calls;
+    }
+
+    @Test
+    public void changesArePublishedOnlyOnCommit() {
+        IEventBus bus = BusBuilder.builder().build();
+        try (IRegistrationBatch batch = bus.batchRegister()) {
+            batch.register(new Subscriber());
+            batch.addListener(BatchEvent.class, event -> event.calls.add("global"));
+            batch.addListener(EventPriority.NORMAL, false, BatchEvent.class, "a", event -> event.calls.add("a"));
+            assertEquals(List.of(), post(bus, null));
+            assertEquals(List.of(), post(bus, "a"));
+            batch.commit();
+        }
+        assertEquals(List.of("subscriber", "global"), post(bus, null));
+        assertEquals(List.of("subscriber", "global", "a"), post(bus, "a"));
+    }
+
+    @Test
+    public void keyedRemovalsWaitForCommit() {
+        IEventBus bus = BusBuilder.builder().build();
+        Object owner = new Object() {
+            @SubscribeEvent(key = "a")
+            public void onEvent(BatchEvent event) {
+                event.calls.add("a");
+            }
+        };
+        bus.register(owner);
+        try (IRegistrationBatch batch = bus.batchRegister()) {
+            batch.unregister(owner);
+            batch.addListener(BatchEvent.class, event -> event.calls.add("global"));
+            assertEquals(List.of("a"), post(bus, "a"));
+            batch.commit();
+        }
+        assertEquals(List.of("global"), post(bus, "a"));
+    }
+
+    @Test
+    public void closingWithoutCommitDiscardsChanges() {
+        IEventBus bus = BusBuilder.builder().build();
+        Subscriber subscriber = new Subscriber();
+        IRegistrationBatch batch = bus.batchRegister();
+        batch.register(subscriber);
+        batch.addListener(BatchEvent.class, event -> event.calls.add("global"));
+        batch.close();
+        assertThrows(IllegalStateException.class, batch::commit);
+        assertEquals(List.of(), post(bus, null));
+        //丢弃的注册不应阻止之后的正常注册
+        bus.register(subscriber);
+        assertEquals(List.of("subscriber"), post(bus, null));
+    }
+
+    @Test
+    public void registerAndUnregisterInOneBatchCancelOut() {
+        IEventBus bus = BusBuilder.builder().build();
+        Subscriber subscriber = new Subscriber();
+        try (IRegistrationBatch batch = bus.batchRegister()) {
+            batch.register(subscriber);
+            batch.unregister(subscriber);
+            batch.commit();
+        }
+        assertEquals(List.of(), post(bus, null));
+        //反过来：先取消已注册的对象再重新注册，提交后仍然只注册一次
+        bus.register(subscriber);
+        try (IRegistrationBatch batch = bus.batchRegister()) {
+            batch.unregister(subscriber);
+            batch.register(subscriber);
+            batch.commit();
+        }
+        assertEquals(List.of("subscriber"), post(bus, null));
+    }
+
+    @Test
+    public void postersSeeAllOrNothingOfACommit() throws InterruptedException {
+        IEventBus bus = BusBuilder.builder().build();
+        AtomicBoolean running = new AtomicBoolean(true);
+        ConcurrentLinkedQueue<List<String>> torn = new ConcurrentLinkedQueue<>();
+        Thread poster = new Thread(() -> {
+            while (running.get()) {
+                List<String> calls = post(bus, "a");
+                if (calls.size() != 0 && calls.size() != 3)
+                    torn.add(calls);
+            }
+        });
+        poster.start();
+        try {
+            for (int round = 0; round < 2_000; round++) {
+                Subscriber subscriber = new Subscriber();
+                Object keyed = new Object() {
+                    @SubscribeEvent(key = "a")
+                    public void onEvent(BatchEvent event) {
+                        event.calls.add("a");
+                    }
+                };
+                Object global = new Object() {
+                    @SubscribeEvent(priority = EventPriority.LOW)
+                    public void onEvent(BatchEvent event) {
+                        event.calls.add("global");
+                    }
+                };
+                try (IRegistrationBatch batch = bus.batchRegister()) {
+                    batch.register(subscriber);
+                    batch.register(keyed);
+                    batch.register(global);
+                    batch.commit();
+                }
+                try (IRegistrationBatch batch = bus.batchRegister()) {
+                    batch.unregister(subscriber);
+                    batch.unregister(keyed);
+                    batch.unregister(global);
+                    batch.commit();
+                }
+            }
+        } finally {
+            running.set(false);
+            poster.join();
+        }
+        assertTrue(torn.isEmpty(), () -> "发布线程看到了一半的提交：" + torn.peek());
+    }
+}
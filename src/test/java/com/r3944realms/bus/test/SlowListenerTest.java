@@ -0,0 +1,107 @@
+package com.r3944realms.bus.test;
+
+import com.r3944realms.bus.api.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SlowListenerTest {
+    private static final long SLEEP_MILLIS = 30;
+    private static final long TIGHT = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long LOOSE = TimeUnit.SECONDS.toNanos(10);
+
+    public static class FastEvent extends Event {
+    }
+
+    public static class SlowEvent extends Event {
+    }
+
+    public static class ChildSlowEvent extends SlowEvent {
+    }
+
+    public static class UnlimitedEvent extends SlowEvent {
+    }
+
+    public static class Subscriber {
+        @SubscribeEvent(budgetNanos = 10_000_000_000L)
+        public void onSlowWithOwnBudget(SlowEvent event) {
+            sleep();
+        }
+    }
+
+    private record Report(Class<? extends Event> eventType, String listener, long elapsedNanos, long budgetNanos) {
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(SLEEP_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static IEventBus watchedBus(List<Report> reports) {
+        return BusBuilder.builder()
+                .setSlowListenerHandler((bus, event, listener, elapsedNanos, budgetNanos) ->
+                        reports.add(new Report(event.getClass(), listener.toString(), elapsedNanos, budgetNanos)))
+                .listenerBudget(LOOSE)
+                .listenerBudget(SlowEvent.class, TIGHT)
+                .listenerBudget(UnlimitedEvent.class, 0)
+                .build();
+    }
+
+    @Test
+    public void budgetsAreResolvedFromTheNearestConfiguredType() {
+        List<Report> reports = new CopyOnWriteArrayList<>();
+        IEventBus bus = watchedBus(reports);
+        bus.addListener(FastEvent.class, event -> sleep());
+        bus.addListener(SlowEvent.class, event -> sleep());
+        bus.post(new FastEvent());
+        assertTrue(reports.isEmpty(), reports::toString);
+
+        bus.post(new SlowEvent());
+        bus.post(new ChildSlowEvent());
+        assertEquals(List.of(SlowEvent.class, ChildSlowEvent.class), reports.stream().map(Report::eventType).toList());
+        for (Report report : reports) {
+            assertEquals(TIGHT, report.budgetNanos());
+            assertTrue(report.elapsedNanos() >= TimeUnit.MILLISECONDS.toNanos(SLEEP_MILLIS), report::toString);
+        }
+
+        //预算为0表示不限制
+        reports.clear();
+        bus.post(new UnlimitedEvent());
+        assertTrue(reports.isEmpty(), reports::toString);
+    }
+
+    @Test
+    public void subscriberBudgetsTakePrecedence() {
+        List<Report> reports = new CopyOnWriteArrayList<>();
+        IEventBus bus = watchedBus(reports);
+        bus.register(new Subscriber());
+        bus.post(new SlowEvent());
+        assertTrue(reports.isEmpty(), reports::toString);
+    }
+
+    @Test
+    public void failingHandlersDoNotStopDispatch() {
+        List<String> calls = new CopyOnWriteArrayList<>();
+        IEventBus bus = BusBuilder.builder()
+                .setSlowListenerHandler((b, event, listener, elapsedNanos, budgetNanos) -> {
+                    calls.add("report");
+                    throw new IllegalStateException("handler failure");
+                })
+                .listenerBudget(TIGHT)
+                .build();
+        bus.addListener(EventPriority.HIGH, SlowEvent.class, event -> {
+            calls.add("slow");
+            sleep();
+        });
+        bus.addListener(EventPriority.LOW, SlowEvent.class, event -> calls.add("next"));
+        assertDoesNotThrow(() -> bus.post(new SlowEvent()));
+        assertEquals(List.of("slow", "report", "next"), calls);
+    }
+}
@@ -0,0 +1,73 @@
+package com.r3944realms.bus.test;
+
+import com.r3944realms.bus.api.BusBuilder;
+import com.r3944realms.bus.api.Event;
+import com.r3944realms.bus.api.IEventBus;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ThrottledExceptionTest {
+    public static class FailingEvent extends Event {
+    }
+
+    /**
+     * 记录异常栈被读取的次数
+     */
+    private static final class CountingException extends RuntimeException {
+        static final AtomicInteger STACK_READS = new AtomicInteger();
+
+        @Override
+        public StackTraceElement[] getStackTrace() {
+            STACK_READS.incrementAndGet();
+            return super.getStackTrace();
+        }
+    }
+
+    @Test
+    public void suppressedFailuresAreCountedWithoutReadingStacks() {
+        AtomicInteger reported = new AtomicInteger();
+        IEventBus bus = BusBuilder.builder()
+                .rateLimitExceptions(TimeUnit.SECONDS.toNanos(10))
+                .setExceptionHandler((b, event, listeners, index, throwable) -> reported.incrementAndGet())
+                .build();
+        bus.addListener(FailingEvent.class, event -> {
+            throw new CountingException();
+        });
+        CountingException.STACK_READS.set(0);
+        int thrown = 0;
+        for (int i = 0; i < 10_000; i++) {
+            try {
+                bus.post(new FailingEvent());
+            } catch (CountingException e) {
+                thrown++;
+            }
+        }
+        assertEquals(10_000, thrown, "异常仍应向发布者传播");
+        assertEquals(1, reported.get(), "只有第一次失败应被完整报告");
+        assertEquals(1, CountingException.STACK_READS.get(), "被抑制的失败不应读取异常栈");
+        bus.close();
+    }
+
+    @Test
+    public void failureIsReportedAgainAfterQuietWindow() throws InterruptedException {
+        AtomicInteger reported = new AtomicInteger();
+        IEventBus bus = BusBuilder.builder()
+                .rateLimitExceptions(TimeUnit.MILLISECONDS.toNanos(250))
+                .setExceptionHandler((b, event, listeners, index, throwable) -> reported.incrementAndGet())
+                .build();
+        bus.addListener(FailingEvent.class, event -> {
+            throw new IllegalStateException();
+        });
+        for (int i = 0; i < 100; i++)
+            assertThrows(IllegalStateException.class, () -> bus.post(new FailingEvent()));
+        assertEquals(1, reported.get());
+        Thread.sleep(500);
+        assertThrows(IllegalStateException.class, () -> bus.post(new FailingEvent()));
+        assertEquals(2, reported.get());
+        bus.close();
+    }
+}
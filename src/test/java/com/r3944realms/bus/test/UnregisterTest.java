@@ -0,0 +1,107 @@
+package com.r3944realms.bus.test;
+
+import com.r3944realms.bus.api.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UnregisterTest {
+    public static class TracedEvent extends Event {
+        final List<String> calls = new ArrayList<>();
+    }
+
+    public static class ChildEvent extends TracedEvent {
+    }
+
+    public static class OtherEvent extends TracedEvent {
+    }
+
+    public static class KeyedTracedEvent extends TracedEvent implements IKeyedEvent {
+        @Override
+        public Object key() {
+            return "key";
+        }
+    }
+
+    public static class Subscriber {
+        private final String name;
+
+        public Subscriber(String name) {
+            this.name = name;
+        }
+
+        @SubscribeEvent(priority = EventPriority.HIGH)
+        public void onTraced(TracedEvent event) {
+            event.calls.add(name + " traced");
+        }
+
+        @SubscribeEvent
+        public void onTracedAgain(TracedEvent event) {
+            event.calls.add(name + " traced again");
+        }
+
+        @SubscribeEvent
+        public void onOther(OtherEvent event) {
+            event.calls.add(name + " other");
+        }
+
+        @SubscribeEvent(key = "key")
+        public void onKeyed(KeyedTracedEvent event) {
+            event.calls.add(name + " keyed");
+        }
+    }
+
+    @Test
+    public void unregisterRemovesEveryListenerOfTheTargetOnly() {
+        IEventBus bus = BusBuilder.builder().build();
+        Subscriber first = new Subscriber("first");
+        Subscriber second = new Subscriber("second");
+        bus.register(first);
+        bus.register(second);
+        assertEquals(List.of("first traced", "second traced", "first traced again", "second traced again"),
+                bus.post(new TracedEvent()).calls);
+
+        bus.unregister(first);
+        assertEquals(List.of("second traced", "second traced again"), bus.post(new TracedEvent()).calls);
+        //父类型的监听器从子类型的快照中一起移除
+        assertEquals(List.of("second traced", "second traced again"), bus.post(new ChildEvent()).calls);
+        assertEquals(List.of("second traced", "second other", "second traced again"), bus.post(new OtherEvent()).calls);
+        assertEquals(List.of("second traced", "second traced again", "second keyed"), bus.post(new KeyedTracedEvent()).calls);
+    }
+
+    @Test
+    public void unregisteredTargetsCanRegisterAgain() {
+        IEventBus bus = BusBuilder.builder().build();
+        Subscriber subscriber = new Subscriber("subscriber");
+        bus.register(subscriber);
+        bus.unregister(subscriber);
+        assertTrue(bus.post(new KeyedTracedEvent()).calls.isEmpty());
+        //再次取消注册与取消注册从未注册的对象什么也不做
+        bus.unregister(subscriber);
+        bus.unregister(new Subscriber("unknown"));
+        bus.register(subscriber);
+        assertEquals(List.of("subscriber traced", "subscriber traced again", "subscriber keyed"),
+                bus.post(new KeyedTracedEvent()).calls);
+    }
+
+    @Test
+    public void consumersAddedSeveralTimesAreRemovedTogether() {
+        IEventBus bus = BusBuilder.builder().build();
+        Consumer<TracedEvent> consumer = event -> event.calls.add("consumer");
+        Consumer<TracedEvent> kept = event -> event.calls.add("kept");
+        bus.addListener(TracedEvent.class, consumer);
+        bus.addListener(EventPriority.LOW, OtherEvent.class, consumer::accept);
+        bus.addListener(EventPriority.HIGH, TracedEvent.class, consumer);
+        bus.addListener(TracedEvent.class, kept);
+        assertEquals(List.of("consumer", "consumer", "kept"), bus.post(new TracedEvent()).calls);
+
+        bus.unregister(consumer);
+        assertEquals(List.of("kept"), bus.post(new TracedEvent()).calls);
+        //方法引用是另一个对象，不随之移除
+        assertEquals(List.of("kept", "consumer"), bus.post(new OtherEvent()).calls);
+    }
+}